@@ -0,0 +1,65 @@
+package com.fulfilment.application.monolith.common;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+
+/**
+ * Writes query results as newline-delimited JSON while they are read from a forward-only cursor,
+ * so an export never holds more than one fetch of rows in memory.
+ */
+@ApplicationScoped
+public class NdjsonExporter {
+
+  public static final String MEDIA_TYPE = "application/x-ndjson";
+
+  static final int FETCH_SIZE = 500;
+
+  @Inject EntityManager entityManager;
+  @Inject ObjectMapper objectMapper;
+
+  public <T> StreamingOutput export(String jpql, Class<T> type) {
+    return export(jpql, type, Function.identity());
+  }
+
+  public <T, R> StreamingOutput export(String jpql, Class<T> type, Function<T, R> mapper) {
+    ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    // the response body is written after the resource method returns, so the read
+    // needs its own transaction; pgjdbc only honours the fetch size with autocommit off
+    return output -> QuarkusTransaction.requiringNew().run(() -> {
+      try (Stream<T> rows = entityManager.createQuery(jpql, type)
+              .setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+              .setHint(HibernateHints.HINT_READ_ONLY, true)
+              .getResultStream();
+          JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+        generator.setRootValueSeparator(null);
+        int written = 0;
+        Iterator<T> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+          T row = iterator.next();
+          writer.writeValue(generator, mapper.apply(row));
+          generator.writeRaw('\n');
+          entityManager.detach(row);
+          if (++written % FETCH_SIZE == 0) {
+            generator.flush();
+          }
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+}
@@ -0,0 +1,371 @@
+package com.fulfilment.application.monolith.common;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.jboss.logging.Logger;
+
+/**
+ * Append-only journal of keyed records in rolling segment files, written through one
+ * {@link FileChannel}.
+ *
+ * <p>A record is {@code [int length][int crc32][long key][payload]}. Appends go to the active
+ * segment without waiting for the disk; a background thread forces the segment every
+ * {@code fsyncInterval}, so all records appended in one interval share one fsync (group commit) and
+ * a crash loses at most one interval. An interval of zero forces every append instead. A segment
+ * that would grow past {@code segmentBytes} is sealed and a new one started. Once more than
+ * {@code maxSegments} sealed segments exist a background thread compacts them into one that keeps
+ * only the last record of every key, outside the append lock so writers never wait for it; a
+ * {@code maxSegments} of 0 never compacts, for records that must all be replayed. On open, a torn
+ * record at the end of the last segment is cut off.
+ *
+ * <p>Segment sequences are what callers checkpoint against, so a journal can be opened with a first
+ * sequence: an empty directory, or one whose segments are all older, starts a new segment there
+ * instead of at 1, and a checkpoint taken before the directory was lost still means "before".
+ */
+public final class SegmentJournal implements Closeable {
+
+  private static final Logger LOGGER = Logger.getLogger(SegmentJournal.class.getName());
+
+  public static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES + Long.BYTES;
+  private static final String SUFFIX = ".log";
+
+  private final Path directory;
+  private final int segmentBytes;
+  private final int maxSegments;
+  private final boolean syncEveryAppend;
+  private final ScheduledExecutorService flusher;
+  private final ExecutorService compactor;
+  private final CRC32 crc = new CRC32();
+  // held while sealed segments are rewritten, read or deleted; taken after this, never before
+  private final Object sealedLock = new Object();
+
+  // all guarded by this
+  private ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+  private FileChannel active;
+  private long activeSequence;
+  private long activeSize;
+  private boolean dirty;
+  private boolean compactionPending;
+
+  public SegmentJournal(Path directory, int segmentBytes, Duration fsyncInterval, int maxSegments) throws IOException {
+    this(directory, segmentBytes, fsyncInterval, maxSegments, 1);
+  }
+
+  public SegmentJournal(Path directory, int segmentBytes, Duration fsyncInterval, int maxSegments, long firstSequence)
+          throws IOException {
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    this.maxSegments = maxSegments;
+    this.syncEveryAppend = fsyncInterval.isZero();
+    Files.createDirectories(directory);
+
+    List<Path> segments = segments();
+    if (segments.isEmpty() || sequenceOf(segments.get(segments.size() - 1)) < firstSequence) {
+      openSegment(Math.max(1, firstSequence));
+    } else {
+      Path last = segments.get(segments.size() - 1);
+      activeSequence = sequenceOf(last);
+      active = FileChannel.open(last, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      activeSize = validLength(active);
+      active.truncate(activeSize);
+      active.position(activeSize);
+    }
+
+    if (syncEveryAppend) {
+      flusher = null;
+    } else {
+      flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "segment-journal-flush");
+        thread.setDaemon(true);
+        return thread;
+      });
+      long millis = Math.max(1, fsyncInterval.toMillis());
+      flusher.scheduleWithFixedDelay(this::flushQuietly, millis, millis, TimeUnit.MILLISECONDS);
+    }
+    compactor = maxSegments > 0 ? Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "segment-journal-compact");
+      thread.setDaemon(true);
+      return thread;
+    }) : null;
+  }
+
+  /** Appends one record; it is durable after the next group commit, or right away without one. */
+  public synchronized void append(long key, String payload) throws IOException {
+    byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+    int length = HEADER_BYTES + bytes.length;
+    if (length > segmentBytes) {
+      throw new IllegalArgumentException("Record of " + length + " bytes does not fit a segment of " + segmentBytes);
+    }
+    if (activeSize + length > segmentBytes) {
+      roll();
+    }
+
+    if (buffer.capacity() < length) {
+      buffer = ByteBuffer.allocateDirect(Integer.highestOneBit(length) << 1);
+    }
+    crc.reset();
+    crc.update(bytes);
+    buffer.clear();
+    buffer.putInt(length).putInt((int) crc.getValue()).putLong(key).put(bytes).flip();
+    while (buffer.hasRemaining()) {
+      active.write(buffer);
+    }
+    activeSize += length;
+    if (syncEveryAppend) {
+      active.force(false);
+    } else {
+      dirty = true;
+    }
+  }
+
+  /** Forces everything appended so far to disk. */
+  public synchronized void flush() throws IOException {
+    if (dirty) {
+      active.force(false);
+      dirty = false;
+    }
+  }
+
+  /** Calls {@code consumer} with the key and payload of every record, oldest segment first. */
+  public void replay(BiConsumer<Long, String> consumer) throws IOException {
+    replay(0, consumer);
+  }
+
+  /** {@link #replay(BiConsumer)} for the segments after {@code sequence} only. */
+  public synchronized void replay(long sequence, BiConsumer<Long, String> consumer) throws IOException {
+    synchronized (sealedLock) {
+      for (Path segment : segments()) {
+        if (sequenceOf(segment) > sequence) {
+          try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            read(channel, consumer);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Seals the active segment if it has records, so later appends go to a new one, and returns the
+   * sequence of the newest sealed segment, or 0 if there is none.
+   */
+  public synchronized long seal() throws IOException {
+    if (activeSize > 0) {
+      roll();
+    }
+    return activeSequence - 1;
+  }
+
+  /** Deletes the sealed segments up to and including {@code sequence}. */
+  public synchronized void deleteThrough(long sequence) throws IOException {
+    synchronized (sealedLock) {
+      for (Path segment : segments()) {
+        long segmentSequence = sequenceOf(segment);
+        if (segmentSequence <= sequence && segmentSequence != activeSequence) {
+          Files.delete(segment);
+        }
+      }
+    }
+  }
+
+  public synchronized int segmentCount() throws IOException {
+    synchronized (sealedLock) {
+      return segments().size();
+    }
+  }
+
+  /**
+   * Rewrites the sealed segments into the newest of them, keeping the last record per key. The
+   * compacted file replaces that segment atomically before the older ones are deleted, so a crash
+   * in between leaves only superseded records behind, which replay in order and lose to the newer
+   * ones. Runs on the compaction thread after a roll; appends go on meanwhile, since only segments
+   * sealed before the call are touched.
+   */
+  public void compact() throws IOException {
+    long activeAtStart;
+    synchronized (this) {
+      compactionPending = false;
+      activeAtStart = activeSequence;
+    }
+    synchronized (sealedLock) {
+      List<Path> sealed = segments().stream().filter(segment -> sequenceOf(segment) < activeAtStart).toList();
+      if (sealed.size() > 1) {
+        rewrite(sealed);
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    // outside the monitor, a running compaction needs it to start
+    if (compactor != null) {
+      compactor.shutdown();
+      try {
+        compactor.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    synchronized (this) {
+      if (flusher != null) {
+        flusher.shutdownNow();
+      }
+      flush();
+      active.close();
+    }
+  }
+
+  private void roll() throws IOException {
+    active.force(false);
+    active.close();
+    dirty = false;
+    openSegment(activeSequence + 1);
+    if (compactor != null && !compactionPending && segments().size() - 1 > maxSegments) {
+      compactionPending = true;
+      try {
+        compactor.execute(this::compactQuietly);
+      } catch (RejectedExecutionException e) {
+        // closing, the next open compacts on its first roll
+        compactionPending = false;
+      }
+    }
+  }
+
+  private void openSegment(long sequence) throws IOException {
+    activeSequence = sequence;
+    active = FileChannel.open(segmentPath(sequence),
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    activeSize = 0;
+  }
+
+  private void rewrite(List<Path> sealed) throws IOException {
+    Map<Long, String> latest = new LinkedHashMap<>();
+    for (Path segment : sealed) {
+      try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+        read(channel, (key, payload) -> {
+          // re-inserting moves the key behind the ones written before its last record
+          latest.remove(key);
+          latest.put(key, payload);
+        });
+      }
+    }
+
+    Path target = sealed.get(sealed.size() - 1);
+    Path temporary = target.resolveSibling(target.getFileName() + ".compacting");
+    CRC32 crc = new CRC32();
+    // compacted records may exceed one segment, the next roll compacts them again
+    try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      for (var entry : latest.entrySet()) {
+        byte[] bytes = entry.getValue().getBytes(StandardCharsets.UTF_8);
+        crc.reset();
+        crc.update(bytes);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + bytes.length);
+        record.putInt(record.capacity()).putInt((int) crc.getValue()).putLong(entry.getKey()).put(bytes).flip();
+        while (record.hasRemaining()) {
+          out.write(record);
+        }
+      }
+      out.force(true);
+    }
+    Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    for (Path segment : sealed.subList(0, sealed.size() - 1)) {
+      Files.delete(segment);
+    }
+    LOGGER.debugf("Compacted journal into %s, %d records from %d segments", target, latest.size(), sealed.size());
+  }
+
+  private void compactQuietly() {
+    try {
+      compact();
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("Compacting the journal failed", e);
+    }
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("Forcing the journal to disk failed", e);
+    }
+  }
+
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+              .sorted()
+              .toList();
+    }
+  }
+
+  private Path segmentPath(long sequence) {
+    // zero-padded so the names sort in sequence order
+    return directory.resolve(String.format("segment-%020d%s", sequence, SUFFIX));
+  }
+
+  private static long sequenceOf(Path segment) {
+    String name = segment.getFileName().toString();
+    return Long.parseLong(name.substring("segment-".length(), name.length() - SUFFIX.length()));
+  }
+
+  /** Length of the prefix of {@code channel} made of complete records with a matching checksum. */
+  private static long validLength(FileChannel channel) throws IOException {
+    return read(channel, (key, payload) -> { });
+  }
+
+  private static long read(FileChannel channel, BiConsumer<Long, String> consumer) throws IOException {
+    long size = channel.size();
+    long position = 0;
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+    CRC32 crc = new CRC32();
+    while (position + HEADER_BYTES <= size) {
+      header.clear();
+      readFully(channel, header, position);
+      header.flip();
+      int length = header.getInt();
+      int checksum = header.getInt();
+      long key = header.getLong();
+      if (length < HEADER_BYTES || position + length > size) {
+        break;
+      }
+      ByteBuffer payload = ByteBuffer.allocate(length - HEADER_BYTES);
+      readFully(channel, payload, position + HEADER_BYTES);
+      crc.reset();
+      crc.update(payload.array());
+      if ((int) crc.getValue() != checksum) {
+        break;
+      }
+      consumer.accept(key, new String(payload.array(), StandardCharsets.UTF_8));
+      position += length;
+    }
+    return position;
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer target, long position) throws IOException {
+    while (target.hasRemaining()) {
+      if (channel.read(target, position + target.position()) < 0) {
+        throw new UncheckedIOException(new IOException("Unexpected end of journal segment"));
+      }
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package com.fulfilment.application.monolith.common;
+
+/** Body of a stock-delta request: the signed amount to add to the current stock. */
+public class StockAdjustment {
+
+  public Integer delta;
+
+  public StockAdjustment() {}
+
+  public StockAdjustment(Integer delta) {
+    this.delta = delta;
+  }
+}
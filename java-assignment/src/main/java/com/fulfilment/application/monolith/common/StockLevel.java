@@ -0,0 +1,15 @@
+package com.fulfilment.application.monolith.common;
+
+/** Stock of a store or product right after a stock-delta request was applied. */
+public class StockLevel {
+
+  public Long id;
+  public int stock;
+
+  public StockLevel() {}
+
+  public StockLevel(Long id, int stock) {
+    this.id = id;
+    this.stock = stock;
+  }
+}
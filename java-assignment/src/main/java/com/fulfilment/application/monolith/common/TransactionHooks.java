@@ -0,0 +1,82 @@
+package com.fulfilment.application.monolith.common;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.jboss.logging.Logger;
+
+@ApplicationScoped
+public class TransactionHooks {
+
+  private static final Logger LOGGER = Logger.getLogger(TransactionHooks.class.getName());
+
+  @Inject TransactionSynchronizationRegistry txRegistry;
+
+  /**
+   * Runs {@code action} once the current transaction has committed, or right away when there is no
+   * transaction. Failures are logged and never reach the caller, the data is already committed.
+   */
+  public void afterCommit(Runnable action) {
+    register(action, true);
+  }
+
+  /**
+   * Runs {@code action} once the current transaction has completed, whether it committed or rolled
+   * back, or right away when there is no transaction.
+   */
+  public void afterCompletion(Runnable action) {
+    register(action, false);
+  }
+
+  /**
+   * Runs {@code action} if the current transaction rolls back, to undo in-memory state that was
+   * changed ahead of the commit. Without a transaction there is nothing to roll back.
+   */
+  public void afterRollback(Runnable action) {
+    if (txRegistry.getTransactionStatus() == Status.STATUS_NO_TRANSACTION) {
+      return;
+    }
+    txRegistry.registerInterposedSynchronization(new Synchronization() {
+      @Override
+      public void beforeCompletion() {
+      }
+
+      @Override
+      public void afterCompletion(int status) {
+        if (status != Status.STATUS_COMMITTED) {
+          runSafely(action);
+        }
+      }
+    });
+  }
+
+  private void register(Runnable action, boolean onlyOnCommit) {
+    if (txRegistry.getTransactionStatus() == Status.STATUS_NO_TRANSACTION) {
+      runSafely(action);
+      return;
+    }
+
+    txRegistry.registerInterposedSynchronization(new Synchronization() {
+      @Override
+      public void beforeCompletion() {
+      }
+
+      @Override
+      public void afterCompletion(int status) {
+        if (!onlyOnCommit || status == Status.STATUS_COMMITTED) {
+          runSafely(action);
+        }
+      }
+    });
+  }
+
+  private static void runSafely(Runnable action) {
+    try {
+      action.run();
+    } catch (Exception e) {
+      LOGGER.error("After-commit action failed", e);
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
+import com.fulfilment.application.monolith.warehouses.domain.usecases.ArchiveWarehouseUseCase;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import java.util.List;
+
+/**
+ * Archives a warehouse and, in the same transaction, re-points its fulfillments to another
+ * warehouse or removes them, each with one set-based statement instead of a delete and a checked
+ * create per fulfillment. Re-pointing checks the target's product limit once for the whole set.
+ */
+@ApplicationScoped
+public class ArchiveWarehouseFulfillmentsUseCase {
+
+  @Inject ArchiveWarehouseUseCase archiveWarehouseUseCase;
+  @Inject WarehouseRepository warehouseRepository;
+  @Inject FulfillmentRepository fulfillmentRepository;
+  @Inject FulfillmentConstraintIndex constraintIndex;
+
+  /**
+   * @param repointTo active warehouse that takes over the fulfillments, or {@code null} to remove them
+   */
+  public WarehouseArchiveResult archive(String businessUnitCode, String repointTo) {
+    if (repointTo != null) {
+      if (repointTo.equals(businessUnitCode)) {
+        throw new WebApplicationException("Cannot re-point fulfillments to the archived warehouse", 400);
+      }
+      // both active rows stay locked until the commit, so the target cannot be archived before the
+      // fulfillments reach it
+      if (!warehouseRepository.lockActiveByBusinessUnitCodes(List.of(businessUnitCode, repointTo))
+              .containsKey(repointTo)) {
+        throw new WebApplicationException("Target warehouse not found", 404);
+      }
+    }
+    archiveWarehouseUseCase.archive(businessUnitCode);
+
+    var result = new WarehouseArchiveResult(businessUnitCode, repointTo);
+    if (repointTo == null) {
+      List<Fulfillment> removed = fulfillmentRepository.deleteByWarehouse(businessUnitCode);
+      constraintIndex.releaseAfterCommit(removed);
+      result.removed = removed.size();
+      return result;
+    }
+
+    boolean indexed = constraintIndex.isReady();
+    if (!indexed) {
+      fulfillmentRepository.lockForCreate(List.of(), List.of(repointTo));
+    }
+    List<Fulfillment> repointed = fulfillmentRepository.repointWarehouse(businessUnitCode, repointTo);
+    // the statement has run; throwing rolls it back together with the archive
+    if (indexed
+            ? !constraintIndex.reserveRepoint(businessUnitCode, repointTo, repointed)
+            : fulfillmentRepository.countProductByWarehouse(repointTo) > FulfillmentVerdict.MAX_PRODUCTS_PER_WAREHOUSE) {
+      throw new WebApplicationException("Warehouse can store max 5 product types", 400);
+    }
+    result.moved = repointed.stream().filter(f -> repointTo.equals(f.warehouseBusinessUnitCode)).count();
+    result.removed = repointed.size() - result.moved;
+    return result;
+  }
+}
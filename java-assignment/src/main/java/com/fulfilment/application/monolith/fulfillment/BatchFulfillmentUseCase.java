@@ -0,0 +1,152 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import com.fulfilment.application.monolith.fulfillment.FulfillmentResource.FulfillmentRequest;
+import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Creates many fulfillments in one transaction. Existence of products, stores and warehouses and
+ * the fulfillments already present for the affected stores are read once for the whole batch; the
+ * limits are then checked in order against the {@link FulfillmentConstraintIndex}, which also counts
+ * the items admitted earlier in the batch. Accepted rows are written in one flush, rejected items
+ * are reported and skipped. Without a ready index, every item is checked with
+ * {@link FulfillmentRepository#verdictFor} under the locks of all stores and warehouses of the batch.
+ */
+@ApplicationScoped
+public class BatchFulfillmentUseCase {
+
+  static final int MAX_BATCH_SIZE = 1000;
+
+  @Inject FulfillmentRepository fulfillmentRepository;
+  @Inject FulfillmentConstraintIndex constraintIndex;
+  @Inject WarehouseRepository warehouseRepository;
+
+  public List<FulfillmentResult> create(List<FulfillmentRequest> requests) {
+    if (requests == null || requests.isEmpty()) {
+      throw new WebApplicationException("Batch contains no fulfillments", 400);
+    }
+    if (requests.size() > MAX_BATCH_SIZE) {
+      throw new WebApplicationException(
+              "Batch cannot contain more than " + MAX_BATCH_SIZE + " fulfillments", 400);
+    }
+
+    Set<Long> productIds = new HashSet<>();
+    Set<Long> storeIds = new HashSet<>();
+    Set<String> codes = new HashSet<>();
+    for (FulfillmentRequest request : requests) {
+      if (request != null) {
+        if (request.productId != null) {
+          productIds.add(request.productId);
+        }
+        if (request.storeId != null) {
+          storeIds.add(request.storeId);
+        }
+        if (request.warehouseBusinessUnitCode != null) {
+          codes.add(request.warehouseBusinessUnitCode);
+        }
+      }
+    }
+    Set<Long> existingProducts = fulfillmentRepository.existingProductIds(productIds);
+    Set<Long> existingStores = fulfillmentRepository.existingStoreIds(storeIds);
+    Set<String> activeWarehouses = warehouseRepository.findActiveByBusinessUnitCodes(codes).keySet();
+    Set<List<Object>> existing = fulfillmentRepository.keysForStores(existingStores);
+
+    Set<List<Object>> seen = new HashSet<>();
+    List<FulfillmentResult> results = new ArrayList<>(requests.size());
+    List<FulfillmentResult> candidates = new ArrayList<>();
+    List<Fulfillment> fulfillments = new ArrayList<>();
+    for (int i = 0; i < requests.size(); i++) {
+      FulfillmentRequest request = requests.get(i);
+      var result = request == null
+              ? new FulfillmentResult(i, null, null, null)
+              : new FulfillmentResult(i, request.productId, request.storeId, request.warehouseBusinessUnitCode);
+      results.add(result);
+      try {
+        if (request == null || request.productId == null || request.storeId == null
+                || request.warehouseBusinessUnitCode == null) {
+          throw new WebApplicationException("productId, storeId and warehouseBusinessUnitCode are required", 400);
+        }
+        if (!existingProducts.contains(request.productId)) {
+          throw new WebApplicationException("Product not found", 404);
+        }
+        if (!existingStores.contains(request.storeId)) {
+          throw new WebApplicationException("Store not found", 404);
+        }
+        if (!activeWarehouses.contains(request.warehouseBusinessUnitCode)) {
+          throw new WebApplicationException("Warehouse not found", 404);
+        }
+        List<Object> key = List.of(request.productId, request.storeId, request.warehouseBusinessUnitCode);
+        if (existing.contains(key)) {
+          throw new WebApplicationException("Fulfillment already exists", 409);
+        }
+        if (!seen.add(key)) {
+          throw new WebApplicationException("Fulfillment appears earlier in the batch", 409);
+        }
+      } catch (WebApplicationException e) {
+        reject(result, e);
+        continue;
+      }
+      candidates.add(result);
+      fulfillments.add(new Fulfillment(request.productId, request.storeId, request.warehouseBusinessUnitCode));
+    }
+
+    List<FulfillmentVerdict> verdicts = constraintIndex.isReady()
+            ? constraintIndex.reserveAll(fulfillments)
+            : verdictsFromDatabase(fulfillments);
+    List<Fulfillment> accepted = new ArrayList<>(fulfillments.size());
+    for (int i = 0; i < verdicts.size(); i++) {
+      var result = candidates.get(i);
+      try {
+        CreateFulfillmentUseCase.checkLimits(verdicts.get(i));
+      } catch (WebApplicationException e) {
+        reject(result, e);
+        continue;
+      }
+      accepted.add(fulfillments.get(i));
+      result.status = 200;
+    }
+
+    // no-op for the rows a database check has persisted already
+    fulfillmentRepository.persist(accepted);
+    fulfillmentRepository.flush();
+    for (int i = 0, a = 0; i < candidates.size(); i++) {
+      if (candidates.get(i).applied()) {
+        candidates.get(i).id = accepted.get(a++).id;
+      }
+    }
+    return results;
+  }
+
+  // verdictFor flushes the items admitted before, so their verdicts count them
+  private List<FulfillmentVerdict> verdictsFromDatabase(List<Fulfillment> fulfillments) {
+    Set<Long> storeIds = new HashSet<>();
+    Set<String> codes = new HashSet<>();
+    for (Fulfillment fulfillment : fulfillments) {
+      storeIds.add(fulfillment.storeId);
+      codes.add(fulfillment.warehouseBusinessUnitCode);
+    }
+    fulfillmentRepository.lockForCreate(storeIds, codes);
+
+    List<FulfillmentVerdict> verdicts = new ArrayList<>(fulfillments.size());
+    for (Fulfillment fulfillment : fulfillments) {
+      var verdict = fulfillmentRepository.verdictFor(
+              fulfillment.productId, fulfillment.storeId, fulfillment.warehouseBusinessUnitCode);
+      if (!verdict.productAndStoreFull() && !verdict.storeFull() && !verdict.warehouseFull()) {
+        fulfillmentRepository.persist(fulfillment);
+      }
+      verdicts.add(verdict);
+    }
+    return verdicts;
+  }
+
+  private static void reject(FulfillmentResult result, WebApplicationException e) {
+    result.status = e.getResponse().getStatus();
+    result.error = e.getMessage();
+  }
+}
@@ -6,37 +6,78 @@ import com.fulfilment.application.monolith.warehouses.adapters.database.Warehous
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.WebApplicationException;
+import java.util.Set;
 
 @ApplicationScoped
 public class CreateFulfillmentUseCase {
 
   @Inject FulfillmentRepository fulfillmentRepository;
+  @Inject FulfillmentConstraintIndex constraintIndex;
   @Inject ProductRepository productRepository;
   @Inject WarehouseRepository warehouseRepository;
 
   public Fulfillment create(Long productId, Long storeId, String warehouseBusinessUnitCode) {
-    if (productRepository.findById(productId) == null) {
+    if (constraintIndex.isReady()) {
+      checkAgainstIndex(productId, storeId, warehouseBusinessUnitCode);
+    } else {
+      checkInDatabase(productId, storeId, warehouseBusinessUnitCode);
+    }
+
+    var fulfillment = new Fulfillment(productId, storeId, warehouseBusinessUnitCode);
+    fulfillmentRepository.persist(fulfillment);
+    return fulfillment;
+  }
+
+  private void checkAgainstIndex(Long productId, Long storeId, String warehouseBusinessUnitCode) {
+    // products and stores come from the second-level cache, active warehouses from their own cache
+    if (productId == null || productRepository.findById(productId) == null) {
       throw new WebApplicationException("Product not found", 404);
     }
-    if (Store.findById(storeId) == null) {
+    if (storeId == null || Store.findById(storeId) == null) {
       throw new WebApplicationException("Store not found", 404);
     }
     if (warehouseRepository.findByBusinessUnitCode(warehouseBusinessUnitCode) == null) {
       throw new WebApplicationException("Warehouse not found", 404);
     }
 
-    if (fulfillmentRepository.countWarehouseByProductAndStore(productId, storeId) >= 2) {
+    checkLimits(constraintIndex.reserve(productId, storeId, warehouseBusinessUnitCode));
+  }
+
+  // no index in this JVM: existence and limits in one statement, under the store and warehouse locks
+  private void checkInDatabase(Long productId, Long storeId, String warehouseBusinessUnitCode) {
+    if (productId == null) {
+      throw new WebApplicationException("Product not found", 404);
+    }
+    if (storeId == null) {
+      throw new WebApplicationException("Store not found", 404);
+    }
+    if (warehouseBusinessUnitCode == null) {
+      throw new WebApplicationException("Warehouse not found", 404);
+    }
+    fulfillmentRepository.lockForCreate(Set.of(storeId), Set.of(warehouseBusinessUnitCode));
+    var verdict = fulfillmentRepository.verdictFor(productId, storeId, warehouseBusinessUnitCode);
+
+    if (!verdict.productExists) {
+      throw new WebApplicationException("Product not found", 404);
+    }
+    if (!verdict.storeExists) {
+      throw new WebApplicationException("Store not found", 404);
+    }
+    if (!verdict.warehouseExists) {
+      throw new WebApplicationException("Warehouse not found", 404);
+    }
+    checkLimits(verdict);
+  }
+
+  static void checkLimits(FulfillmentVerdict verdict) {
+    if (verdict.productAndStoreFull()) {
       throw new WebApplicationException("Product can have max 2 warehouses per store", 400);
     }
-    if (fulfillmentRepository.countWarehouseByStore(storeId) >= 3) {
+    if (verdict.storeFull()) {
       throw new WebApplicationException("Store can be fulfilled by max 3 warehouses", 400);
     }
-    if (fulfillmentRepository.countProductByWarehouse(warehouseBusinessUnitCode) >= 5) {
+    if (verdict.warehouseFull()) {
       throw new WebApplicationException("Warehouse can store max 5 product types", 400);
     }
-
-    var fulfillment = new Fulfillment(productId, storeId, warehouseBusinessUnitCode);
-    fulfillmentRepository.persist(fulfillment);
-    return fulfillment;
   }
 }
@@ -0,0 +1,233 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import com.fulfilment.application.monolith.common.TransactionHooks;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * The fulfillment table as three adjacency indexes, so the limits of a new fulfillment are checked
+ * in memory: store to warehouses, warehouse to products and product to stores, each a
+ * {@link LongObjectMap} of {@link LongCounts} keyed by primitive ids. Warehouse business unit codes
+ * are interned to ids once.
+ *
+ * <p>Warm-loaded at startup. A create {@link #reserve reserves} its fulfillment in the index under
+ * the same lock that checks the limits, so concurrent creates see each other before they commit,
+ * and the reservation is undone if the transaction rolls back. A delete is released once it has
+ * committed. The index may therefore briefly count a fulfillment the table does not have yet, never
+ * the other way round.
+ *
+ * <p>The index only sees the fulfillments written through this JVM. With
+ * {@code fulfillment.constraint-index.enabled=false} (several nodes writing fulfillments), or while
+ * it is not {@link #isReady ready}, the use cases check the limits in the database instead, with
+ * {@link FulfillmentRepository#verdictFor}.
+ */
+@ApplicationScoped
+public class FulfillmentConstraintIndex {
+
+  private static final Logger LOGGER = Logger.getLogger(FulfillmentConstraintIndex.class.getName());
+
+  @ConfigProperty(name = "fulfillment.constraint-index.enabled", defaultValue = "true")
+  boolean enabled;
+
+  @Inject TransactionHooks transactionHooks;
+
+  private volatile boolean ready;
+
+  // all fields guarded by this
+  private final Map<String, Long> warehouseIds = new HashMap<>();
+  private final LongObjectMap<LongCounts> warehousesByStore = new LongObjectMap<>(64);
+  private final LongObjectMap<LongCounts> productsByWarehouse = new LongObjectMap<>(64);
+  private final LongObjectMap<LongCounts> storesByProduct = new LongObjectMap<>(64);
+
+  @Transactional
+  void onStart(@Observes StartupEvent event, FulfillmentRepository fulfillmentRepository) {
+    if (!enabled) {
+      return;
+    }
+    try {
+      load(fulfillmentRepository.listAll());
+    } catch (RuntimeException e) {
+      // stays cold: the limits are checked in the database until the next start
+      LOGGER.warn("Could not load the fulfillment constraint index", e);
+    }
+  }
+
+  /** Whether the index is loaded and the limits can be checked against it. */
+  public boolean isReady() {
+    return ready;
+  }
+
+  public synchronized void load(List<Fulfillment> fulfillments) {
+    warehouseIds.clear();
+    warehousesByStore.clear();
+    productsByWarehouse.clear();
+    storesByProduct.clear();
+    for (Fulfillment fulfillment : fulfillments) {
+      add(fulfillment.productId, fulfillment.storeId, warehouseId(fulfillment.warehouseBusinessUnitCode));
+    }
+    ready = true;
+  }
+
+  /**
+   * Checks a new fulfillment against the limits and, when none of them is reached, adds it to the
+   * index unless the current transaction rolls back. Existence is not checked here, all three
+   * existence flags of the verdict are set.
+   */
+  public synchronized FulfillmentVerdict reserve(long productId, long storeId, String warehouseBusinessUnitCode) {
+    var verdict = admit(productId, storeId, warehouseBusinessUnitCode);
+    if (admitted(verdict)) {
+      transactionHooks.afterRollback(() -> remove(productId, storeId, warehouseBusinessUnitCode));
+    }
+    return verdict;
+  }
+
+  /**
+   * {@link #reserve} for many fulfillments at once and under one lock, in order, so every one is
+   * checked against the ones admitted before it. Returns one verdict per fulfillment.
+   */
+  public synchronized List<FulfillmentVerdict> reserveAll(List<Fulfillment> fulfillments) {
+    List<FulfillmentVerdict> verdicts = new ArrayList<>(fulfillments.size());
+    List<Fulfillment> admitted = new ArrayList<>();
+    for (Fulfillment fulfillment : fulfillments) {
+      var verdict = admit(fulfillment.productId, fulfillment.storeId, fulfillment.warehouseBusinessUnitCode);
+      if (admitted(verdict)) {
+        admitted.add(fulfillment);
+      }
+      verdicts.add(verdict);
+    }
+    if (!admitted.isEmpty()) {
+      transactionHooks.afterRollback(() -> admitted.forEach(fulfillment ->
+              remove(fulfillment.productId, fulfillment.storeId, fulfillment.warehouseBusinessUnitCode)));
+    }
+    return verdicts;
+  }
+
+  /**
+   * Index side of {@link FulfillmentRepository#repointWarehouse}. Checks once for the whole set that
+   * {@code to} stays within the product limit, and returns false, changing nothing, if it would not.
+   * Otherwise the moved rows count for {@code to} right away, unless the transaction rolls back, and
+   * stop counting for {@code from} once it has committed.
+   */
+  public synchronized boolean reserveRepoint(String from, String to, List<Fulfillment> repointed) {
+    long toId = warehouseId(to);
+    LongCounts products = productsByWarehouse.get(toId);
+    LongCounts added = new LongCounts();
+    List<Fulfillment> moved = new ArrayList<>();
+    for (Fulfillment fulfillment : repointed) {
+      if (to.equals(fulfillment.warehouseBusinessUnitCode)) {
+        moved.add(fulfillment);
+        if (products == null || products.count(fulfillment.productId) == 0) {
+          added.add(fulfillment.productId);
+        }
+      }
+    }
+    if ((products == null ? 0 : products.distinct()) + added.distinct() > FulfillmentVerdict.MAX_PRODUCTS_PER_WAREHOUSE) {
+      return false;
+    }
+
+    moved.forEach(fulfillment -> add(fulfillment.productId, fulfillment.storeId, toId));
+    if (!moved.isEmpty()) {
+      transactionHooks.afterRollback(() -> moved.forEach(fulfillment ->
+              remove(fulfillment.productId, fulfillment.storeId, to)));
+    }
+    transactionHooks.afterCommit(() -> repointed.forEach(fulfillment ->
+            remove(fulfillment.productId, fulfillment.storeId, from)));
+    return true;
+  }
+
+  /** Drops deleted fulfillments from the index once the current transaction has committed. */
+  public void releaseAfterCommit(List<Fulfillment> fulfillments) {
+    if (!fulfillments.isEmpty()) {
+      transactionHooks.afterCommit(() -> fulfillments.forEach(fulfillment ->
+              remove(fulfillment.productId, fulfillment.storeId, fulfillment.warehouseBusinessUnitCode)));
+    }
+  }
+
+  /** Drops a deleted fulfillment from the index once the current transaction has committed. */
+  public void releaseAfterCommit(Fulfillment fulfillment) {
+    long productId = fulfillment.productId;
+    long storeId = fulfillment.storeId;
+    String warehouseBusinessUnitCode = fulfillment.warehouseBusinessUnitCode;
+    transactionHooks.afterCommit(() -> remove(productId, storeId, warehouseBusinessUnitCode));
+  }
+
+  synchronized long warehousesForProductAndStore(long productId, long storeId) {
+    LongCounts stores = storesByProduct.get(productId);
+    return stores == null ? 0 : stores.count(storeId);
+  }
+
+  synchronized long warehousesForStore(long storeId) {
+    LongCounts warehouses = warehousesByStore.get(storeId);
+    return warehouses == null ? 0 : warehouses.distinct();
+  }
+
+  synchronized long productsForWarehouse(String warehouseBusinessUnitCode) {
+    Long warehouseId = warehouseIds.get(warehouseBusinessUnitCode);
+    LongCounts products = warehouseId == null ? null : productsByWarehouse.get(warehouseId);
+    return products == null ? 0 : products.distinct();
+  }
+
+  private FulfillmentVerdict admit(long productId, long storeId, String warehouseBusinessUnitCode) {
+    long warehouseId = warehouseId(warehouseBusinessUnitCode);
+    LongCounts stores = storesByProduct.get(productId);
+    LongCounts warehouses = warehousesByStore.get(storeId);
+    LongCounts products = productsByWarehouse.get(warehouseId);
+    var verdict = new FulfillmentVerdict(true, true, true,
+            stores == null ? 0 : stores.count(storeId),
+            warehouses == null ? 0 : warehouses.distinct(),
+            products == null ? 0 : products.distinct());
+    if (admitted(verdict)) {
+      add(productId, storeId, warehouseId);
+    }
+    return verdict;
+  }
+
+  private static boolean admitted(FulfillmentVerdict verdict) {
+    return !verdict.productAndStoreFull() && !verdict.storeFull() && !verdict.warehouseFull();
+  }
+
+  private synchronized void remove(long productId, long storeId, String warehouseBusinessUnitCode) {
+    Long warehouseId = warehouseIds.get(warehouseBusinessUnitCode);
+    if (warehouseId == null) {
+      return;
+    }
+    remove(storesByProduct, productId, storeId);
+    remove(warehousesByStore, storeId, warehouseId);
+    remove(productsByWarehouse, warehouseId, productId);
+  }
+
+  private void add(long productId, long storeId, long warehouseId) {
+    add(storesByProduct, productId, storeId);
+    add(warehousesByStore, storeId, warehouseId);
+    add(productsByWarehouse, warehouseId, productId);
+  }
+
+  private long warehouseId(String warehouseBusinessUnitCode) {
+    return warehouseIds.computeIfAbsent(warehouseBusinessUnitCode, code -> (long) warehouseIds.size());
+  }
+
+  private static void add(LongObjectMap<LongCounts> index, long key, long value) {
+    LongCounts counts = index.get(key);
+    if (counts == null) {
+      counts = new LongCounts();
+      index.put(key, counts);
+    }
+    counts.add(value);
+  }
+
+  private static void remove(LongObjectMap<LongCounts> index, long key, long value) {
+    LongCounts counts = index.get(key);
+    if (counts != null && counts.remove(value) && counts.distinct() == 0) {
+      index.remove(key);
+    }
+  }
+}
@@ -2,14 +2,199 @@ package com.fulfilment.application.monolith.fulfillment;
 
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 @ApplicationScoped
 public class FulfillmentRepository implements PanacheRepository<Fulfillment> {
 
+  private static final int ADVISORY_LOCK_CLASS = 1;
+
+  /**
+   * Existence of product, store and active warehouse plus the three counts behind the fulfillment
+   * limits, in one round trip.
+   */
+  public FulfillmentVerdict verdictFor(Long productId, Long storeId, String warehouseBusinessUnitCode) {
+    // fulfillments persisted earlier in the transaction must be counted
+    flush();
+    Object[] row = (Object[]) getEntityManager()
+        .createNativeQuery(
+            "SELECT"
+                + " EXISTS (SELECT 1 FROM product WHERE id = :productId),"
+                + " EXISTS (SELECT 1 FROM store WHERE id = :storeId),"
+                + " EXISTS (SELECT 1 FROM warehouse WHERE businessUnitCode = :warehouseCode AND archivedAt IS NULL),"
+                + " (SELECT COUNT(*) FROM fulfillment WHERE productId = :productId AND storeId = :storeId),"
+                + " (SELECT COUNT(DISTINCT warehouseBusinessUnitCode) FROM fulfillment WHERE storeId = :storeId),"
+                + " (SELECT COUNT(DISTINCT productId) FROM fulfillment WHERE warehouseBusinessUnitCode = :warehouseCode)")
+        .setParameter("productId", productId)
+        .setParameter("storeId", storeId)
+        .setParameter("warehouseCode", warehouseBusinessUnitCode)
+        .getSingleResult();
+    return new FulfillmentVerdict(
+        (Boolean) row[0],
+        (Boolean) row[1],
+        (Boolean) row[2],
+        ((Number) row[3]).longValue(),
+        ((Number) row[4]).longValue(),
+        ((Number) row[5]).longValue());
+  }
+
+  /**
+   * Serializes the fulfillment writes of the given stores and warehouses across nodes until the
+   * current transaction ends, so a {@link #verdictFor} read after it stays true until the commit.
+   * Stores are locked before warehouses, each in ascending order, in one statement.
+   */
+  public void lockForCreate(Collection<Long> storeIds, Collection<String> warehouseBusinessUnitCodes) {
+    List<String> keys = new ArrayList<>();
+    new TreeSet<>(storeIds).forEach(storeId -> keys.add("store:" + storeId));
+    new TreeSet<>(warehouseBusinessUnitCodes).forEach(code -> keys.add("warehouse:" + code));
+    if (keys.isEmpty()) {
+      return;
+    }
+
+    // the two-key form keeps these locks apart from the location locks; the select list runs in order
+    StringBuilder locks = new StringBuilder();
+    for (int i = 0; i < keys.size(); i++) {
+      locks.append(i == 0 ? "" : ", ").append("pg_advisory_xact_lock(").append(ADVISORY_LOCK_CLASS)
+          .append(", hashtext(:key").append(i).append("))");
+    }
+    Query query = getEntityManager()
+        .createNativeQuery("SELECT COUNT(*) FROM (SELECT " + locks + ") AS l");
+    for (int i = 0; i < keys.size(); i++) {
+      query.setParameter("key" + i, keys.get(i));
+    }
+    query.getSingleResult();
+  }
+
+  /**
+   * Returns up to {@code limit} fulfillments of a store ordered by id, starting right after
+   * {@code afterId} (keyset pagination). ix_fulfillment_store_id serves both the filter and the order.
+   */
+  public List<FulfillmentView> findPageByStore(Long storeId, Long afterId, int limit) {
+    return findPage("storeId", storeId, afterId, limit);
+  }
+
+  /** As {@link #findPageByStore}, for a warehouse (ix_fulfillment_warehouse_id). */
+  public List<FulfillmentView> findPageByWarehouse(String warehouseBusinessUnitCode, Long afterId, int limit) {
+    return findPage("warehouseBusinessUnitCode", warehouseBusinessUnitCode, afterId, limit);
+  }
+
+  /** As {@link #findPageByStore}, for a product (ix_fulfillment_product_id). */
+  public List<FulfillmentView> findPageByProduct(Long productId, Long afterId, int limit) {
+    return findPage("productId", productId, afterId, limit);
+  }
+
+  // column is always one of the constants above, never request input
+  private List<FulfillmentView> findPage(String column, Object value, Long afterId, int limit) {
+    TypedQuery<FulfillmentView> query = getEntityManager()
+        .createQuery(
+            "SELECT new com.fulfilment.application.monolith.fulfillment.FulfillmentView("
+                + "f.id, f.productId, f.storeId, f.warehouseBusinessUnitCode)"
+                + " FROM Fulfillment f WHERE f." + column + " = :value"
+                + (afterId != null ? " AND f.id > :afterId" : "")
+                + " ORDER BY f.id",
+            FulfillmentView.class)
+        .setParameter("value", value)
+        .setMaxResults(limit);
+    if (afterId != null) {
+      query.setParameter("afterId", afterId);
+    }
+    return query.getResultList();
+  }
+
+  public Set<Long> existingProductIds(Collection<Long> productIds) {
+    if (productIds.isEmpty()) {
+      return new HashSet<>();
+    }
+    return new HashSet<>(getEntityManager()
+        .createQuery("SELECT p.id FROM Product p WHERE p.id IN :ids", Long.class)
+        .setParameter("ids", productIds)
+        .getResultList());
+  }
+
+  public Set<Long> existingStoreIds(Collection<Long> storeIds) {
+    if (storeIds.isEmpty()) {
+      return new HashSet<>();
+    }
+    return new HashSet<>(getEntityManager()
+        .createQuery("SELECT s.id FROM Store s WHERE s.id IN :ids", Long.class)
+        .setParameter("ids", storeIds)
+        .getResultList());
+  }
+
+  /** (productId, storeId, warehouseBusinessUnitCode) of every fulfillment of the given stores. */
+  public Set<List<Object>> keysForStores(Collection<Long> storeIds) {
+    Set<List<Object>> keys = new HashSet<>();
+    if (storeIds.isEmpty()) {
+      return keys;
+    }
+    getEntityManager()
+        .createQuery("SELECT f.productId, f.storeId, f.warehouseBusinessUnitCode FROM Fulfillment f WHERE f.storeId IN :ids", Object[].class)
+        .setParameter("ids", storeIds)
+        .getResultList()
+        .forEach(row -> keys.add(List.of(row)));
+    return keys;
+  }
+
+  /**
+   * Moves every fulfillment of warehouse {@code from} to warehouse {@code to} in one statement. A
+   * fulfillment that {@code to} already has for the same product and store is deleted instead.
+   * Returns the affected rows as they are now: moved rows carry {@code to}, deleted ones
+   * {@code from}.
+   */
+  public List<Fulfillment> repointWarehouse(String from, String to) {
+    List<?> rows = getEntityManager()
+        .createNativeQuery(
+            "WITH merged AS ("
+                + " DELETE FROM fulfillment f WHERE f.warehouseBusinessUnitCode = :from"
+                + " AND EXISTS (SELECT 1 FROM fulfillment t WHERE t.warehouseBusinessUnitCode = :to"
+                + " AND t.productId = f.productId AND t.storeId = f.storeId)"
+                + " RETURNING f.id, f.productId, f.storeId),"
+                + " moved AS ("
+                + " UPDATE fulfillment f SET warehouseBusinessUnitCode = :to"
+                + " WHERE f.warehouseBusinessUnitCode = :from AND f.id NOT IN (SELECT id FROM merged)"
+                + " RETURNING f.productId, f.storeId)"
+                + " SELECT productId, storeId, CAST(:to AS varchar) FROM moved"
+                + " UNION ALL SELECT productId, storeId, CAST(:from AS varchar) FROM merged")
+        .setParameter("from", from)
+        .setParameter("to", to)
+        .getResultList();
+    return toFulfillments(rows);
+  }
+
+  /** Deletes every fulfillment of a warehouse in one statement and returns the deleted rows. */
+  public List<Fulfillment> deleteByWarehouse(String warehouseBusinessUnitCode) {
+    List<?> rows = getEntityManager()
+        .createNativeQuery(
+            "DELETE FROM fulfillment WHERE warehouseBusinessUnitCode = :code"
+                + " RETURNING productId, storeId, warehouseBusinessUnitCode")
+        .setParameter("code", warehouseBusinessUnitCode)
+        .getResultList();
+    return toFulfillments(rows);
+  }
+
+  private static List<Fulfillment> toFulfillments(List<?> rows) {
+    List<Fulfillment> fulfillments = new ArrayList<>(rows.size());
+    for (Object row : rows) {
+      Object[] columns = (Object[]) row;
+      fulfillments.add(new Fulfillment(
+          ((Number) columns[0]).longValue(), ((Number) columns[1]).longValue(), (String) columns[2]));
+    }
+    return fulfillments;
+  }
+
+  // served by the unique (productId, storeId, warehouseBusinessUnitCode) constraint
   public long countWarehouseByProductAndStore(Long productId, Long storeId) {
     return count("productId = ?1 and storeId = ?2", productId, storeId);
   }
 
+  // index-only on ix_fulfillment_store_warehouse
   public long countWarehouseByStore(Long storeId) {
     return getEntityManager()
         .createQuery("SELECT COUNT(DISTINCT f.warehouseBusinessUnitCode) FROM Fulfillment f WHERE f.storeId = :storeId", Long.class)
@@ -17,6 +202,7 @@ public class FulfillmentRepository implements PanacheRepository<Fulfillment> {
         .getSingleResult();
   }
 
+  // index-only on ix_fulfillment_warehouse_product
   public long countProductByWarehouse(String warehouseBusinessUnitCode) {
     return getEntityManager()
         .createQuery("SELECT COUNT(DISTINCT f.productId) FROM Fulfillment f WHERE f.warehouseBusinessUnitCode = :warehouseCode", Long.class)
@@ -2,14 +2,18 @@ package com.fulfilment.application.monolith.fulfillment;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fulfilment.application.monolith.common.NdjsonExporter;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import jakarta.ws.rs.ext.ExceptionMapper;
 import jakarta.ws.rs.ext.Provider;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
 import org.jboss.logging.Logger;
 
@@ -21,6 +25,14 @@ public class FulfillmentResource {
 
   @Inject FulfillmentRepository fulfillmentRepository;
   @Inject CreateFulfillmentUseCase createFulfillmentUseCase;
+  @Inject BatchFulfillmentUseCase batchFulfillmentUseCase;
+  @Inject ArchiveWarehouseFulfillmentsUseCase archiveWarehouseFulfillmentsUseCase;
+  @Inject FulfillmentConstraintIndex constraintIndex;
+  @Inject NdjsonExporter ndjsonExporter;
+
+  static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+  static final int DEFAULT_PAGE_SIZE = 100;
+  static final int MAX_PAGE_SIZE = 1000;
 
   private static final Logger LOGGER = Logger.getLogger(FulfillmentResource.class.getName());
 
@@ -31,11 +43,70 @@ public class FulfillmentResource {
     return Response.status(201).entity(fulfillment).build();
   }
 
+  /** Creates many fulfillments in one transaction; each item is accepted or rejected on its own. */
+  @POST
+  @Path("batch")
+  @Transactional
+  public BatchResponse createBatch(BatchRequest request) {
+    if (request == null) {
+      throw new WebApplicationException("Batch request body is required", 400);
+    }
+    var response = new BatchResponse();
+    response.results = batchFulfillmentUseCase.create(request.fulfillments);
+    response.applied = response.results.stream().filter(FulfillmentResult::applied).count();
+    response.rejected = response.results.size() - response.applied;
+    return response;
+  }
+
   @GET
   public List<Fulfillment> list() {
     return fulfillmentRepository.listAll();
   }
 
+  @GET
+  @Path("export")
+  @Produces(NdjsonExporter.MEDIA_TYPE)
+  public StreamingOutput export() {
+    return ndjsonExporter.export("FROM Fulfillment f ORDER BY f.id", Fulfillment.class);
+  }
+
+  @GET
+  @Path("stores/{storeId}")
+  public Response listByStore(@PathParam("storeId") Long storeId,
+          @QueryParam("limit") Integer limit, @QueryParam("after") String after) {
+    int pageSize = pageSize(limit);
+    return page(fulfillmentRepository.findPageByStore(storeId, decodeCursor(after), pageSize + 1), pageSize);
+  }
+
+  @GET
+  @Path("warehouses/{warehouseBusinessUnitCode}")
+  public Response listByWarehouse(@PathParam("warehouseBusinessUnitCode") String warehouseBusinessUnitCode,
+          @QueryParam("limit") Integer limit, @QueryParam("after") String after) {
+    int pageSize = pageSize(limit);
+    return page(fulfillmentRepository.findPageByWarehouse(warehouseBusinessUnitCode, decodeCursor(after), pageSize + 1), pageSize);
+  }
+
+  /**
+   * Archives a warehouse and re-points its fulfillments to {@code repointTo}, or removes them when
+   * no target is given, in one transaction.
+   */
+  @POST
+  @Path("warehouses/{warehouseBusinessUnitCode}/archive")
+  @Transactional
+  public WarehouseArchiveResult archiveWarehouse(
+          @PathParam("warehouseBusinessUnitCode") String warehouseBusinessUnitCode, ArchiveRequest request) {
+    String repointTo = request == null ? null : request.repointTo;
+    return archiveWarehouseFulfillmentsUseCase.archive(warehouseBusinessUnitCode, repointTo);
+  }
+
+  @GET
+  @Path("products/{productId}")
+  public Response listByProduct(@PathParam("productId") Long productId,
+          @QueryParam("limit") Integer limit, @QueryParam("after") String after) {
+    int pageSize = pageSize(limit);
+    return page(fulfillmentRepository.findPageByProduct(productId, decodeCursor(after), pageSize + 1), pageSize);
+  }
+
   @GET
   @Path("{productId}/fulfillment")
   public List<Fulfillment> getFulfillments(@PathParam("productId") Long productId) {
@@ -46,13 +117,49 @@ public class FulfillmentResource {
   @Path("/{id}")
   @Transactional
   public Response delete(@PathParam("id") Long id) {
-    boolean deleted = fulfillmentRepository.deleteById(id);
-    if (!deleted) {
+    Fulfillment fulfillment = fulfillmentRepository.findById(id);
+    if (fulfillment == null) {
       throw new WebApplicationException("Fulfillment with id of " + id + " does not exist.", 404);
     }
+    fulfillmentRepository.delete(fulfillment);
+    constraintIndex.releaseAfterCommit(fulfillment);
     return Response.status(204).build();
   }
 
+  private static int pageSize(Integer limit) {
+    int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+    if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+      throw new WebApplicationException("Limit must be between 1 and " + MAX_PAGE_SIZE, 400);
+    }
+    return pageSize;
+  }
+
+  // one extra row tells whether there is a next page without a count query
+  private static Response page(List<FulfillmentView> rows, int pageSize) {
+    if (rows.size() <= pageSize) {
+      return Response.ok(rows).build();
+    }
+    List<FulfillmentView> page = rows.subList(0, pageSize);
+    return Response.ok(page).header(NEXT_CURSOR_HEADER, encodeCursor(page.get(pageSize - 1).id)).build();
+  }
+
+  // opaque to clients, as the warehouse listing's cursor
+  static String encodeCursor(Long id) {
+    return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  static Long decodeCursor(String cursor) {
+    if (cursor == null || cursor.isBlank()) {
+      return null;
+    }
+    try {
+      return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+    } catch (IllegalArgumentException e) {
+      throw new WebApplicationException("Invalid cursor", 400);
+    }
+  }
+
   @Provider
   public static class ErrorMapper implements ExceptionMapper<Exception> {
 
@@ -84,4 +191,19 @@ public class FulfillmentResource {
     public Long storeId;
     public String warehouseBusinessUnitCode;
   }
+
+  public static class ArchiveRequest {
+    // active warehouse taking over the fulfillments; omitted to remove them
+    public String repointTo;
+  }
+
+  public static class BatchRequest {
+    public List<FulfillmentRequest> fulfillments;
+  }
+
+  public static class BatchResponse {
+    public long applied;
+    public long rejected;
+    public List<FulfillmentResult> results;
+  }
 }
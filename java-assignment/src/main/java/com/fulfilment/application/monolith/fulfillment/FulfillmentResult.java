@@ -0,0 +1,34 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+public class FulfillmentResult {
+
+  // position of the item in the submitted batch
+  public int index;
+
+  public Long productId;
+
+  public Long storeId;
+
+  public String warehouseBusinessUnitCode;
+
+  // id of the created fulfillment, when applied
+  public Long id;
+
+  // HTTP-style status of this item: 200 applied, 4xx rejected
+  public int status;
+
+  public String error;
+
+  public FulfillmentResult() {}
+
+  public FulfillmentResult(int index, Long productId, Long storeId, String warehouseBusinessUnitCode) {
+    this.index = index;
+    this.productId = productId;
+    this.storeId = storeId;
+    this.warehouseBusinessUnitCode = warehouseBusinessUnitCode;
+  }
+
+  public boolean applied() {
+    return status == 200;
+  }
+}
@@ -0,0 +1,52 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+/**
+ * Everything {@link CreateFulfillmentUseCase} needs to accept or reject a new fulfillment, counted
+ * in memory by {@link FulfillmentConstraintIndex#reserve} or read in one statement by
+ * {@link FulfillmentRepository#verdictFor}.
+ */
+public class FulfillmentVerdict {
+
+  public static final int MAX_WAREHOUSES_PER_PRODUCT_AND_STORE = 2;
+  public static final int MAX_WAREHOUSES_PER_STORE = 3;
+  public static final int MAX_PRODUCTS_PER_WAREHOUSE = 5;
+
+  public final boolean productExists;
+  public final boolean storeExists;
+  // an active (not archived) warehouse with the business unit code exists
+  public final boolean warehouseExists;
+
+  // fulfillments of the product for the store
+  public final long warehousesForProductAndStore;
+  // distinct warehouses fulfilling the store
+  public final long warehousesForStore;
+  // distinct products fulfilled from the warehouse
+  public final long productsForWarehouse;
+
+  public FulfillmentVerdict(
+          boolean productExists,
+          boolean storeExists,
+          boolean warehouseExists,
+          long warehousesForProductAndStore,
+          long warehousesForStore,
+          long productsForWarehouse) {
+    this.productExists = productExists;
+    this.storeExists = storeExists;
+    this.warehouseExists = warehouseExists;
+    this.warehousesForProductAndStore = warehousesForProductAndStore;
+    this.warehousesForStore = warehousesForStore;
+    this.productsForWarehouse = productsForWarehouse;
+  }
+
+  public boolean productAndStoreFull() {
+    return warehousesForProductAndStore >= MAX_WAREHOUSES_PER_PRODUCT_AND_STORE;
+  }
+
+  public boolean storeFull() {
+    return warehousesForStore >= MAX_WAREHOUSES_PER_STORE;
+  }
+
+  public boolean warehouseFull() {
+    return productsForWarehouse >= MAX_PRODUCTS_PER_WAREHOUSE;
+  }
+}
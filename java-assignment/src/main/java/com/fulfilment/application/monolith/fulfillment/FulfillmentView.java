@@ -0,0 +1,22 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+/** A fulfillment row as listed by the paginated queries, selected column by column. */
+public class FulfillmentView {
+
+  public Long id;
+
+  public Long productId;
+
+  public Long storeId;
+
+  public String warehouseBusinessUnitCode;
+
+  public FulfillmentView() {}
+
+  public FulfillmentView(Long id, Long productId, Long storeId, String warehouseBusinessUnitCode) {
+    this.id = id;
+    this.productId = productId;
+    this.storeId = storeId;
+    this.warehouseBusinessUnitCode = warehouseBusinessUnitCode;
+  }
+}
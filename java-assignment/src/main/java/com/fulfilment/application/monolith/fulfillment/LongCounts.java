@@ -0,0 +1,92 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+/**
+ * Multiset of primitive {@code long} values: how often each value was added, with the number of
+ * distinct values available in O(1). Starts tiny because most sets in the fulfillment index hold
+ * a handful of entries. Not thread-safe.
+ */
+final class LongCounts {
+
+  private long[] keys = new long[4];
+  // 0 marks an empty slot
+  private int[] counts = new int[4];
+  private int distinct;
+
+  int distinct() {
+    return distinct;
+  }
+
+  int count(long key) {
+    int mask = keys.length - 1;
+    for (int slot = LongObjectMap.slot(key, mask); counts[slot] != 0; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        return counts[slot];
+      }
+    }
+    return 0;
+  }
+
+  void add(long key) {
+    int mask = keys.length - 1;
+    int slot = LongObjectMap.slot(key, mask);
+    while (counts[slot] != 0) {
+      if (keys[slot] == key) {
+        counts[slot]++;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    counts[slot] = 1;
+    if (++distinct * 2 > keys.length) {
+      resize(keys.length << 1);
+    }
+  }
+
+  /** Removes one occurrence of {@code key}; returns false if it was not present. */
+  boolean remove(long key) {
+    int mask = keys.length - 1;
+    int slot = LongObjectMap.slot(key, mask);
+    while (counts[slot] != 0) {
+      if (keys[slot] == key) {
+        if (--counts[slot] == 0) {
+          distinct--;
+          shiftBack(slot, mask);
+        }
+        return true;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return false;
+  }
+
+  private void shiftBack(int hole, int mask) {
+    for (int slot = (hole + 1) & mask; counts[slot] != 0; slot = (slot + 1) & mask) {
+      int home = LongObjectMap.slot(keys[slot], mask);
+      if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+        keys[hole] = keys[slot];
+        counts[hole] = counts[slot];
+        counts[slot] = 0;
+        hole = slot;
+      }
+    }
+  }
+
+  private void resize(int capacity) {
+    long[] oldKeys = keys;
+    int[] oldCounts = counts;
+    keys = new long[capacity];
+    counts = new int[capacity];
+    int mask = capacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldCounts[i] != 0) {
+        int slot = LongObjectMap.slot(oldKeys[i], mask);
+        while (counts[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        counts[slot] = oldCounts[i];
+      }
+    }
+  }
+}
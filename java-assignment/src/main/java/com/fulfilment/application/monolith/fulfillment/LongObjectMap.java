@@ -0,0 +1,107 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive {@code long} keys to non-null values, so lookups neither
+ * box the key nor chase entry objects. Not thread-safe.
+ */
+final class LongObjectMap<V> {
+
+  private long[] keys;
+  private Object[] values;
+  private int size;
+
+  LongObjectMap(int expectedSize) {
+    int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+    keys = new long[capacity];
+    values = new Object[capacity];
+  }
+
+  int size() {
+    return size;
+  }
+
+  @SuppressWarnings("unchecked")
+  V get(long key) {
+    int mask = keys.length - 1;
+    for (int slot = slot(key, mask); values[slot] != null; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        return (V) values[slot];
+      }
+    }
+    return null;
+  }
+
+  void put(long key, V value) {
+    int mask = keys.length - 1;
+    int slot = slot(key, mask);
+    while (values[slot] != null) {
+      if (keys[slot] == key) {
+        values[slot] = value;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    if (++size * 2 > keys.length) {
+      resize(keys.length << 1);
+    }
+  }
+
+  void remove(long key) {
+    int mask = keys.length - 1;
+    int slot = slot(key, mask);
+    while (values[slot] != null) {
+      if (keys[slot] == key) {
+        values[slot] = null;
+        size--;
+        shiftBack(slot, mask);
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  void clear() {
+    Arrays.fill(values, null);
+    size = 0;
+  }
+
+  // backward-shift deletion keeps every probe chain free of holes without tombstones
+  private void shiftBack(int hole, int mask) {
+    for (int slot = (hole + 1) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+      int home = slot(keys[slot], mask);
+      if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+        keys[hole] = keys[slot];
+        values[hole] = values[slot];
+        values[slot] = null;
+        hole = slot;
+      }
+    }
+  }
+
+  private void resize(int capacity) {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    keys = new long[capacity];
+    values = new Object[capacity];
+    size = 0;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldValues[i] != null) {
+        put(oldKeys[i], uncheckedCast(oldValues[i]));
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private V uncheckedCast(Object value) {
+    return (V) value;
+  }
+
+  static int slot(long key, int mask) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+}
@@ -0,0 +1,21 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+public class WarehouseArchiveResult {
+
+  public String businessUnitCode;
+
+  // warehouse that took over the fulfillments, null when they were removed
+  public String repointTo;
+
+  public long moved;
+
+  // removed outright, or dropped because the target already fulfilled the same product and store
+  public long removed;
+
+  public WarehouseArchiveResult() {}
+
+  public WarehouseArchiveResult(String businessUnitCode, String repointTo) {
+    this.businessUnitCode = businessUnitCode;
+    this.repointTo = repointTo;
+  }
+}
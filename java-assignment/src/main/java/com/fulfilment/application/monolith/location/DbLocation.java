@@ -0,0 +1,39 @@
+package com.fulfilment.application.monolith.location;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
+@Entity
+@Table(name = "location")
+@Cacheable
+// lookups go by identification, so the natural id -> id resolution is cached as well
+@NaturalIdCache
+public class DbLocation {
+
+  @Id @GeneratedValue public Long id;
+
+  @NaturalId
+  @Column(length = 40, nullable = false)
+  public String identification;
+
+  public int maxNumberOfWarehouses;
+
+  public int maxCapacity;
+
+  public Double latitude;
+
+  public Double longitude;
+
+  public DbLocation() {}
+
+  public Location toLocation() {
+    return new Location(identification, maxNumberOfWarehouses, maxCapacity, latitude, longitude);
+  }
+}
@@ -0,0 +1,151 @@
+package com.fulfilment.application.monolith.location;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
+import io.quarkus.arc.properties.IfBuildProperty;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Location catalog loaded from a CSV file ({@code identification,maxNumberOfWarehouses,maxCapacity}
+ * per line, optionally followed by {@code ,latitude,longitude}; {@code #} comments and a header
+ * allowed).
+ *
+ * <p>The file is indexed into an immutable hash map that is swapped in one volatile write whenever
+ * the file's modification time or size changes, so lookups never see a half-loaded catalog and
+ * never allocate. A file that fails to parse is logged and the previous catalog stays in place.
+ */
+@ApplicationScoped
+@IfBuildProperty(name = "location.catalog.enabled", stringValue = "true")
+public class FileLocationCatalog implements LocationResolver {
+
+  private static final Logger LOGGER = Logger.getLogger(FileLocationCatalog.class.getName());
+
+  @ConfigProperty(name = "location.catalog.path")
+  String path;
+
+  @ConfigProperty(name = "location.catalog.refresh", defaultValue = "30s")
+  Duration refresh;
+
+  private volatile Catalog catalog = new Catalog(Map.of(), null, -1);
+  private ScheduledExecutorService reloader;
+
+  @PostConstruct
+  void init() {
+    // a catalog that cannot be read at startup is a deployment error, not an empty catalog
+    try {
+      reloadIfChanged();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot load location catalog " + path, e);
+    }
+    reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "location-catalog-reload");
+      thread.setDaemon(true);
+      return thread;
+    });
+    reloader.scheduleWithFixedDelay(
+            this::reloadQuietly, refresh.toMillis(), refresh.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (reloader != null) {
+      reloader.shutdownNow();
+    }
+  }
+
+  @Override
+  public Location resolveByIdentifier(String identifier) {
+    return identifier == null ? null : catalog.index.get(identifier);
+  }
+
+  @Override
+  public boolean readOnly() {
+    return true;
+  }
+
+  public int size() {
+    return catalog.index.size();
+  }
+
+  /** Re-reads the file if it changed since the last load; returns whether a new catalog was swapped in. */
+  boolean reloadIfChanged() throws IOException {
+    Path file = Path.of(path);
+    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    Catalog current = catalog;
+    if (attributes.lastModifiedTime().equals(current.modified) && attributes.size() == current.size) {
+      return false;
+    }
+
+    Map<String, Location> index;
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      index = parse(reader);
+    }
+    catalog = new Catalog(index, attributes.lastModifiedTime(), attributes.size());
+    LOGGER.infof("Loaded %d locations from %s", index.size(), file);
+    return true;
+  }
+
+  private void reloadQuietly() {
+    try {
+      reloadIfChanged();
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warnf(e, "Keeping %d locations, reloading %s failed", catalog.index.size(), path);
+    }
+  }
+
+  static Map<String, Location> parse(BufferedReader reader) throws IOException {
+    Map<String, Location> index = new HashMap<>();
+    String line;
+    int lineNumber = 0;
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      line = line.strip();
+      if (line.isEmpty() || line.startsWith("#") || (lineNumber == 1 && line.startsWith("identification"))) {
+        continue;
+      }
+
+      String[] fields = line.split(",");
+      if ((fields.length != 3 && fields.length != 5) || fields[0].isBlank()) {
+        throw new IllegalArgumentException(
+                "Line " + lineNumber + ": expected identification,maxNumberOfWarehouses,maxCapacity[,latitude,longitude]");
+      }
+      String identification = fields[0].strip();
+      Location location;
+      try {
+        location = new Location(
+                identification,
+                Integer.parseInt(fields[1].strip()),
+                Integer.parseInt(fields[2].strip()),
+                fields.length == 5 ? Double.valueOf(fields[3].strip()) : null,
+                fields.length == 5 ? Double.valueOf(fields[4].strip()) : null);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage(), e);
+      }
+      if (index.putIfAbsent(identification, location) != null) {
+        throw new IllegalArgumentException("Line " + lineNumber + ": duplicate location " + identification);
+      }
+    }
+    return Map.copyOf(index);
+  }
+
+  private record Catalog(Map<String, Location> index, FileTime modified, long size) {
+  }
+}
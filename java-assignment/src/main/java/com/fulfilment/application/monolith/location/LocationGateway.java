@@ -2,32 +2,81 @@ package com.fulfilment.application.monolith.location;
 
 import com.fulfilment.application.monolith.warehouses.domain.models.Location;
 import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
+import io.quarkus.arc.DefaultBean;
 import jakarta.enterprise.context.ApplicationScoped;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+/**
+ * Resolves locations from the {@code location} table through a bounded LRU cache, so warehouse
+ * admission does not touch the database for a location it has seen within the TTL. Writers call
+ * {@link #invalidate(String)} once their change is committed; a load that raced an invalidation
+ * is not kept. Unknown identifiers are not cached. Replaced by {@link FileLocationCatalog} when
+ * the file catalog is enabled.
+ */
 @ApplicationScoped
+@DefaultBean
 public class LocationGateway implements LocationResolver {
 
-  private static final List<Location> locations = new ArrayList<>();
-
-  static {
-    locations.add(new Location("ZWOLLE-001", 1, 40));
-    locations.add(new Location("ZWOLLE-002", 2, 50));
-    locations.add(new Location("AMSTERDAM-001", 5, 100));
-    locations.add(new Location("AMSTERDAM-002", 3, 75));
-    locations.add(new Location("TILBURG-001", 1, 40));
-    locations.add(new Location("HELMOND-001", 1, 45));
-    locations.add(new Location("EINDHOVEN-001", 2, 70));
-    locations.add(new Location("VETSBY-001", 1, 90));
-  }
+  @ConfigProperty(name = "location.cache.max-size", defaultValue = "1000")
+  int maxSize;
+
+  @ConfigProperty(name = "location.cache.ttl", defaultValue = "5m")
+  Duration ttl;
+
+  @Inject LocationRepository locationRepository;
+
+  // guarded by itself, together with generation
+  private final Map<String, Entry> cache = new LinkedHashMap<>(64, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+      return size() > maxSize;
+    }
+  };
+  private long generation;
 
   @Override
   public Location resolveByIdentifier(String identifier) {
-    return locations.stream()
-            .filter(location -> identifier != null && identifier.equals(location.identification))
-            .findFirst()
-            .orElse(new Location("", 0, 0));
+    if (identifier == null || identifier.isBlank()) {
+      return null;
+    }
+
+    long now = System.nanoTime();
+    long loadGeneration;
+    synchronized (cache) {
+      Entry entry = cache.get(identifier);
+      if (entry != null && now - entry.loadedAt < ttl.toNanos()) {
+        return entry.location;
+      }
+      loadGeneration = generation;
+    }
+
+    DbLocation row = locationRepository.findByIdentification(identifier);
+    if (row == null) {
+      return null;
+    }
+    Location location = row.toLocation();
+    if (maxSize > 0) {
+      synchronized (cache) {
+        if (generation == loadGeneration) {
+          cache.put(identifier, new Entry(location, now));
+        }
+      }
+    }
+    return location;
+  }
+
+  @Override
+  public void invalidate(String identification) {
+    synchronized (cache) {
+      generation++;
+      cache.remove(identification);
+    }
+  }
+
+  private record Entry(Location location, long loadedAt) {
   }
 }
@@ -0,0 +1,12 @@
+package com.fulfilment.application.monolith.location;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+
+@ApplicationScoped
+public class LocationRepository implements PanacheRepository<DbLocation> {
+
+  public DbLocation findByIdentification(String identification) {
+    return getSession().bySimpleNaturalId(DbLocation.class).load(identification);
+  }
+}
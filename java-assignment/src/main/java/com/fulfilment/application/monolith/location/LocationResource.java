@@ -0,0 +1,141 @@
+package com.fulfilment.application.monolith.location;
+
+import com.fulfilment.application.monolith.common.TransactionHooks;
+import com.fulfilment.application.monolith.warehouses.adapters.database.LocationHierarchy;
+import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
+import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseSpatialIndex;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationSummary;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
+import io.quarkus.panache.common.Sort;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.PUT;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import java.util.List;
+
+@Path("location")
+@ApplicationScoped
+@Produces("application/json")
+@Consumes("application/json")
+public class LocationResource {
+
+  @Inject LocationRepository locationRepository;
+  @Inject LocationResolver locationResolver;
+  @Inject WarehouseRepository warehouseRepository;
+  @Inject LocationHierarchy locationHierarchy;
+  @Inject WarehouseSpatialIndex warehouseSpatialIndex;
+  @Inject TransactionHooks transactionHooks;
+
+  @GET
+  public List<DbLocation> get() {
+    return locationRepository.listAll(Sort.by("identification"));
+  }
+
+  @GET
+  @Path("{identification}")
+  public DbLocation getSingle(String identification) {
+    return findOrThrow(identification);
+  }
+
+  /** Active warehouses, capacity and stock rolled up over every location whose identifier starts with {@code prefix}. */
+  @GET
+  @Path("{prefix}/summary")
+  public LocationSummary summary(String prefix) {
+    return locationHierarchy.summary(prefix);
+  }
+
+  @POST
+  @Transactional
+  public Response create(DbLocation location) {
+    checkWritable();
+    if (location.id != null) {
+      throw new WebApplicationException("Id was invalidly set on request.", 422);
+    }
+    if (location.identification == null || location.identification.isBlank()) {
+      throw new WebApplicationException("Location identification was not set on request.", 422);
+    }
+    validate(location);
+    if (locationRepository.findByIdentification(location.identification) != null) {
+      throw new WebApplicationException("Location " + location.identification + " already exists.", 409);
+    }
+
+    locationRepository.persist(location);
+    invalidateAfterCommit(location.identification);
+    return Response.ok(location).status(201).build();
+  }
+
+  @PUT
+  @Path("{identification}")
+  @Transactional
+  public DbLocation update(String identification, DbLocation location) {
+    checkWritable();
+    validate(location);
+
+    DbLocation entity = findOrThrow(identification);
+    entity.maxNumberOfWarehouses = location.maxNumberOfWarehouses;
+    entity.maxCapacity = location.maxCapacity;
+    entity.latitude = location.latitude;
+    entity.longitude = location.longitude;
+
+    invalidateAfterCommit(identification);
+    return entity;
+  }
+
+  @DELETE
+  @Path("{identification}")
+  @Transactional
+  public Response delete(String identification) {
+    checkWritable();
+    DbLocation entity = findOrThrow(identification);
+    if (warehouseRepository.occupancyOf(identification, null).activeWarehouses > 0) {
+      throw new WebApplicationException("Location " + identification + " still has active warehouses.", 409);
+    }
+
+    locationRepository.delete(entity);
+    invalidateAfterCommit(identification);
+    return Response.status(204).build();
+  }
+
+  // with the file catalog enabled the table is not what warehouses resolve against
+  private void checkWritable() {
+    if (locationResolver.readOnly()) {
+      throw new WebApplicationException("Locations come from the location catalog file and are read-only.", 405);
+    }
+  }
+
+  private DbLocation findOrThrow(String identification) {
+    DbLocation entity = locationRepository.findByIdentification(identification);
+    if (entity == null) {
+      throw new WebApplicationException("Location " + identification + " does not exist.", 404);
+    }
+    return entity;
+  }
+
+  private void invalidateAfterCommit(String identification) {
+    transactionHooks.afterCommit(() -> {
+      locationResolver.invalidate(identification);
+      warehouseSpatialIndex.invalidate();
+    });
+  }
+
+  private static void validate(DbLocation location) {
+    if (location.maxNumberOfWarehouses <= 0) {
+      throw new WebApplicationException("maxNumberOfWarehouses must be greater than zero.", 422);
+    }
+    if (location.maxCapacity <= 0) {
+      throw new WebApplicationException("maxCapacity must be greater than zero.", 422);
+    }
+    if ((location.latitude == null) != (location.longitude == null)
+            || (location.latitude != null && (Math.abs(location.latitude) > 90 || Math.abs(location.longitude) > 180))) {
+      throw new WebApplicationException("latitude and longitude must be set together and within range.", 422);
+    }
+  }
+}
@@ -2,6 +2,78 @@ package com.fulfilment.application.monolith.products;
 
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.Query;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @ApplicationScoped
-public class ProductRepository implements PanacheRepository<Product> {}
+public class ProductRepository implements PanacheRepository<Product> {
+
+  @Inject ProductStockBuffer stockBuffer;
+
+  /**
+   * Adds {@code delta} to the stock of a product in one conditional statement, so concurrent
+   * adjustments never overwrite each other. Returns the new stock, or null when the product does not
+   * exist or its stock would drop below zero or overflow an int.
+   */
+  public Integer adjustStock(long id, int delta) {
+    // pending entity changes must reach the database before the statement runs
+    flush();
+    var entityManager = getEntityManager();
+    List<?> rows = entityManager
+        .createNativeQuery(
+            "UPDATE product SET stock = stock + :delta"
+                + " WHERE id = :id AND CAST(stock AS bigint) + :delta BETWEEN 0 AND 2147483647 RETURNING stock")
+        .setParameter("delta", delta)
+        .setParameter("id", id)
+        .getResultList();
+    if (rows.isEmpty()) {
+      return null;
+    }
+    // the statement bypasses the session, so drop what it and the second-level cache still hold
+    entityManager.detach(entityManager.getReference(Product.class, id));
+    entityManager.getEntityManagerFactory().getCache().evict(Product.class, id);
+    return ((Number) rows.get(0)).intValue();
+  }
+
+  /**
+   * Sets the stock of many products in one statement; returns the ids that exist and were updated.
+   * Buffered counters of those products are reset once the transaction commits.
+   */
+  public Set<Long> setStock(Map<Long, Integer> stockById) {
+    flush();
+    var entityManager = getEntityManager();
+    StringBuilder values = new StringBuilder();
+    for (int i = 0; i < stockById.size(); i++) {
+      values.append(i == 0 ? "" : ", ").append("(CAST(:id").append(i).append(" AS bigint), CAST(:stock")
+          .append(i).append(" AS integer))");
+    }
+    Query update = entityManager.createNativeQuery(
+        "UPDATE product p SET stock = d.stock FROM (VALUES " + values + ") AS d(id, stock)"
+            + " WHERE p.id = d.id RETURNING p.id");
+    // the join decides the order UPDATE locks rows in, so take the locks first, in ascending id order:
+    // concurrent bulk updates then wait on each other instead of deadlocking
+    entityManager
+        .createNativeQuery("SELECT id FROM product WHERE id IN (:ids) ORDER BY id FOR UPDATE")
+        .setParameter("ids", stockById.keySet())
+        .getResultList();
+    int i = 0;
+    for (var entry : stockById.entrySet()) {
+      update.setParameter("id" + i, entry.getKey());
+      update.setParameter("stock" + i, entry.getValue());
+      i++;
+    }
+    Set<Long> updated = new HashSet<>();
+    for (Object row : update.getResultList()) {
+      Long id = ((Number) row).longValue();
+      updated.add(id);
+      entityManager.detach(entityManager.getReference(Product.class, id));
+      entityManager.getEntityManagerFactory().getCache().evict(Product.class, id);
+    }
+    stockBuffer.resetAfterCommit(updated);
+    return updated;
+  }
+}
@@ -2,6 +2,9 @@ package com.fulfilment.application.monolith.products;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fulfilment.application.monolith.common.NdjsonExporter;
+import com.fulfilment.application.monolith.common.StockAdjustment;
+import com.fulfilment.application.monolith.common.StockLevel;
 import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -15,6 +18,7 @@ import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import jakarta.ws.rs.ext.ExceptionMapper;
 import jakarta.ws.rs.ext.Provider;
 import java.util.List;
@@ -27,12 +31,25 @@ import org.jboss.logging.Logger;
 public class ProductResource {
 
   @Inject ProductRepository productRepository;
+  @Inject NdjsonExporter ndjsonExporter;
+  @Inject ProductStockBuffer stockBuffer;
 
   private static final Logger LOGGER = Logger.getLogger(ProductResource.class.getName());
 
   @GET
   public List<Product> get() {
-    return productRepository.listAll(Sort.by("name"));
+    List<Product> products = productRepository.listAll(Sort.by("name"));
+    if (stockBuffer.enabled()) {
+      stockBuffer.merge(products);
+    }
+    return products;
+  }
+
+  @GET
+  @Path("export")
+  @Produces(NdjsonExporter.MEDIA_TYPE)
+  public StreamingOutput export() {
+    return ndjsonExporter.export("FROM Product p ORDER BY p.id", Product.class);
   }
 
   @GET
@@ -42,6 +59,9 @@ public class ProductResource {
     if (entity == null) {
       throw new WebApplicationException("Product with id of " + id + " does not exist.", 404);
     }
+    if (stockBuffer.enabled()) {
+      stockBuffer.merge(List.of(entity));
+    }
     return entity;
   }
 
@@ -76,10 +96,40 @@ public class ProductResource {
     entity.stock = product.stock;
 
     productRepository.persist(entity);
+    stockBuffer.resetAfterCommit(List.of(id));
 
     return entity;
   }
 
+  @POST
+  @Path("{id}/stock")
+  @Transactional
+  public StockLevel adjustStock(Long id, StockAdjustment adjustment) {
+    if (adjustment == null || adjustment.delta == null) {
+      throw new WebApplicationException("Stock delta was not set on request.", 422);
+    }
+
+    Integer stock = stockBuffer.enabled()
+        ? stockBuffer.adjust(id, adjustment.delta)
+        : productRepository.adjustStock(id, adjustment.delta);
+
+    if (stock == null) {
+      Product product = productRepository.findById(id);
+      if (product == null) {
+        throw new WebApplicationException("Product with id of " + id + " does not exist.", 404);
+      }
+      Integer buffered = stockBuffer.enabled() ? stockBuffer.stock(id) : null;
+      long current = buffered != null ? buffered : product.stock;
+      if (current + adjustment.delta > Integer.MAX_VALUE) {
+        throw new WebApplicationException(
+                "Stock of product with id of " + id + " would exceed " + Integer.MAX_VALUE + ".", 422);
+      }
+      throw new WebApplicationException("Product with id of " + id + " does not have enough stock.", 409);
+    }
+
+    return new StockLevel(id, stock);
+  }
+
   @DELETE
   @Path("{id}")
   @Transactional
@@ -89,6 +139,7 @@ public class ProductResource {
       throw new WebApplicationException("Product with id of " + id + " does not exist.", 404);
     }
     productRepository.delete(entity);
+    stockBuffer.resetAfterCommit(List.of(id));
     return Response.status(204).build();
   }
 
@@ -0,0 +1,507 @@
+package com.fulfilment.application.monolith.products;
+
+import com.fulfilment.application.monolith.common.SegmentJournal;
+import com.fulfilment.application.monolith.common.TransactionHooks;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Write-behind product stock: adjustments are added to an in-memory {@link LongAdder} per product
+ * and a background thread writes the coalesced net delta of every product to the database every
+ * {@code flush-interval}, in batched updates, so a hot product costs one row update per interval
+ * instead of one per adjustment.
+ *
+ * <p>Every adjustment is appended to a local {@link SegmentJournal} before it is acknowledged and is
+ * on disk after the journal's next group commit, which bounds what a crash can lose to one
+ * {@code journal.fsync-interval}. A flush seals the journal segment its deltas came from and records
+ * it in {@link ProductStockCheckpoint} in the same transaction as the updates; at startup the
+ * segments after the checkpoint are replayed into the counters, so nothing is applied twice. The
+ * journal is opened above the checkpoint, so an emptied journal directory cannot restart at a
+ * segment the checkpoint already covers.
+ *
+ * <p>No adjustment takes a monitor. Increments are checked against the merged stock, the persisted
+ * value plus everything pending, and added to a striped {@link LongAdder}. Decrements reserve their
+ * delta with a compare-and-set against the merged stock, so the stock an acknowledged adjustment
+ * leaves is never below zero and the flush has nothing to refuse. Stock written around the buffer,
+ * by a full product update, an ingested snapshot or a delete, resets the product's counter once it
+ * commits: the deltas still pending are discarded, with a reset record in the journal so replay
+ * discards them too, and the persisted value is read again before the next use. A delta already in
+ * flight when such a write commits can still be out of range for the new stock; the flush records it
+ * as a {@link ProductStockRefusal} instead of writing it.
+ */
+@ApplicationScoped
+public class ProductStockBuffer {
+
+  private static final Logger LOGGER = Logger.getLogger(ProductStockBuffer.class.getName());
+  // journal record that discards the deltas of a product appended before it
+  private static final String RESET = "reset";
+
+  @ConfigProperty(name = "product.stock.write-behind.enabled", defaultValue = "false")
+  boolean enabled;
+
+  @ConfigProperty(name = "product.stock.write-behind.flush-interval", defaultValue = "200ms")
+  Duration flushInterval;
+
+  @ConfigProperty(name = "product.stock.write-behind.batch-size", defaultValue = "500")
+  int batchSize;
+
+  // required once the buffer is used: the journal must outlive the process, so no temp default
+  @ConfigProperty(name = "product.stock.write-behind.journal.directory")
+  Optional<String> journalDirectory;
+
+  @ConfigProperty(name = "product.stock.write-behind.journal.fsync-interval", defaultValue = "50ms")
+  Duration journalFsyncInterval;
+
+  @ConfigProperty(name = "product.stock.write-behind.journal.segment-bytes", defaultValue = "16777216")
+  int journalSegmentBytes;
+
+  @Inject EntityManager entityManager;
+  @Inject TransactionHooks transactionHooks;
+
+  private final ConcurrentHashMap<Long, Counter> counters = new ConcurrentHashMap<>();
+  // adjustments share the read lock, a flush takes the write lock to seal the journal segment and
+  // drain the counters at the same point
+  private final ReadWriteLock drain = new ReentrantReadWriteLock();
+  private final Object flushing = new Object();
+  // opened at startup, before the first adjustment
+  private volatile SegmentJournal journal;
+  private ScheduledExecutorService flusher;
+
+  void onStart(@Observes StartupEvent event) throws IOException {
+    if (!enabled && journalDirectory.isEmpty()) {
+      return;
+    }
+    // deltas must all be replayed, so the journal is never compacted
+    journal = new SegmentJournal(
+            Path.of(journalKey()), journalSegmentBytes, journalFsyncInterval, 0, checkpoint() + 1);
+    if (!enabled) {
+      return;
+    }
+    recover();
+    flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "product-stock-flush");
+      thread.setDaemon(true);
+      return thread;
+    });
+    flusher.scheduleWithFixedDelay(
+            this::flushQuietly, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  void shutdown() throws IOException {
+    if (flusher != null) {
+      flusher.shutdownNow();
+      flushQuietly();
+    }
+    if (journal != null) {
+      journal.close();
+    }
+  }
+
+  public boolean enabled() {
+    return enabled;
+  }
+
+  /**
+   * Adds {@code delta} to the stock of a product. Returns the merged stock right after the
+   * adjustment, or null when the product does not exist or its stock would drop below zero.
+   */
+  public Integer adjust(long id, int delta) {
+    drain.readLock().lock();
+    try {
+      Counter counter = counters.computeIfAbsent(id, key -> new Counter());
+      if (!load(id, counter)) {
+        return null;
+      }
+      if (delta >= 0) {
+        // increments cannot take stock below zero; only concurrent increments near the top of the
+        // range can overflow together, and the flush records what still does
+        if (stock(counter) + delta > Integer.MAX_VALUE) {
+          return null;
+        }
+        append(id, delta);
+        counter.added.add(delta);
+        return (int) stock(counter);
+      }
+      return reserve(id, counter, delta);
+    } finally {
+      drain.readLock().unlock();
+    }
+  }
+
+  /**
+   * Takes {@code delta} off the merged stock with a compare-and-set, retried while other decrements
+   * race for the same product. Increments only ever raise the merged stock, so a reservation that
+   * wins leaves it at zero or above whatever they do.
+   */
+  private Integer reserve(long id, Counter counter, int delta) {
+    while (true) {
+      long taken = counter.taken.get();
+      long stock = counter.base + counter.added.sum() + taken + delta;
+      if (stock < 0) {
+        return null;
+      }
+      if (counter.taken.compareAndSet(taken, taken + delta)) {
+        try {
+          append(id, delta);
+        } catch (RuntimeException e) {
+          counter.taken.addAndGet(-delta);
+          throw e;
+        }
+        return (int) stock;
+      }
+    }
+  }
+
+  /** The persisted stock of a product merged with its pending delta, or null if nothing is buffered for it. */
+  public Integer stock(long id) {
+    drain.readLock().lock();
+    try {
+      Counter counter = counters.get(id);
+      return counter == null || !load(id, counter) ? null : (int) stock(counter);
+    } finally {
+      drain.readLock().unlock();
+    }
+  }
+
+  /**
+   * Resets the counters of {@code ids} once the current transaction commits, for writes that set or
+   * delete their stock without going through the buffer: those writes win over deltas not yet flushed.
+   */
+  public void resetAfterCommit(Collection<Long> ids) {
+    if (!enabled && counters.isEmpty()) {
+      return;
+    }
+    transactionHooks.afterCommit(() -> reset(ids));
+  }
+
+  private void reset(Collection<Long> ids) {
+    // not while a flush is in flight: a stale counter must never hold an in-flight delta, or reading
+    // it again could not tell whether the database has that delta yet
+    synchronized (flushing) {
+      drain.writeLock().lock();
+      try {
+        for (Long id : ids) {
+          Counter counter = counters.get(id);
+          if (counter == null) {
+            continue;
+          }
+          if (counter.pending() != 0) {
+            append(id, RESET);
+            counter.added.reset();
+            counter.taken.set(0);
+          }
+          counter.loaded = false;
+        }
+      } finally {
+        drain.writeLock().unlock();
+      }
+    }
+  }
+
+  /** Sets the merged stock on products read from the database. */
+  public void merge(List<Product> products) {
+    for (Product product : products) {
+      Integer stock = stock(product.id);
+      if (stock != null) {
+        product.stock = stock;
+      }
+    }
+  }
+
+  /** Writes the net delta of every product with pending adjustments; returns how many products were written. */
+  public int flush() {
+    synchronized (flushing) {
+      return flushDrained();
+    }
+  }
+
+  private int flushDrained() {
+    // stale counters are read again first, so every pending delta below belongs to a loaded counter
+    counters.forEach((id, counter) -> load(id, counter));
+
+    long sealed;
+    List<Drained> drained = new ArrayList<>();
+    drain.writeLock().lock();
+    try {
+      for (var entry : counters.entrySet()) {
+        Counter counter = entry.getValue();
+        long added = counter.added.sum();
+        long taken = counter.taken.get();
+        if (added + taken != 0) {
+          counter.added.add(-added);
+          counter.taken.addAndGet(-taken);
+          counter.base += added + taken;
+          drained.add(new Drained(entry.getKey(), counter, added + taken));
+        }
+      }
+      if (drained.isEmpty()) {
+        return 0;
+      }
+      sealed = journal().seal();
+    } catch (IOException e) {
+      restore(drained);
+      throw new UncheckedIOException(e);
+    } finally {
+      drain.writeLock().unlock();
+    }
+
+    Map<Long, Integer> written;
+    try {
+      written = QuarkusTransaction.requiringNew().call(() -> write(drained, sealed));
+    } catch (RuntimeException e) {
+      // back into the counters; the segment stays and is covered by the next checkpoint
+      restore(drained);
+      throw e;
+    }
+
+    drain.writeLock().lock();
+    try {
+      for (Drained entry : drained) {
+        Integer stock = written.get(entry.id);
+        if (stock != null) {
+          entry.counter.base = stock;
+        } else {
+          // the product was deleted, its delta goes with it
+          counters.remove(entry.id, entry.counter);
+        }
+        entityManager.getEntityManagerFactory().getCache().evict(Product.class, entry.id);
+      }
+    } finally {
+      drain.writeLock().unlock();
+    }
+    try {
+      journal().deleteThrough(sealed);
+    } catch (IOException e) {
+      LOGGER.warnf(e, "Deleting product stock journal segments through %d failed", sealed);
+    }
+    return drained.size();
+  }
+
+  /**
+   * Rebuilds the counters from the journal segments after the last checkpoint, as after a restart:
+   * in-memory state is dropped and the deltas not yet written are pending again.
+   */
+  void recover() {
+    synchronized (flushing) {
+      replayJournal();
+    }
+  }
+
+  private void replayJournal() {
+    drain.writeLock().lock();
+    try {
+      counters.clear();
+      Map<Long, Long> deltas = new HashMap<>();
+      long checkpoint = checkpoint();
+      journal().replay(checkpoint, (id, record) -> {
+        if (RESET.equals(record)) {
+          deltas.remove(id);
+        } else {
+          deltas.merge(id, Long.parseLong(record), Long::sum);
+        }
+      });
+      journal().deleteThrough(checkpoint);
+
+      for (var entry : deltas.entrySet()) {
+        Counter counter = new Counter();
+        if (load(entry.getKey(), counter)) {
+          counter.added.add(entry.getValue());
+          counters.put(entry.getKey(), counter);
+        }
+      }
+      LOGGER.infof("Recovered pending stock deltas of %d products from %s", counters.size(), journalKey());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot replay product stock journal " + journalKey(), e);
+    } finally {
+      drain.writeLock().unlock();
+    }
+  }
+
+  private Map<Long, Integer> write(List<Drained> drained, long sealed) {
+    Map<Long, Integer> written = new HashMap<>();
+    for (int from = 0; from < drained.size(); from += batchSize) {
+      List<Drained> batch = drained.subList(from, Math.min(drained.size(), from + batchSize));
+      StringBuilder values = new StringBuilder();
+      for (int i = 0; i < batch.size(); i++) {
+        values.append(i == 0 ? "" : ", ").append("(CAST(:id").append(i).append(" AS bigint), CAST(:delta")
+                .append(i).append(" AS bigint))");
+      }
+      Query update = entityManager.createNativeQuery(
+              "UPDATE product p SET stock = p.stock + d.delta FROM (VALUES " + values + ") AS d(id, delta)"
+                      + " WHERE p.id = d.id AND p.stock + d.delta BETWEEN 0 AND 2147483647 RETURNING p.id, p.stock");
+      for (int i = 0; i < batch.size(); i++) {
+        update.setParameter("id" + i, batch.get(i).id);
+        update.setParameter("delta" + i, batch.get(i).delta);
+      }
+      for (Object row : update.getResultList()) {
+        Object[] columns = (Object[]) row;
+        written.put(((Number) columns[0]).longValue(), ((Number) columns[1]).intValue());
+      }
+      refuseOutOfRange(batch, written);
+    }
+    entityManager.createNativeQuery(
+                    "INSERT INTO product_stock_checkpoint (journal, segment) VALUES (:journal, :segment)"
+                            + " ON CONFLICT (journal) DO UPDATE SET segment = EXCLUDED.segment")
+            .setParameter("journal", journalKey())
+            .setParameter("segment", sealed)
+            .executeUpdate();
+    return written;
+  }
+
+  /**
+   * Stock written around the buffer while a delta was in flight can leave that delta out of range
+   * for the new stock. It is recorded as a {@link ProductStockRefusal} in the flush transaction
+   * rather than retried forever, and the product keeps its persisted stock.
+   */
+  private void refuseOutOfRange(List<Drained> batch, Map<Long, Integer> written) {
+    Map<Long, Long> refused = new HashMap<>();
+    for (Drained entry : batch) {
+      if (!written.containsKey(entry.id)) {
+        refused.put(entry.id, entry.delta);
+      }
+    }
+    if (refused.isEmpty()) {
+      return;
+    }
+    List<Object[]> rows = entityManager
+            .createQuery("SELECT p.id, p.stock FROM Product p WHERE p.id IN :ids", Object[].class)
+            .setParameter("ids", refused.keySet())
+            .getResultList();
+    LocalDateTime now = LocalDateTime.now();
+    for (Object[] row : rows) {
+      long id = (Long) row[0];
+      int stock = (Integer) row[1];
+      LOGGER.errorf("Refusing buffered stock delta %s of product %s, it would take stock %s out of range",
+              refused.get(id), id, stock);
+      entityManager.persist(new ProductStockRefusal(id, refused.get(id), stock, now));
+      written.put(id, stock);
+    }
+  }
+
+  private void restore(List<Drained> drained) {
+    drain.writeLock().lock();
+    try {
+      for (Drained entry : drained) {
+        entry.counter.base -= entry.delta;
+        entry.counter.added.add(entry.delta);
+      }
+    } finally {
+      drain.writeLock().unlock();
+    }
+  }
+
+  /** Reads the persisted stock of a product the first time it is adjusted; false if it does not exist. */
+  private boolean load(long id, Counter counter) {
+    if (counter.loaded) {
+      return true;
+    }
+    synchronized (counter) {
+      if (!counter.loaded) {
+        List<Integer> stock = QuarkusTransaction.joiningExisting().call(() -> entityManager
+                .createQuery("SELECT p.stock FROM Product p WHERE p.id = :id", Integer.class)
+                .setParameter("id", id)
+                .getResultList());
+        if (stock.isEmpty()) {
+          counters.remove(id, counter);
+          return false;
+        }
+        counter.base = stock.get(0);
+        counter.loaded = true;
+      }
+      return true;
+    }
+  }
+
+  private void append(long id, int delta) {
+    append(id, Integer.toString(delta));
+  }
+
+  private void append(long id, String record) {
+    try {
+      journal().append(id, record);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Appending to product stock journal " + journalKey() + " failed", e);
+    }
+  }
+
+  private SegmentJournal journal() {
+    SegmentJournal opened = journal;
+    if (opened == null) {
+      throw new IllegalStateException("Product stock journal " + journalKey() + " is not open");
+    }
+    return opened;
+  }
+
+  /** The last journal segment whose deltas are in the database, 0 before the first flush. */
+  private long checkpoint() {
+    return QuarkusTransaction.requiringNew().call(() -> {
+      ProductStockCheckpoint row = entityManager.find(ProductStockCheckpoint.class, journalKey());
+      return row == null ? 0L : row.segment;
+    });
+  }
+
+  private String journalKey() {
+    String directory = journalDirectory.orElseThrow(() -> new IllegalStateException(
+            "product.stock.write-behind.journal.directory must be set to use write-behind product stock"));
+    return Path.of(directory).toAbsolutePath().normalize().toString();
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      LOGGER.warn("Writing buffered product stock failed, retrying on the next flush", e);
+    }
+  }
+
+  // callers hold the drain read lock, so base and the pending delta belong to the same drain
+  private static long stock(Counter counter) {
+    return counter.base + counter.pending();
+  }
+
+  private static final class Counter {
+    // increments, striped across cells
+    final LongAdder added = new LongAdder();
+    // decrements, reserved by compare-and-set in reserve()
+    final AtomicLong taken = new AtomicLong();
+    volatile boolean loaded;
+    // persisted stock plus the delta of the flush in flight; written under the drain write lock or
+    // by load() before the counter is loaded
+    volatile long base;
+
+    long pending() {
+      return added.sum() + taken.get();
+    }
+  }
+
+  private record Drained(long id, Counter counter, long delta) {
+  }
+}
@@ -0,0 +1,23 @@
+package com.fulfilment.application.monolith.products;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * The newest journal segment whose stock deltas {@link ProductStockBuffer} has written to the
+ * product table. Updated in the same transaction as the deltas, so a restart replays exactly the
+ * segments after it.
+ */
+@Entity
+@Table(name = "product_stock_checkpoint")
+public class ProductStockCheckpoint {
+
+  // absolute journal directory, one row per instance journal
+  @Id
+  @Column(length = 500)
+  public String journal;
+
+  public long segment;
+}
@@ -0,0 +1,46 @@
+package com.fulfilment.application.monolith.products;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * A buffered stock delta that {@link ProductStockBuffer} could not write because it would have
+ * taken the persisted stock out of range, typically after stock was set around the buffer while the
+ * delta was in flight. Recorded in the flush transaction instead of the update, for an operator to
+ * reconcile.
+ */
+@Entity
+@Table(name = "product_stock_refusal")
+public class ProductStockRefusal {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_stock_refusal_seq")
+  @SequenceGenerator(name = "product_stock_refusal_seq", sequenceName = "product_stock_refusal_seq")
+  public Long id;
+
+  @Column(nullable = false)
+  public Long productId;
+
+  public long delta;
+
+  // persisted stock the delta was refused against
+  public int stock;
+
+  @Column(nullable = false)
+  public LocalDateTime refusedAt;
+
+  public ProductStockRefusal() {}
+
+  public ProductStockRefusal(Long productId, long delta, int stock, LocalDateTime refusedAt) {
+    this.productId = productId;
+    this.delta = delta;
+    this.stock = stock;
+    this.refusedAt = refusedAt;
+  }
+}
@@ -0,0 +1,28 @@
+package com.fulfilment.application.monolith.stock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Outcome of one stock ingestion stream, returned once the stream has been read to the end. */
+public class StockIngestReport {
+
+  static final int MAX_ERRORS = 100;
+
+  public long lines;
+  public long applied;
+  // lines whose store or product does not exist
+  public long notFound;
+  // lines that are not a valid snapshot
+  public long rejected;
+  // lines of batches the database refused
+  public long failed;
+  public long batches;
+  // the first MAX_ERRORS problems, by line number
+  public List<String> errors = new ArrayList<>();
+
+  void error(String message) {
+    if (errors.size() < MAX_ERRORS) {
+      errors.add(message);
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package com.fulfilment.application.monolith.stock;
+
+import com.fulfilment.application.monolith.common.NdjsonExporter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import java.io.IOException;
+import java.io.InputStream;
+
+@Path("stock")
+@ApplicationScoped
+@Produces("application/json")
+public class StockIngestResource {
+
+  @Inject StockIngester stockIngester;
+
+  // the body is read while it arrives; each batch commits in its own transaction
+  @POST
+  @Path("ingest")
+  @Consumes(NdjsonExporter.MEDIA_TYPE)
+  public StockIngestReport ingest(InputStream body) throws IOException {
+    return stockIngester.ingest(body);
+  }
+}
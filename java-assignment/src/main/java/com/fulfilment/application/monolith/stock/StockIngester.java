@@ -0,0 +1,163 @@
+package com.fulfilment.application.monolith.stock;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fulfilment.application.monolith.products.ProductRepository;
+import com.fulfilment.application.monolith.stores.Store;
+import com.fulfilment.application.monolith.stores.StoreOutbox;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Applies a stream of {@link StockSnapshot}s, one JSON object per line, in transactions of
+ * {@code batch-size} lines.
+ *
+ * <p>Lines are parsed as they arrive and the next batch is only read once the previous one has
+ * committed, so a slow database stalls the reader, and through it the request body, instead of
+ * buffering the stream: memory is bounded by one batch. Within a batch the last snapshot of a store
+ * or product wins. Invalid lines and unknown ids are counted and skipped; a batch the database
+ * refuses is rolled back, counted as failed and the stream goes on.
+ */
+@ApplicationScoped
+public class StockIngester {
+
+  private static final Logger LOGGER = Logger.getLogger(StockIngester.class.getName());
+
+  @ConfigProperty(name = "stock.ingest.batch-size", defaultValue = "500")
+  int batchSize;
+
+  @Inject ObjectMapper objectMapper;
+  @Inject ProductRepository productRepository;
+  @Inject StoreOutbox storeOutbox;
+
+  public StockIngestReport ingest(InputStream input) throws IOException {
+    StockIngestReport report = new StockIngestReport();
+    Batch batch = new Batch();
+    BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    String line;
+    while ((line = reader.readLine()) != null) {
+      long lineNumber = ++report.lines;
+      if (line.isBlank()) {
+        continue;
+      }
+      StockSnapshot snapshot;
+      try {
+        snapshot = objectMapper.readValue(line, StockSnapshot.class);
+      } catch (JsonProcessingException e) {
+        reject(report, lineNumber, "not a stock snapshot: " + e.getOriginalMessage());
+        continue;
+      }
+      String problem = validate(snapshot);
+      if (problem != null) {
+        reject(report, lineNumber, problem);
+        continue;
+      }
+
+      Map<Long, Entry> entries = "store".equals(snapshot.type) ? batch.stores : batch.products;
+      Entry entry = entries.computeIfAbsent(snapshot.id, id -> new Entry());
+      entry.stock = snapshot.stock;
+      entry.lines++;
+      entry.lastLine = lineNumber;
+      if (++batch.lines == batchSize) {
+        apply(batch, report);
+        batch = new Batch();
+      }
+    }
+    if (batch.lines > 0) {
+      apply(batch, report);
+    }
+
+    LOGGER.infof("Ingested %d stock lines in %d batches: %d applied, %d not found, %d rejected, %d failed",
+            report.lines, report.batches, report.applied, report.notFound, report.rejected, report.failed);
+    return report;
+  }
+
+  private void apply(Batch batch, StockIngestReport report) {
+    report.batches++;
+    Set<Long> updatedStores = new HashSet<>();
+    Set<Long> updatedProducts = new HashSet<>();
+    try {
+      QuarkusTransaction.requiringNew().run(() -> {
+        if (!batch.stores.isEmpty()) {
+          List<Store> stores = Store.setStock(stock(batch.stores));
+          storeOutbox.storesUpdated(stores);
+          stores.forEach(store -> updatedStores.add(store.id));
+        }
+        if (!batch.products.isEmpty()) {
+          updatedProducts.addAll(productRepository.setStock(stock(batch.products)));
+        }
+      });
+    } catch (RuntimeException e) {
+      LOGGER.warnf(e, "Stock ingestion batch %d failed", report.batches);
+      report.failed += batch.lines;
+      report.error("batch " + report.batches + " failed: " + e.getMessage());
+      return;
+    }
+    count(batch.stores, updatedStores, "Store", report);
+    count(batch.products, updatedProducts, "Product", report);
+  }
+
+  private static void count(Map<Long, Entry> entries, Set<Long> updated, String kind, StockIngestReport report) {
+    for (var entry : entries.entrySet()) {
+      if (updated.contains(entry.getKey())) {
+        report.applied += entry.getValue().lines;
+      } else {
+        report.notFound += entry.getValue().lines;
+        report.error("line " + entry.getValue().lastLine + ": " + kind + " with id of " + entry.getKey()
+                + " does not exist.");
+      }
+    }
+  }
+
+  private static void reject(StockIngestReport report, long lineNumber, String problem) {
+    report.rejected++;
+    report.error("line " + lineNumber + ": " + problem);
+  }
+
+  private static String validate(StockSnapshot snapshot) {
+    if (snapshot == null) {
+      return "not a stock snapshot";
+    }
+    if (!"store".equals(snapshot.type) && !"product".equals(snapshot.type)) {
+      return "type must be store or product";
+    }
+    if (snapshot.id == null) {
+      return "id was not set";
+    }
+    if (snapshot.stock == null || snapshot.stock < 0) {
+      return "stock must be zero or more";
+    }
+    return null;
+  }
+
+  private static Map<Long, Integer> stock(Map<Long, Entry> entries) {
+    Map<Long, Integer> stock = new LinkedHashMap<>();
+    entries.forEach((id, entry) -> stock.put(id, entry.stock));
+    return stock;
+  }
+
+  private static final class Batch {
+    final Map<Long, Entry> stores = new LinkedHashMap<>();
+    final Map<Long, Entry> products = new LinkedHashMap<>();
+    int lines;
+  }
+
+  private static final class Entry {
+    int stock;
+    int lines;
+    long lastLine;
+  }
+}
@@ -0,0 +1,9 @@
+package com.fulfilment.application.monolith.stock;
+
+/** One line of a stock ingestion stream: {@code {"type":"store"|"product","id":1,"stock":10}}. */
+public class StockSnapshot {
+
+  public String type;
+  public Long id;
+  public Integer stock;
+}
@@ -1,20 +1,103 @@
 package com.fulfilment.application.monolith.stores;
 
+import com.fulfilment.application.monolith.common.SegmentJournal;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
 
 @ApplicationScoped
 public class LegacyStoreManagerGateway {
 
+  private static final Logger LOGGER = Logger.getLogger(LegacyStoreManagerGateway.class.getName());
+
+  // temp-file (one file per change, the original emulation) or journal (see SegmentJournal)
+  @ConfigProperty(name = "legacy.store.sink", defaultValue = "temp-file")
+  String sink;
+
+  // required with the journal sink; undelivered events live there, so no temp default
+  @ConfigProperty(name = "legacy.store.journal.directory")
+  Optional<String> journalDirectory;
+
+  @ConfigProperty(name = "legacy.store.journal.segment-bytes", defaultValue = "67108864")
+  int journalSegmentBytes;
+
+  @ConfigProperty(name = "legacy.store.journal.fsync-interval", defaultValue = "100ms")
+  Duration journalFsyncInterval;
+
+  @ConfigProperty(name = "legacy.store.journal.max-segments", defaultValue = "8")
+  int journalMaxSegments;
+
+  private SegmentJournal journal;
+
+  @PostConstruct
+  void init() {
+    if ("journal".equals(sink)) {
+      String directory = journalDirectory.orElseThrow(() -> new IllegalStateException(
+              "legacy.store.journal.directory must be set when legacy.store.sink is journal"));
+      try {
+        journal = new SegmentJournal(
+                Path.of(directory), journalSegmentBytes, journalFsyncInterval, journalMaxSegments);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Cannot open legacy store journal " + directory, e);
+      }
+    }
+  }
+
+  @PreDestroy
+  void shutdown() throws IOException {
+    if (journal != null) {
+      journal.close();
+    }
+  }
+
   public void createStoreOnLegacySystem(Store store) {
     // just to emulate as this would send this to a legacy system, let's write a temp file with the
-    writeToFile(store);
+    send("Store created.", store);
   }
 
   public void updateStoreOnLegacySystem(Store store) {
     // just to emulate as this would send this to a legacy system, let's write a temp file with the
-    writeToFile(store);
+    send("Store updated.", store);
+  }
+
+  /**
+   * Makes every event sent so far durable. The journal only syncs on its fsync interval, so the
+   * outbox relay calls this before it commits the removal of the events it delivered.
+   */
+  public void flush() {
+    if (journal == null) {
+      return;
+    }
+    try {
+      journal.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Syncing the legacy journal failed", e);
+    }
+  }
+
+  private void send(String event, Store store) {
+    if (journal == null) {
+      writeToFile(store);
+      return;
+    }
+    try {
+      journal.append(store.id == null ? 0 : store.id, content(event, store));
+    } catch (IOException e) {
+      // the outbox relay retries the event
+      throw new UncheckedIOException("Appending store " + store.id + " to the legacy journal failed", e);
+    }
+  }
+
+  private static String content(String event, Store store) {
+    return event + " [ name =" + store.name + " ] [ items on stock =" + store.quantityProductsInStock + "]";
   }
 
   private void writeToFile(Store store) {
@@ -24,28 +107,23 @@ public class LegacyStoreManagerGateway {
 
       tempFile = Files.createTempFile(store.name, ".txt");
 
-      System.out.println("Temporary file created at: " + tempFile.toString());
+      LOGGER.debugf("Temporary file created at: %s", tempFile);
 
       // Step 2: Write data to the temporary file
-      String content =
-          "Store created. [ name ="
-              + store.name
-              + " ] [ items on stock ="
-              + store.quantityProductsInStock
-              + "]";
+      String content = content("Store created.", store);
       Files.write(tempFile, content.getBytes());
-      System.out.println("Data written to temporary file.");
+      LOGGER.debug("Data written to temporary file.");
 
       // Step 3: Optionally, read the data back to verify
       String readContent = new String(Files.readAllBytes(tempFile));
-      System.out.println("Data read from temporary file: " + readContent);
+      LOGGER.debugf("Data read from temporary file: %s", readContent);
 
       // Step 4: Delete the temporary file when done
       Files.delete(tempFile);
-      System.out.println("Temporary file deleted.");
+      LOGGER.debug("Temporary file deleted.");
 
     } catch (Exception e) {
-      e.printStackTrace();
+      LOGGER.warn("Writing store " + store.id + " to a temporary file failed", e);
     }
   }
 }
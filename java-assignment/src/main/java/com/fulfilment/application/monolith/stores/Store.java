@@ -4,6 +4,10 @@ import io.quarkus.hibernate.orm.panache.PanacheEntity;
 import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Query;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 @Entity
 @Cacheable
@@ -14,9 +18,81 @@ public class Store extends PanacheEntity {
 
   public int quantityProductsInStock;
 
+  // WGS84 coordinates in degrees, used to find the nearest warehouses
+  public Double latitude;
+
+  public Double longitude;
+
   public Store() {}
 
   public Store(String name) {
     this.name = name;
   }
+
+  /**
+   * Adds {@code delta} to the stock of a store in one conditional statement, so concurrent
+   * adjustments never overwrite each other. Returns a detached copy of the updated store, or null
+   * when the store does not exist or its stock would drop below zero or overflow an int.
+   */
+  public static Store adjustStock(long id, int delta) {
+    // pending entity changes must reach the database before the statement runs
+    flush();
+    List<?> rows = getEntityManager()
+        .createNativeQuery(
+            "UPDATE store SET quantityProductsInStock = quantityProductsInStock + :delta"
+                + " WHERE id = :id AND CAST(quantityProductsInStock AS bigint) + :delta BETWEEN 0 AND 2147483647"
+                + " RETURNING id, name, quantityProductsInStock, latitude, longitude")
+        .setParameter("delta", delta)
+        .setParameter("id", id)
+        .getResultList();
+    return rows.isEmpty() ? null : updated((Object[]) rows.get(0));
+  }
+
+  /**
+   * Sets the stock of many stores in one statement. Returns a detached copy of every updated store;
+   * ids without a store are left out.
+   */
+  public static List<Store> setStock(Map<Long, Integer> stockById) {
+    flush();
+    StringBuilder values = new StringBuilder();
+    for (int i = 0; i < stockById.size(); i++) {
+      values.append(i == 0 ? "" : ", ").append("(CAST(:id").append(i).append(" AS bigint), CAST(:stock")
+          .append(i).append(" AS integer))");
+    }
+    Query update = getEntityManager().createNativeQuery(
+        "UPDATE store s SET quantityProductsInStock = d.stock FROM (VALUES " + values + ") AS d(id, stock)"
+            + " WHERE s.id = d.id RETURNING s.id, s.name, s.quantityProductsInStock, s.latitude, s.longitude");
+    // the join decides the order UPDATE locks rows in, so take the locks first, in ascending id order:
+    // concurrent bulk updates then wait on each other instead of deadlocking
+    getEntityManager()
+        .createNativeQuery("SELECT id FROM store WHERE id IN (:ids) ORDER BY id FOR UPDATE")
+        .setParameter("ids", stockById.keySet())
+        .getResultList();
+    int i = 0;
+    for (var entry : stockById.entrySet()) {
+      update.setParameter("id" + i, entry.getKey());
+      update.setParameter("stock" + i, entry.getValue());
+      i++;
+    }
+    List<Store> stores = new ArrayList<>(stockById.size());
+    for (Object row : update.getResultList()) {
+      stores.add(updated((Object[]) row));
+    }
+    return stores;
+  }
+
+  // native updates bypass the session, so drop what it and the second-level cache still hold
+  private static Store updated(Object[] columns) {
+    Long id = ((Number) columns[0]).longValue();
+    var entityManager = getEntityManager();
+    entityManager.detach(entityManager.getReference(Store.class, id));
+    entityManager.getEntityManagerFactory().getCache().evict(Store.class, id);
+
+    Store store = new Store((String) columns[1]);
+    store.id = id;
+    store.quantityProductsInStock = ((Number) columns[2]).intValue();
+    store.latitude = columns[3] == null ? null : ((Number) columns[3]).doubleValue();
+    store.longitude = columns[4] == null ? null : ((Number) columns[4]).doubleValue();
+    return store;
+  }
 }
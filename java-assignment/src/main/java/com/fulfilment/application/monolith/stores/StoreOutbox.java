@@ -0,0 +1,80 @@
+package com.fulfilment.application.monolith.stores;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records store changes for the legacy store manager in the transaction that makes them.
+ *
+ * <p>Updates are coalesced: when the newest pending event of a store is an update the relay is not
+ * delivering right now, the new snapshot overwrites it instead of queueing behind it. A store under
+ * constant stock traffic therefore has at most one update waiting, however fast it changes.
+ */
+@ApplicationScoped
+public class StoreOutbox {
+
+  @Inject EntityManager entityManager;
+
+  public void storeCreated(Store store) {
+    enqueue(StoreOutboxEvent.Type.CREATE, store);
+  }
+
+  public void storeUpdated(Store store) {
+    storesUpdated(List.of(store));
+  }
+
+  /** {@link #storeUpdated} for many stores, with one statement for the coalesced ones. */
+  public void storesUpdated(Collection<Store> stores) {
+    if (stores.isEmpty()) {
+      return;
+    }
+    Map<Long, Store> byId = new LinkedHashMap<>();
+    stores.forEach(store -> byId.put(store.id, store));
+    List<Store> latest = List.copyOf(byId.values());
+
+    // the newest event of each store, when it is an update; rows the relay has claimed are skipped
+    StringBuilder values = new StringBuilder();
+    for (int i = 0; i < latest.size(); i++) {
+      values.append(i == 0 ? "" : ", ").append("(CAST(:id").append(i).append(" AS bigint), CAST(:name")
+          .append(i).append(" AS varchar), CAST(:quantity").append(i).append(" AS integer))");
+    }
+    entityManager.flush();
+    Query coalesce = entityManager.createNativeQuery(
+        "UPDATE store_outbox o SET name = s.name, quantityProductsInStock = s.quantity"
+            + " FROM (VALUES " + values + ") AS s(storeId, name, quantity)"
+            + " WHERE o.storeId = s.storeId AND o.id IN (SELECT n.id FROM store_outbox n"
+            + " WHERE n.type = 'UPDATE' AND n.id IN (SELECT MAX(m.id) FROM store_outbox m"
+            + " WHERE m.storeId IN (:ids) GROUP BY m.storeId) FOR UPDATE SKIP LOCKED)"
+            + " RETURNING o.storeId");
+    for (int i = 0; i < latest.size(); i++) {
+      coalesce.setParameter("id" + i, latest.get(i).id);
+      coalesce.setParameter("name" + i, latest.get(i).name);
+      coalesce.setParameter("quantity" + i, latest.get(i).quantityProductsInStock);
+    }
+    coalesce.setParameter("ids", byId.keySet());
+
+    Set<Long> coalesced = new HashSet<>();
+    for (Object storeId : coalesce.getResultList()) {
+      coalesced.add(((Number) storeId).longValue());
+    }
+    for (Store store : latest) {
+      if (!coalesced.contains(store.id)) {
+        enqueue(StoreOutboxEvent.Type.UPDATE, store);
+      }
+    }
+  }
+
+  private void enqueue(StoreOutboxEvent.Type type, Store store) {
+    // a new store already has its id once persisted, the insert itself may still be pending
+    entityManager.persist(new StoreOutboxEvent(type, store, LocalDateTime.now()));
+  }
+}
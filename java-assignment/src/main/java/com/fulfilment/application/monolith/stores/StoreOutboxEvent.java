@@ -0,0 +1,73 @@
+package com.fulfilment.application.monolith.stores;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * A store change still to be sent to the legacy store manager. Written in the transaction that
+ * changes the store and deleted by {@link StoreOutboxRelay} once delivered.
+ */
+@Entity
+// indexes are versioned in src/main/resources/db/ddl
+@Table(name = "store_outbox")
+public class StoreOutboxEvent {
+
+  public enum Type {
+    CREATE,
+    UPDATE
+  }
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "store_outbox_seq")
+  @SequenceGenerator(name = "store_outbox_seq", sequenceName = "store_outbox_seq", allocationSize = 50)
+  public Long id;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 10)
+  public Type type;
+
+  @Column(nullable = false)
+  public Long storeId;
+
+  // the store as it was committed, so a later change does not leak into an earlier event
+  @Column(length = 40)
+  public String name;
+
+  public int quantityProductsInStock;
+
+  public int attempts;
+
+  @Column(nullable = false)
+  public LocalDateTime nextAttemptAt;
+
+  public LocalDateTime createdAt;
+
+  @Column(length = 500)
+  public String lastError;
+
+  public StoreOutboxEvent() {}
+
+  public StoreOutboxEvent(Type type, Store store, LocalDateTime now) {
+    this.type = type;
+    this.storeId = store.id;
+    this.name = store.name;
+    this.quantityProductsInStock = store.quantityProductsInStock;
+    this.createdAt = now;
+    this.nextAttemptAt = now;
+  }
+
+  Store toStore() {
+    Store store = new Store(name);
+    store.id = storeId;
+    store.quantityProductsInStock = quantityProductsInStock;
+    return store;
+  }
+}
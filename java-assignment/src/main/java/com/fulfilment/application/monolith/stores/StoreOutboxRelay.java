@@ -0,0 +1,169 @@
+package com.fulfilment.application.monolith.stores;
+
+import com.fulfilment.application.monolith.common.CircuitBreaker;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Delivers {@link StoreOutboxEvent}s to the {@link LegacyStoreManagerGateway} from a background
+ * thread, so store requests no longer wait for legacy I/O and a crash after commit loses nothing.
+ *
+ * <p>Each drain claims a batch of due events with {@code FOR UPDATE SKIP LOCKED}, so several
+ * instances can relay side by side. An event is only due once every earlier event of the same store
+ * has been delivered, which keeps a create ahead of its updates. A failed delivery is retried with
+ * exponential backoff, and consecutive failures open a {@link CircuitBreaker} that pauses the relay
+ * instead of hammering the legacy system. Delivered events are only removed after
+ * {@link LegacyStoreManagerGateway#flush()}, so a journal that has not synced yet cannot lose them.
+ */
+@ApplicationScoped
+public class StoreOutboxRelay {
+
+  private static final Logger LOGGER = Logger.getLogger(StoreOutboxRelay.class.getName());
+
+  @ConfigProperty(name = "store.outbox.relay.enabled", defaultValue = "true")
+  boolean enabled;
+
+  @ConfigProperty(name = "store.outbox.poll-interval", defaultValue = "1s")
+  Duration pollInterval;
+
+  @ConfigProperty(name = "store.outbox.batch-size", defaultValue = "100")
+  int batchSize;
+
+  @ConfigProperty(name = "store.outbox.initial-backoff", defaultValue = "1s")
+  Duration initialBackoff;
+
+  @ConfigProperty(name = "store.outbox.max-backoff", defaultValue = "5m")
+  Duration maxBackoff;
+
+  @ConfigProperty(name = "store.outbox.breaker.failure-threshold", defaultValue = "5")
+  int failureThreshold;
+
+  @ConfigProperty(name = "store.outbox.breaker.open-duration", defaultValue = "30s")
+  Duration openDuration;
+
+  @Inject EntityManager entityManager;
+  @Inject LegacyStoreManagerGateway legacyStoreManagerGateway;
+
+  private CircuitBreaker breaker;
+  private ScheduledExecutorService relay;
+
+  @PostConstruct
+  void init() {
+    breaker = new CircuitBreaker(failureThreshold, openDuration);
+  }
+
+  void onStart(@Observes StartupEvent event) {
+    if (!enabled) {
+      return;
+    }
+    relay = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "store-outbox-relay");
+      thread.setDaemon(true);
+      return thread;
+    });
+    relay.scheduleWithFixedDelay(
+            this::drainQuietly, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (relay != null) {
+      relay.shutdownNow();
+    }
+  }
+
+  /** Delivers one batch of events due at {@code now}; returns how many were delivered. */
+  public int drain(LocalDateTime now) {
+    if (!breaker.allowRequest()) {
+      return 0;
+    }
+    return QuarkusTransaction.requiringNew().call(() -> {
+      @SuppressWarnings("unchecked")
+      List<StoreOutboxEvent> due = entityManager.createNativeQuery(
+              "SELECT o.* FROM store_outbox o WHERE o.nextAttemptAt <= :now"
+                  + " AND NOT EXISTS (SELECT 1 FROM store_outbox e WHERE e.storeId = o.storeId AND e.id < o.id)"
+                  + " ORDER BY o.id LIMIT :limit FOR UPDATE SKIP LOCKED",
+              StoreOutboxEvent.class)
+          .setParameter("now", now)
+          .setParameter("limit", batchSize)
+          .getResultList();
+
+      int delivered = 0;
+      for (int i = 0; i < due.size(); i++) {
+        StoreOutboxEvent event = due.get(i);
+        // the trial call of a half-open breaker is the first event only
+        if (i > 0 && !breaker.allowRequest()) {
+          break;
+        }
+        try {
+          deliver(event);
+        } catch (RuntimeException e) {
+          breaker.onFailure();
+          event.attempts++;
+          event.nextAttemptAt = now.plus(backoff(event.attempts));
+          event.lastError = truncate(String.valueOf(e.getMessage()));
+          LOGGER.warnf("Legacy sync of store %d failed (attempt %d), retrying at %s: %s",
+                  event.storeId, event.attempts, event.nextAttemptAt, e.getMessage());
+          continue;
+        }
+        breaker.onSuccess();
+        entityManager.remove(event);
+        delivered++;
+      }
+      if (delivered > 0) {
+        // the events leave the outbox only once the legacy side has them durably; if the sync
+        // fails the whole batch rolls back and is delivered again
+        legacyStoreManagerGateway.flush();
+      }
+      return delivered;
+    });
+  }
+
+  CircuitBreaker.State breakerState() {
+    return breaker.state();
+  }
+
+  Duration backoff(int attempts) {
+    // 1, 2, 4, ... times the initial backoff, capped; the shift is bounded so it cannot overflow
+    Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+    return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+  }
+
+  private void deliver(StoreOutboxEvent event) {
+    Store store = event.toStore();
+    switch (event.type) {
+      case CREATE -> legacyStoreManagerGateway.createStoreOnLegacySystem(store);
+      case UPDATE -> legacyStoreManagerGateway.updateStoreOnLegacySystem(store);
+    }
+  }
+
+  private void drainQuietly() {
+    try {
+      // a full batch means there may be more waiting
+      int delivered;
+      do {
+        delivered = drain(LocalDateTime.now());
+      } while (delivered == batchSize);
+    } catch (RuntimeException e) {
+      LOGGER.warn("Draining the store outbox failed", e);
+    }
+  }
+
+  private static String truncate(String message) {
+    return message.length() <= 500 ? message : message.substring(0, 500);
+  }
+}
@@ -2,23 +2,28 @@ package com.fulfilment.application.monolith.stores;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fulfilment.application.monolith.common.NdjsonExporter;
+import com.fulfilment.application.monolith.common.StockAdjustment;
+import com.fulfilment.application.monolith.common.StockLevel;
+import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseSpatialIndex;
+import com.fulfilment.application.monolith.warehouses.domain.models.NearestWarehouse;
 import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
-import jakarta.transaction.Status;
-import jakarta.transaction.Synchronization;
-import jakarta.transaction.TransactionSynchronizationRegistry;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.PATCH;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import jakarta.ws.rs.ext.ExceptionMapper;
 import jakarta.ws.rs.ext.Provider;
 import java.util.List;
@@ -30,9 +35,11 @@ import org.jboss.logging.Logger;
 @Consumes("application/json")
 public class StoreResource {
 
-  @Inject LegacyStoreManagerGateway legacyStoreManagerGateway;
-  @Inject
-  TransactionSynchronizationRegistry txRegistry;
+  @Inject StoreOutbox storeOutbox;
+  @Inject NdjsonExporter ndjsonExporter;
+  @Inject WarehouseSpatialIndex warehouseSpatialIndex;
+
+  static final int MAX_NEAREST = 100;
 
   private static final Logger LOGGER = Logger.getLogger(StoreResource.class.getName());
 
@@ -41,6 +48,13 @@ public class StoreResource {
     return Store.listAll(Sort.by("name"));
   }
 
+  @GET
+  @Path("export")
+  @Produces(NdjsonExporter.MEDIA_TYPE)
+  public StreamingOutput export() {
+    return ndjsonExporter.export("FROM Store s ORDER BY s.id", Store.class);
+  }
+
   @GET
   @Path("{id}")
   public Store getSingle(Long id) {
@@ -51,6 +65,25 @@ public class StoreResource {
     return entity;
   }
 
+  @GET
+  @Path("{id}/nearest-warehouses")
+  public List<NearestWarehouse> nearestWarehouses(
+          Long id,
+          @QueryParam("k") @DefaultValue("5") int k,
+          @QueryParam("minFreeCapacity") @DefaultValue("1") int minFreeCapacity) {
+    if (k < 1 || k > MAX_NEAREST) {
+      throw new WebApplicationException("k must be between 1 and " + MAX_NEAREST + ".", 422);
+    }
+    Store entity = Store.findById(id);
+    if (entity == null) {
+      throw new WebApplicationException("Store with id of " + id + " does not exist.", 404);
+    }
+    if (entity.latitude == null || entity.longitude == null) {
+      throw new WebApplicationException("Store with id of " + id + " has no coordinates.", 422);
+    }
+    return warehouseSpatialIndex.nearest(entity.latitude, entity.longitude, k, minFreeCapacity);
+  }
+
   @POST
   @Transactional
   public Response create(Store store) {
@@ -59,10 +92,7 @@ public class StoreResource {
     }
 
     store.persist();
-
-    afterCommit(() ->
-            legacyStoreManagerGateway.createStoreOnLegacySystem(store)
-    );
+    storeOutbox.storeCreated(store);
 
     return Response.ok(store).status(201).build();
   }
@@ -83,10 +113,10 @@ public class StoreResource {
 
     entity.name = updatedStore.name;
     entity.quantityProductsInStock = updatedStore.quantityProductsInStock;
+    entity.latitude = updatedStore.latitude;
+    entity.longitude = updatedStore.longitude;
 
-    afterCommit(() ->
-            legacyStoreManagerGateway.updateStoreOnLegacySystem(entity)
-    );
+    storeOutbox.storeUpdated(entity);
 
     return entity;
   }
@@ -113,13 +143,43 @@ public class StoreResource {
       entity.quantityProductsInStock = updatedStore.quantityProductsInStock;
     }
 
-    afterCommit(() ->
-            legacyStoreManagerGateway.updateStoreOnLegacySystem(entity)
-    );
+    if (updatedStore.latitude != null && updatedStore.longitude != null) {
+      entity.latitude = updatedStore.latitude;
+      entity.longitude = updatedStore.longitude;
+    }
+
+    storeOutbox.storeUpdated(entity);
 
     return entity;
   }
 
+  @POST
+  @Path("{id}/stock")
+  @Transactional
+  public StockLevel adjustStock(Long id, StockAdjustment adjustment) {
+    if (adjustment == null || adjustment.delta == null) {
+      throw new WebApplicationException("Stock delta was not set on request.", 422);
+    }
+
+    Store updated = Store.adjustStock(id, adjustment.delta);
+
+    if (updated == null) {
+      Store store = Store.findById(id);
+      if (store == null) {
+        throw new WebApplicationException("Store with id of " + id + " does not exist.", 404);
+      }
+      if ((long) store.quantityProductsInStock + adjustment.delta > Integer.MAX_VALUE) {
+        throw new WebApplicationException(
+                "Stock of store with id of " + id + " would exceed " + Integer.MAX_VALUE + ".", 422);
+      }
+      throw new WebApplicationException("Store with id of " + id + " does not have enough stock.", 409);
+    }
+
+    storeOutbox.storeUpdated(updated);
+
+    return new StockLevel(id, updated.quantityProductsInStock);
+  }
+
   @DELETE
   @Path("{id}")
   @Transactional
@@ -158,27 +218,4 @@ public class StoreResource {
       return Response.status(code).entity(exceptionJson).build();
     }
   }
-  private void afterCommit(Runnable action) {
-
-    txRegistry.registerInterposedSynchronization(new Synchronization() {
-
-      @Override
-      public void beforeCompletion() {
-      }
-
-      @Override
-      public void afterCompletion(int status) {
-
-        if (status == Status.STATUS_COMMITTED) {
-          try {
-            action.run();
-          } catch (Exception e) {
-            // Handle legacy failure safely
-            LOGGER.error("Legacy sync failed AFTER DB commit", e);
-          }
-        }
-      }
-    });
-  }
-
 }
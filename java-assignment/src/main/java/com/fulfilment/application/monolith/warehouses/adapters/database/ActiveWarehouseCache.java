@@ -0,0 +1,172 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import com.fulfilment.application.monolith.common.TransactionHooks;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Bounded LRU cache of active warehouses by business unit code with a time-to-live, sitting in
+ * front of the {@link WarehouseRepository} lookup.
+ *
+ * <p>Writers call {@link #invalidate(String)}. The entry is dropped right away and again once the
+ * writing transaction completes, and until then that transaction reads the code from the database
+ * so it sees its own changes. A load that raced an invalidation is not stored. Only existing
+ * warehouses are cached, and callers always get their own copy.
+ */
+@ApplicationScoped
+public class ActiveWarehouseCache {
+
+  private static final Object DIRTY_CODES_KEY = ActiveWarehouseCache.class.getName() + ".dirty";
+
+  @ConfigProperty(name = "warehouse.cache.max-size", defaultValue = "1000")
+  int maxSize;
+
+  @ConfigProperty(name = "warehouse.cache.ttl", defaultValue = "5m")
+  Duration ttl;
+
+  @Inject TransactionSynchronizationRegistry txRegistry;
+  @Inject TransactionHooks transactionHooks;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  // guarded by itself, together with generation
+  private final Map<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+      if (size() > maxSize) {
+        evictions.increment();
+        return true;
+      }
+      return false;
+    }
+  };
+  private long generation;
+
+  public Warehouse get(String buCode, Function<String, Warehouse> loader) {
+    if (maxSize <= 0 || buCode == null || dirtyInCurrentTransaction(buCode)) {
+      return loader.apply(buCode);
+    }
+
+    long now = System.nanoTime();
+    long loadGeneration;
+    synchronized (entries) {
+      Entry entry = entries.get(buCode);
+      if (entry != null && now - entry.expiresAt < 0) {
+        hits.increment();
+        return copy(entry.warehouse);
+      }
+      if (entry != null) {
+        entries.remove(buCode);
+        evictions.increment();
+      }
+      loadGeneration = generation;
+    }
+
+    misses.increment();
+    Warehouse loaded = loader.apply(buCode);
+    if (loaded != null && loaded.archivedAt == null) {
+      synchronized (entries) {
+        if (generation == loadGeneration) {
+          entries.put(buCode, new Entry(copy(loaded), now + ttl.toNanos()));
+        }
+      }
+    }
+    return loaded;
+  }
+
+  public void invalidate(String buCode) {
+    evict(buCode);
+
+    if (txRegistry.getTransactionStatus() == Status.STATUS_NO_TRANSACTION) {
+      return;
+    }
+    @SuppressWarnings("unchecked")
+    Set<String> dirty = (Set<String>) txRegistry.getResource(DIRTY_CODES_KEY);
+    if (dirty == null) {
+      dirty = new HashSet<>();
+      txRegistry.putResource(DIRTY_CODES_KEY, dirty);
+    }
+    if (dirty.add(buCode)) {
+      transactionHooks.afterCompletion(() -> evict(buCode));
+    }
+  }
+
+  public void clear() {
+    synchronized (entries) {
+      generation++;
+      entries.clear();
+    }
+  }
+
+  public Stats stats() {
+    int size;
+    synchronized (entries) {
+      size = entries.size();
+    }
+    return new Stats(hits.sum(), misses.sum(), evictions.sum(), size, maxSize);
+  }
+
+  private void evict(String buCode) {
+    synchronized (entries) {
+      generation++;
+      entries.remove(buCode);
+    }
+  }
+
+  private boolean dirtyInCurrentTransaction(String buCode) {
+    if (txRegistry.getTransactionStatus() == Status.STATUS_NO_TRANSACTION) {
+      return false;
+    }
+    Object dirty = txRegistry.getResource(DIRTY_CODES_KEY);
+    return dirty != null && ((Set<?>) dirty).contains(buCode);
+  }
+
+  private static Warehouse copy(Warehouse warehouse) {
+    return new Warehouse(
+            warehouse.stock,
+            warehouse.location,
+            warehouse.createdAt,
+            warehouse.capacity,
+            warehouse.businessUnitCode,
+            warehouse.archivedAt);
+  }
+
+  private static final class Entry {
+    final Warehouse warehouse;
+    final long expiresAt;
+
+    Entry(Warehouse warehouse, long expiresAt) {
+      this.warehouse = warehouse;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  public static class Stats {
+    public final long hits;
+    public final long misses;
+    public final long evictions;
+    public final int size;
+    public final int maxSize;
+
+    public Stats(long hits, long misses, long evictions, int size, int maxSize) {
+      this.hits = hits;
+      this.misses = misses;
+      this.evictions = evictions;
+      this.size = size;
+      this.maxSize = maxSize;
+    }
+  }
+}
@@ -4,16 +4,24 @@ import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
 import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import java.time.LocalDateTime;
 
 @Entity
+// indexes are versioned in src/main/resources/db/ddl
 @Table(name = "warehouse")
 @Cacheable
 public class DbWarehouse {
 
-  @Id @GeneratedValue public Long id;
+  // pooled allocation: one sequence call per 50 ids, so batched inserts are not interleaved
+  // with nextval round trips
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "warehouse_seq")
+  @SequenceGenerator(name = "warehouse_seq", sequenceName = "warehouse_seq", allocationSize = 50)
+  public Long id;
 
   public String businessUnitCode;
 
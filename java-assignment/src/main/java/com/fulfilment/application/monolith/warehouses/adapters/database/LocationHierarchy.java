@@ -0,0 +1,94 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationSummary;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.transaction.Transactional;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Character trie over location identifiers in which every node carries the rolled-up warehouse
+ * count, capacity and stock of all locations below it, so a summary for a prefix such as
+ * {@code AMSTERDAM} is one walk down the prefix instead of a scan of the warehouse table.
+ *
+ * <p>Fed like {@link LocationOccupancyLedger}: warm-loaded at startup, then moved by
+ * {@link WarehouseRepository} once a writing transaction has committed. Writers are serialized and
+ * add their delta to every node on the path; readers do not lock and may see a commit half applied
+ * across the fields of a node.
+ */
+@ApplicationScoped
+public class LocationHierarchy {
+
+  private final Node root = new Node();
+
+  @Transactional
+  void onStart(@Observes StartupEvent event, WarehouseRepository warehouseRepository) {
+    load(warehouseRepository.summaryByLocation());
+  }
+
+  public synchronized void load(Map<String, LocationSummary> summaries) {
+    root.clear();
+    summaries.forEach((location, summary) ->
+            apply(location, summary.activeWarehouses, summary.totalCapacity, summary.totalStock));
+  }
+
+  public synchronized void record(String location, long warehouses, long capacity, long stock) {
+    if (location == null) {
+      return;
+    }
+    apply(location, warehouses, capacity, stock);
+  }
+
+  public LocationSummary summary(String prefix) {
+    Node node = root;
+    for (int i = 0; i < prefix.length() && node != null; i++) {
+      node = node.children.get(prefix.charAt(i));
+    }
+    if (node == null) {
+      return new LocationSummary(prefix, 0, 0, 0, 0);
+    }
+    return new LocationSummary(prefix, node.locations, node.warehouses, node.capacity, node.stock);
+  }
+
+  private void apply(String location, long warehouses, long capacity, long stock) {
+    Node[] path = new Node[location.length() + 1];
+    path[0] = root;
+    for (int i = 0; i < location.length(); i++) {
+      path[i + 1] = path[i].children.computeIfAbsent(location.charAt(i), key -> new Node());
+    }
+
+    // a location counts once it has an active warehouse and stops counting when it has none left
+    Node leaf = path[location.length()];
+    long before = leaf.ownWarehouses;
+    leaf.ownWarehouses += warehouses;
+    long locations = before <= 0 && leaf.ownWarehouses > 0 ? 1 : before > 0 && leaf.ownWarehouses <= 0 ? -1 : 0;
+
+    for (Node node : path) {
+      node.locations += locations;
+      node.warehouses += warehouses;
+      node.capacity += capacity;
+      node.stock += stock;
+    }
+  }
+
+  private static final class Node {
+    final Map<Character, Node> children = new ConcurrentHashMap<>();
+    // only touched by the serialized writers
+    long ownWarehouses;
+    volatile long locations;
+    volatile long warehouses;
+    volatile long capacity;
+    volatile long stock;
+
+    void clear() {
+      children.clear();
+      ownWarehouses = 0;
+      locations = 0;
+      warehouses = 0;
+      capacity = 0;
+      stock = 0;
+    }
+  }
+}
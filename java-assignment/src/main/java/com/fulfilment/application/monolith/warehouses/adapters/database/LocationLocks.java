@@ -0,0 +1,106 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import com.fulfilment.application.monolith.common.TransactionHooks;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import jakarta.ws.rs.WebApplicationException;
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Location-scoped mutual exclusion for admission checks, held until the current transaction
+ * completes.
+ *
+ * <p>Inside one JVM a location maps onto one of a fixed number of stripes, so writers of different
+ * locations rarely wait on each other. Across nodes {@link WarehouseRepository#lockLocation} takes a
+ * transaction-scoped database lock on the same key. Stripes are semaphores rather than reentrant
+ * locks because the transaction may complete on another thread (e.g. the transaction reaper).
+ */
+@ApplicationScoped
+public class LocationLocks {
+
+  private static final Object HELD_STRIPES_KEY = LocationLocks.class.getName() + ".held";
+
+  @ConfigProperty(name = "warehouse.location-locks.stripes", defaultValue = "64")
+  int stripes;
+
+  @ConfigProperty(name = "warehouse.location-locks.timeout", defaultValue = "10s")
+  Duration timeout;
+
+  @Inject TransactionSynchronizationRegistry txRegistry;
+  @Inject TransactionHooks transactionHooks;
+  @Inject WarehouseRepository warehouseRepository;
+
+  private Semaphore[] stripeLocks;
+
+  @PostConstruct
+  void init() {
+    stripeLocks = new Semaphore[stripes];
+    for (int i = 0; i < stripes; i++) {
+      stripeLocks[i] = new Semaphore(1);
+    }
+  }
+
+  public void lock(String location) {
+    lockAll(List.of(location));
+  }
+
+  /**
+   * Locks several locations for the current transaction. Stripes are taken in ascending stripe
+   * index and the database locks in location order, so two transactions locking overlapping or
+   * colliding sets always wait in the same direction and never on each other.
+   */
+  public void lockAll(Collection<String> locations) {
+    if (txRegistry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+      throw new IllegalStateException("Location locks need an active transaction");
+    }
+
+    // location names sort differently from their stripes, so order by stripe
+    TreeMap<Integer, String> byStripe = new TreeMap<>();
+    TreeSet<String> sorted = new TreeSet<>(locations);
+    for (String location : sorted) {
+      byStripe.putIfAbsent(stripeOf(location), location);
+    }
+
+    BitSet held = (BitSet) txRegistry.getResource(HELD_STRIPES_KEY);
+    if (held == null) {
+      held = new BitSet(stripes);
+      txRegistry.putResource(HELD_STRIPES_KEY, held);
+    }
+    for (var entry : byStripe.entrySet()) {
+      int stripe = entry.getKey();
+      if (!held.get(stripe)) {
+        acquire(stripeLocks[stripe], entry.getValue());
+        held.set(stripe);
+        transactionHooks.afterCompletion(stripeLocks[stripe]::release);
+      }
+    }
+
+    sorted.forEach(warehouseRepository::lockLocation);
+  }
+
+  int stripeOf(String location) {
+    return Math.floorMod(location.hashCode(), stripes);
+  }
+
+  private void acquire(Semaphore stripeLock, String location) {
+    try {
+      if (!stripeLock.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+        throw new WebApplicationException("Location " + location + " is busy, retry later", 503);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new WebApplicationException("Interrupted while waiting for location " + location, 503);
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.transaction.Transactional;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory count and capacity of the active warehouses per location, so admission checks do not
+ * have to aggregate the warehouse table on every create or replace.
+ *
+ * <p>Warm-loaded at startup and afterwards only moved by {@link WarehouseRepository} once a
+ * transaction that changed the table has committed. The two counters of a location are read
+ * independently, a reader racing a commit may see one of them already updated.
+ */
+@ApplicationScoped
+public class LocationOccupancyLedger {
+
+  private final ConcurrentHashMap<String, Counters> counters = new ConcurrentHashMap<>();
+
+  @Transactional
+  void onStart(@Observes StartupEvent event, WarehouseRepository warehouseRepository) {
+    load(warehouseRepository.occupancyByLocation());
+  }
+
+  public void load(Map<String, LocationOccupancy> occupancies) {
+    counters.clear();
+    occupancies.forEach((location, occupancy) ->
+            record(location, occupancy.activeWarehouses, occupancy.totalCapacity));
+  }
+
+  public LocationOccupancy occupancyOf(String location) {
+    Counters current = location == null ? null : counters.get(location);
+    if (current == null) {
+      return new LocationOccupancy(0, 0);
+    }
+    return current.snapshot();
+  }
+
+  /** Occupancy of {@code location} as if {@code excluded} (the warehouse being replaced) were gone. */
+  public LocationOccupancy occupancyExcluding(String location, Warehouse excluded) {
+    var occupancy = occupancyOf(location);
+    if (excluded == null || excluded.archivedAt != null || !location.equals(excluded.location)) {
+      return occupancy;
+    }
+    int capacity = excluded.capacity == null ? 0 : excluded.capacity;
+    return new LocationOccupancy(
+            Math.max(0, occupancy.activeWarehouses - 1),
+            Math.max(0, occupancy.totalCapacity - capacity));
+  }
+
+  public void record(String location, long warehouses, long capacity) {
+    if (location == null) {
+      return;
+    }
+    Counters current = counters.computeIfAbsent(location, key -> new Counters());
+    current.warehouses.add(warehouses);
+    current.capacity.add(capacity);
+  }
+
+  public Map<String, LocationOccupancy> snapshot() {
+    Map<String, LocationOccupancy> snapshot = new TreeMap<>();
+    counters.forEach((location, current) -> snapshot.put(location, current.snapshot()));
+    return snapshot;
+  }
+
+  private static final class Counters {
+    final LongAdder warehouses = new LongAdder();
+    final LongAdder capacity = new LongAdder();
+
+    LocationOccupancy snapshot() {
+      return new LocationOccupancy(warehouses.sum(), capacity.sum());
+    }
+  }
+}
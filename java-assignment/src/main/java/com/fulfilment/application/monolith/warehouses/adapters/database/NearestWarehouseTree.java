@@ -0,0 +1,139 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.NearestWarehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Immutable 3-d tree over the locations that have active warehouses.
+ *
+ * <p>Coordinates are projected onto the unit sphere, where the straight-line (chord) distance
+ * grows with the great-circle distance, so plain Euclidean k-d pruning finds the true nearest
+ * sites. The tree is stored implicitly in one array: the median of each range is its root.
+ */
+final class NearestWarehouseTree {
+
+  private static final double EARTH_RADIUS_KM = 6371.0088;
+
+  private final Site[] sites;
+
+  NearestWarehouseTree(List<Warehouse> activeWarehouses, Map<String, Location> locations) {
+    Map<String, List<Warehouse>> byLocation = new LinkedHashMap<>();
+    for (Warehouse warehouse : activeWarehouses) {
+      Location location = locations.get(warehouse.location);
+      if (location != null && location.latitude != null && location.longitude != null) {
+        byLocation.computeIfAbsent(warehouse.location, key -> new ArrayList<>()).add(warehouse);
+      }
+    }
+
+    sites = new Site[byLocation.size()];
+    int i = 0;
+    for (var entry : byLocation.entrySet()) {
+      Location location = locations.get(entry.getKey());
+      sites[i++] = new Site(entry.getKey(), unitVector(location.latitude, location.longitude),
+              entry.getValue().toArray(new Warehouse[0]));
+    }
+    build(0, sites.length, 0);
+  }
+
+  int size() {
+    return sites.length;
+  }
+
+  /** Up to {@code k} warehouses with at least {@code minFreeCapacity} free, closest first. */
+  List<NearestWarehouse> nearest(double latitude, double longitude, int k, int minFreeCapacity) {
+    double[] query = unitVector(latitude, longitude);
+    // farthest candidate on top, so it is the one replaced
+    PriorityQueue<Candidate> best = new PriorityQueue<>(k + 1, Comparator.comparingDouble(Candidate::chordSquared).reversed());
+    search(0, sites.length, 0, query, k, minFreeCapacity, best);
+
+    Candidate[] ordered = best.toArray(new Candidate[0]);
+    Arrays.sort(ordered, Comparator.comparingDouble(Candidate::chordSquared));
+    List<NearestWarehouse> result = new ArrayList<>(ordered.length);
+    for (Candidate candidate : ordered) {
+      double chord = Math.sqrt(candidate.chordSquared);
+      double distanceKm = 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, chord / 2));
+      result.add(new NearestWarehouse(candidate.warehouse.businessUnitCode, candidate.warehouse.location,
+              distanceKm, freeCapacity(candidate.warehouse)));
+    }
+    return result;
+  }
+
+  private void build(int from, int to, int axis) {
+    if (to - from <= 1) {
+      return;
+    }
+    Arrays.sort(sites, from, to, Comparator.comparingDouble(site -> site.point[axis]));
+    int median = (from + to) >>> 1;
+    build(from, median, (axis + 1) % 3);
+    build(median + 1, to, (axis + 1) % 3);
+  }
+
+  private void search(int from, int to, int axis, double[] query, int k, int minFreeCapacity,
+          PriorityQueue<Candidate> best) {
+    if (from >= to) {
+      return;
+    }
+    int median = (from + to) >>> 1;
+    Site site = sites[median];
+
+    double chordSquared = distanceSquared(site.point, query);
+    for (Warehouse warehouse : site.warehouses) {
+      if (freeCapacity(warehouse) < minFreeCapacity) {
+        continue;
+      }
+      if (best.size() < k) {
+        best.add(new Candidate(warehouse, chordSquared));
+      } else if (chordSquared < best.peek().chordSquared) {
+        best.poll();
+        best.add(new Candidate(warehouse, chordSquared));
+      }
+    }
+
+    double offset = query[axis] - site.point[axis];
+    int nextAxis = (axis + 1) % 3;
+    if (offset < 0) {
+      search(from, median, nextAxis, query, k, minFreeCapacity, best);
+      if (best.size() < k || offset * offset < best.peek().chordSquared) {
+        search(median + 1, to, nextAxis, query, k, minFreeCapacity, best);
+      }
+    } else {
+      search(median + 1, to, nextAxis, query, k, minFreeCapacity, best);
+      if (best.size() < k || offset * offset < best.peek().chordSquared) {
+        search(from, median, nextAxis, query, k, minFreeCapacity, best);
+      }
+    }
+  }
+
+  private static int freeCapacity(Warehouse warehouse) {
+    int capacity = warehouse.capacity == null ? 0 : warehouse.capacity;
+    int stock = warehouse.stock == null ? 0 : warehouse.stock;
+    return capacity - stock;
+  }
+
+  private static double[] unitVector(double latitude, double longitude) {
+    double lat = Math.toRadians(latitude);
+    double lon = Math.toRadians(longitude);
+    return new double[] {Math.cos(lat) * Math.cos(lon), Math.cos(lat) * Math.sin(lon), Math.sin(lat)};
+  }
+
+  private static double distanceSquared(double[] a, double[] b) {
+    double dx = a[0] - b[0];
+    double dy = a[1] - b[1];
+    double dz = a[2] - b[2];
+    return dx * dx + dy * dy + dz * dz;
+  }
+
+  private record Site(String location, double[] point, Warehouse[] warehouses) {
+  }
+
+  private record Candidate(Warehouse warehouse, double chordSquared) {
+  }
+}
@@ -1,79 +1,380 @@
 package com.fulfilment.application.monolith.warehouses.adapters.database;
 
+import com.fulfilment.application.monolith.common.TransactionHooks;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationSummary;
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
 import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
-import jakarta.transaction.Transactional;
+import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.Query;
+import org.hibernate.query.NativeQuery;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @ApplicationScoped
 public class WarehouseRepository implements WarehouseStore, PanacheRepository<DbWarehouse> {
 
+  @Inject TransactionHooks transactionHooks;
+  @Inject LocationOccupancyLedger occupancyLedger;
+  @Inject LocationHierarchy locationHierarchy;
+  @Inject WarehouseSpatialIndex warehouseSpatialIndex;
+  @Inject ActiveWarehouseCache activeWarehouseCache;
+
   @Override
   public List<Warehouse> getAll() {
-    return listAll()
+    return list("archivedAt is null", Sort.by("businessUnitCode"))
+            .stream()
+            .map(DbWarehouse::toWarehouse)
+            .toList();
+  }
+
+  @Override
+  public List<Warehouse> findActivePage(String location, String afterBuCode, int limit) {
+    StringBuilder query = new StringBuilder("archivedAt is null");
+    Map<String, Object> params = new HashMap<>();
+    if (location != null) {
+      query.append(" and location = :location");
+      params.put("location", location);
+    }
+    if (afterBuCode != null) {
+      query.append(" and businessUnitCode > :afterBuCode");
+      params.put("afterBuCode", afterBuCode);
+    }
+
+    return find(query.toString(), Sort.by("businessUnitCode"), params)
+            .page(0, limit)
+            .list()
             .stream()
-            .filter(db -> db.archivedAt == null)
-            .peek(System.out::println)
             .map(DbWarehouse::toWarehouse)
             .toList();
   }
 
   @Override
   public void create(Warehouse warehouse) {
+    createAll(List.of(warehouse));
+  }
 
-    DbWarehouse db = new DbWarehouse();
-    db.businessUnitCode = warehouse.businessUnitCode;
-    db.location = warehouse.location;
-    db.capacity = warehouse.capacity;
-    db.stock = warehouse.stock;
-    db.createdAt = LocalDateTime.now();
-    db.archivedAt = null;
+  @Override
+  public void createAll(List<Warehouse> warehouses) {
+    if (warehouses.isEmpty()) {
+      return;
+    }
+
+    Map<String, long[]> deltas = new HashMap<>();
+    for (Warehouse warehouse : warehouses) {
+      DbWarehouse db = new DbWarehouse();
+      db.businessUnitCode = warehouse.businessUnitCode;
+      db.location = warehouse.location;
+      db.capacity = warehouse.capacity;
+      db.stock = warehouse.stock;
+      db.createdAt = LocalDateTime.now();
+      db.archivedAt = null;
 
-    persist(db);
+      persist(db);
+      activeWarehouseCache.invalidate(db.businessUnitCode);
+      addDelta(deltas, db.location, 1, capacityOf(db), stockOf(db));
+    }
+    recordAfterCommit(deltas);
   }
 
   @Override
   public void update(Warehouse warehouse) {
 
-    DbWarehouse existing =
-            find("businessUnitCode", warehouse.businessUnitCode)
-                    .firstResult();
+    DbWarehouse existing = findActive(warehouse.businessUnitCode);
 
     if (existing == null) {
       throw new IllegalArgumentException("Warehouse not found");
     }
 
+    Map<String, long[]> deltas = new HashMap<>();
+    addDelta(deltas, existing.location, -1, -capacityOf(existing), -stockOf(existing));
+
     existing.location = warehouse.location;
     existing.capacity = warehouse.capacity;
     existing.stock = warehouse.stock;
     existing.archivedAt = warehouse.archivedAt;
+    activeWarehouseCache.invalidate(existing.businessUnitCode);
+
+    if (existing.archivedAt == null) {
+      addDelta(deltas, existing.location, 1, capacityOf(existing), stockOf(existing));
+    }
+    recordAfterCommit(deltas);
   }
 
   @Override
   public void remove(Warehouse warehouse) {
+    archiveActive(warehouse.businessUnitCode, LocalDateTime.now()); // soft delete
+  }
 
-    DbWarehouse existing =
-            find("businessUnitCode", warehouse.businessUnitCode)
-                    .firstResult();
+  @Override
+  public int archiveActive(String buCode, LocalDateTime archivedAt) {
+    List<?> rows = nativeQuery(
+            "UPDATE warehouse SET archivedAt = :archivedAt"
+                    + " WHERE businessUnitCode = :buCode AND archivedAt IS NULL"
+                    + " RETURNING id, location, capacity, stock")
+            .setParameter("archivedAt", archivedAt)
+            .setParameter("buCode", buCode)
+            .getResultList();
 
-    if (existing != null) {
-      existing.archivedAt = LocalDateTime.now(); // soft delete
+    Map<String, long[]> deltas = new HashMap<>();
+    for (Object row : rows) {
+      Object[] columns = (Object[]) row;
+      addDelta(deltas, (String) columns[1], -1, -intValue(columns[2]), -intValue(columns[3]));
     }
+    afterNativeUpdate(buCode, rows, deltas);
+    return rows.size();
   }
 
   @Override
   public Warehouse findByBusinessUnitCode(String buCode) {
 
-    DbWarehouse db =
-            find("businessUnitCode = ?1", buCode)
-                    .stream()
-                    .filter(dbWarehouse -> dbWarehouse.archivedAt == null)
-                    .findFirst().orElse(null);
+    return activeWarehouseCache.get(buCode, code -> {
+      DbWarehouse db = findActive(code);
+      return db != null ? db.toWarehouse() : null;
+    });
+  }
+
+  @Override
+  public void archiveAll(Collection<String> buCodes, LocalDateTime archivedAt) {
+    if (buCodes.isEmpty()) {
+      return;
+    }
+
+    Map<String, long[]> deltas = new HashMap<>();
+    for (DbWarehouse existing : list("businessUnitCode in ?1 and archivedAt is null", buCodes)) {
+      existing.archivedAt = archivedAt;
+      activeWarehouseCache.invalidate(existing.businessUnitCode);
+      addDelta(deltas, existing.location, -1, -capacityOf(existing), -stockOf(existing));
+    }
+    recordAfterCommit(deltas);
+  }
+
+  @Override
+  public Map<String, Warehouse> findActiveByBusinessUnitCodes(Collection<String> buCodes) {
+    Map<String, Warehouse> found = new HashMap<>();
+    if (buCodes.isEmpty()) {
+      return found;
+    }
+    list("businessUnitCode in ?1 and archivedAt is null", buCodes)
+            .forEach(db -> found.put(db.businessUnitCode, db.toWarehouse()));
+    return found;
+  }
+
+  @Override
+  public Map<String, Warehouse> lockActiveByBusinessUnitCodes(Collection<String> buCodes) {
+    Map<String, Warehouse> found = new HashMap<>();
+    if (buCodes.isEmpty()) {
+      return found;
+    }
+    // ordered, so two batches sharing codes lock them in the same order
+    find("businessUnitCode in ?1 and archivedAt is null", Sort.by("businessUnitCode"), buCodes)
+            .withLock(LockModeType.PESSIMISTIC_WRITE)
+            .list()
+            .forEach(db -> found.put(db.businessUnitCode, db.toWarehouse()));
+    return found;
+  }
+
+  // served by the partial index ix_warehouse_active_bu_code
+  private DbWarehouse findActive(String buCode) {
+    return find("businessUnitCode = ?1 and archivedAt is null", buCode).firstResult();
+  }
+
+  @Override
+  public LocationOccupancy occupancyOf(String location, String excludingBuCode) {
+    String jpql =
+            "SELECT COUNT(w), COALESCE(SUM(w.capacity), 0) FROM DbWarehouse w"
+                    + " WHERE w.location = :location AND w.archivedAt IS NULL";
+    if (excludingBuCode != null) {
+      jpql += " AND w.businessUnitCode <> :excludingBuCode";
+    }
+
+    var query = getEntityManager()
+            .createQuery(jpql, Object[].class)
+            .setParameter("location", location);
+    if (excludingBuCode != null) {
+      query.setParameter("excludingBuCode", excludingBuCode);
+    }
+
+    Object[] row = query.getSingleResult();
+    return new LocationOccupancy(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+  }
+
+  @Override
+  public Map<String, LocationOccupancy> occupancyByLocation() {
+    Map<String, LocationOccupancy> occupancies = new HashMap<>();
+    getEntityManager()
+            .createQuery(
+                    "SELECT w.location, COUNT(w), COALESCE(SUM(w.capacity), 0) FROM DbWarehouse w"
+                            + " WHERE w.archivedAt IS NULL GROUP BY w.location",
+                    Object[].class)
+            .getResultList()
+            .forEach(row -> occupancies.put(
+                    (String) row[0],
+                    new LocationOccupancy(((Number) row[1]).longValue(), ((Number) row[2]).longValue())));
+    return occupancies;
+  }
+
+  @Override
+  public Map<String, LocationSummary> summaryByLocation() {
+    Map<String, LocationSummary> summaries = new HashMap<>();
+    getEntityManager()
+            .createQuery(
+                    "SELECT w.location, COUNT(w), COALESCE(SUM(w.capacity), 0), COALESCE(SUM(w.stock), 0)"
+                            + " FROM DbWarehouse w WHERE w.archivedAt IS NULL GROUP BY w.location",
+                    Object[].class)
+            .getResultList()
+            .forEach(row -> summaries.put((String) row[0], new LocationSummary(
+                    (String) row[0], 1, ((Number) row[1]).longValue(),
+                    ((Number) row[2]).longValue(), ((Number) row[3]).longValue())));
+    return summaries;
+  }
+
+  @Override
+  public boolean replaceActive(Warehouse replacement, ReplacementCheck check) {
+    // round trip 1: lock the active row and total the target location without it
+    List<?> rows = nativeQuery(
+            "SELECT w.id, w.location, w.capacity, w.stock,"
+                    + " (SELECT COUNT(*) FROM warehouse o WHERE o.location = :location"
+                    + "   AND o.archivedAt IS NULL AND o.id <> w.id),"
+                    + " (SELECT COALESCE(SUM(o.capacity), 0) FROM warehouse o WHERE o.location = :location"
+                    + "   AND o.archivedAt IS NULL AND o.id <> w.id)"
+                    + " FROM warehouse w WHERE w.businessUnitCode = :buCode AND w.archivedAt IS NULL"
+                    + " FOR UPDATE OF w")
+            .setParameter("location", replacement.location)
+            .setParameter("buCode", replacement.businessUnitCode)
+            .getResultList();
+    if (rows.isEmpty()) {
+      return false;
+    }
+
+    Object[] row = (Object[]) rows.get(0);
+    var current = new Warehouse();
+    current.businessUnitCode = replacement.businessUnitCode;
+    current.location = (String) row[1];
+    current.capacity = row[2] == null ? null : intValue(row[2]);
+    current.stock = row[3] == null ? null : intValue(row[3]);
+    check.check(current, new LocationOccupancy(((Number) row[4]).longValue(), ((Number) row[5]).longValue()));
+
+    // round trip 2: archive and insert in one statement. The id comes straight from the sequence;
+    // with the pooled-lo allocator that burns the rest of a block but never collides with it
+    LocalDateTime now = LocalDateTime.now();
+    getEntityManager()
+            .createNativeQuery(
+                    "WITH archived AS ("
+                            + " UPDATE warehouse SET archivedAt = :now WHERE id = :id RETURNING id)"
+                            + " INSERT INTO warehouse (id, businessUnitCode, location, capacity, stock, createdAt, archivedAt)"
+                            + " SELECT nextval('warehouse_seq'), :buCode, :location, :capacity, :stock, :createdAt, NULL"
+                            + " FROM archived")
+            .unwrap(NativeQuery.class)
+            .addSynchronizedEntityClass(DbWarehouse.class)
+            .setParameter("now", now)
+            .setParameter("id", ((Number) row[0]).longValue())
+            .setParameter("buCode", replacement.businessUnitCode)
+            .setParameter("location", replacement.location)
+            .setParameter("capacity", replacement.capacity)
+            .setParameter("stock", replacement.stock)
+            .setParameter("createdAt", replacement.createdAt != null ? replacement.createdAt : now)
+            .executeUpdate();
+
+    Map<String, long[]> deltas = new HashMap<>();
+    addDelta(deltas, current.location, -1, -capacityOf(current), -stockOf(current));
+    addDelta(deltas, replacement.location, 1, capacityOf(replacement), stockOf(replacement));
+    afterNativeUpdate(replacement.businessUnitCode, rows, deltas);
+    return true;
+  }
+
+  @Override
+  public Map<String, LocationOccupancy> occupancyByLocation(Collection<String> locations) {
+    Map<String, LocationOccupancy> occupancies = new HashMap<>();
+    if (locations.isEmpty()) {
+      return occupancies;
+    }
+    getEntityManager()
+            .createQuery(
+                    "SELECT w.location, COUNT(w), COALESCE(SUM(w.capacity), 0) FROM DbWarehouse w"
+                            + " WHERE w.archivedAt IS NULL AND w.location IN :locations"
+                            + " GROUP BY w.location",
+                    Object[].class)
+            .setParameter("locations", locations)
+            .getResultList()
+            .forEach(row -> occupancies.put(
+                    (String) row[0],
+                    new LocationOccupancy(((Number) row[1]).longValue(), ((Number) row[2]).longValue())));
+    return occupancies;
+  }
+
+  @Override
+  public void lockLocation(String location) {
+    // pg_advisory_xact_lock returns void, wrap it so the native query maps to a plain count
+    getEntityManager()
+            .createNativeQuery(
+                    "SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock(hashtext(:location))) AS l")
+            .setParameter("location", location)
+            .getSingleResult();
+  }
+
+  private Query nativeQuery(String sql) {
+    // pending entity changes must reach the database before the statement runs
+    flush();
+    return getEntityManager().createNativeQuery(sql);
+  }
+
+  // native statements bypass the session, so drop what it and the second-level cache still hold
+  private void afterNativeUpdate(String buCode, List<?> rows, Map<String, long[]> deltas) {
+    var entityManager = getEntityManager();
+    for (Object row : rows) {
+      Long id = ((Number) ((Object[]) row)[0]).longValue();
+      entityManager.detach(entityManager.getReference(DbWarehouse.class, id));
+      entityManager.getEntityManagerFactory().getCache().evict(DbWarehouse.class, id);
+    }
+    activeWarehouseCache.invalidate(buCode);
+    recordAfterCommit(deltas);
+  }
+
+  private void recordAfterCommit(Map<String, long[]> deltas) {
+    transactionHooks.afterCommit(() -> deltas.forEach((location, delta) -> {
+      occupancyLedger.record(location, delta[0], delta[1]);
+      locationHierarchy.record(location, delta[0], delta[1], delta[2]);
+    }));
+    transactionHooks.afterCommit(warehouseSpatialIndex::invalidate);
+  }
+
+  private static void addDelta(
+          Map<String, long[]> deltas, String location, long warehouses, long capacity, long stock) {
+    if (location == null) {
+      return;
+    }
+    long[] delta = deltas.computeIfAbsent(location, key -> new long[3]);
+    delta[0] += warehouses;
+    delta[1] += capacity;
+    delta[2] += stock;
+  }
+
+  private static int intValue(Object value) {
+    return value == null ? 0 : ((Number) value).intValue();
+  }
+
+  private static int capacityOf(Warehouse warehouse) {
+    return warehouse.capacity == null ? 0 : warehouse.capacity;
+  }
+
+  private static int capacityOf(DbWarehouse warehouse) {
+    return warehouse.capacity == null ? 0 : warehouse.capacity;
+  }
+
+  private static int stockOf(Warehouse warehouse) {
+    return warehouse.stock == null ? 0 : warehouse.stock;
+  }
 
-    return db != null ? db.toWarehouse() : null;
+  private static int stockOf(DbWarehouse warehouse) {
+    return warehouse.stock == null ? 0 : warehouse.stock;
   }
 }
@@ -0,0 +1,111 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.NearestWarehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.jboss.logging.Logger;
+
+/**
+ * Nearest active warehouses to a point, answered from an in-memory {@link NearestWarehouseTree}.
+ *
+ * <p>The tree is a snapshot. {@link WarehouseRepository} marks it stale after every committed
+ * warehouse change, and so does the location API when coordinates move. A background thread then
+ * rebuilds it from one read of the active warehouses while queries keep walking the previous
+ * snapshot, so no request waits for a rebuild; changes committed during a rebuild start another.
+ * Only the first query, with no snapshot to serve yet, builds the tree itself.
+ */
+@ApplicationScoped
+public class WarehouseSpatialIndex {
+
+  private static final Logger LOGGER = Logger.getLogger(WarehouseSpatialIndex.class.getName());
+
+  @Inject WarehouseRepository warehouseRepository;
+  @Inject LocationResolver locationResolver;
+
+  private final AtomicBoolean stale = new AtomicBoolean(true);
+  private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+  private volatile NearestWarehouseTree tree;
+  private ExecutorService rebuilder;
+
+  @PostConstruct
+  void init() {
+    rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "warehouse-spatial-index");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  @PreDestroy
+  void shutdown() {
+    rebuilder.shutdownNow();
+  }
+
+  public void invalidate() {
+    stale.set(true);
+    scheduleRebuild();
+  }
+
+  public List<NearestWarehouse> nearest(double latitude, double longitude, int k, int minFreeCapacity) {
+    NearestWarehouseTree current = tree;
+    if (current == null) {
+      current = first();
+    } else if (stale.get()) {
+      // a failed rebuild leaves the flag set, the next query tries again
+      scheduleRebuild();
+    }
+    return current.nearest(latitude, longitude, k, minFreeCapacity);
+  }
+
+  private synchronized NearestWarehouseTree first() {
+    if (tree == null) {
+      stale.set(false);
+      tree = build();
+    }
+    return tree;
+  }
+
+  private void scheduleRebuild() {
+    if (rebuildScheduled.compareAndSet(false, true)) {
+      rebuilder.execute(this::rebuild);
+    }
+  }
+
+  private void rebuild() {
+    // cleared before the flag is read, so a change committed during the rebuild schedules the next
+    rebuildScheduled.set(false);
+    if (!stale.getAndSet(false)) {
+      return;
+    }
+    try {
+      NearestWarehouseTree rebuilt = QuarkusTransaction.requiringNew().call(this::build);
+      synchronized (this) {
+        tree = rebuilt;
+      }
+    } catch (RuntimeException e) {
+      stale.set(true);
+      LOGGER.warn("Rebuilding the warehouse spatial index failed, serving the previous snapshot", e);
+    }
+  }
+
+  private NearestWarehouseTree build() {
+    List<Warehouse> active = warehouseRepository.getAll();
+    Map<String, Location> locations = new HashMap<>();
+    for (Warehouse warehouse : active) {
+      locations.computeIfAbsent(warehouse.location, locationResolver::resolveByIdentifier);
+    }
+    return new NearestWarehouseTree(active, locations);
+  }
+}
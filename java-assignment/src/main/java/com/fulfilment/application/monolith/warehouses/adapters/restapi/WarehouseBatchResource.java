@@ -0,0 +1,91 @@
+package com.fulfilment.application.monolith.warehouses.adapters.restapi;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseChange;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseChangeResult;
+import com.fulfilment.application.monolith.warehouses.domain.ports.BatchWarehouseOperation;
+import com.fulfilment.application.monolith.warehouses.domain.usecases.BatchWarehouseUseCase;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.util.List;
+
+/** Creates, replaces and archives many warehouse units in one request and one transaction. */
+@Path("warehouse/batch")
+@ApplicationScoped
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class WarehouseBatchResource {
+
+  @Inject BatchWarehouseUseCase batchWarehouseUseCase;
+
+  @POST
+  @Transactional
+  public Response apply(BatchRequest request) {
+    if (request == null) {
+      throw new WebApplicationException("Batch request body is required", 400);
+    }
+
+    BatchWarehouseOperation.Mode mode;
+    try {
+      mode = request.mode == null
+              ? BatchWarehouseOperation.Mode.ALL_OR_NOTHING
+              : BatchWarehouseOperation.Mode.valueOf(request.mode);
+    } catch (IllegalArgumentException e) {
+      throw new WebApplicationException("Unknown batch mode " + request.mode, 400);
+    }
+
+    List<WarehouseChange> changes = request.changes == null
+            ? List.of()
+            : request.changes.stream().map(BatchItem::toChange).toList();
+    var results = batchWarehouseUseCase.apply(changes, mode);
+
+    var response = new BatchResponse();
+    response.mode = mode.name();
+    response.results = results;
+    response.applied = results.stream().filter(WarehouseChangeResult::applied).count();
+    response.rejected = results.size() - response.applied;
+
+    // an all-or-nothing batch with a rejected change wrote nothing
+    int status = mode == BatchWarehouseOperation.Mode.ALL_OR_NOTHING && response.rejected > 0 ? 422 : 200;
+    return Response.status(status).entity(response).build();
+  }
+
+  public static class BatchRequest {
+    // ALL_OR_NOTHING (default) or BEST_EFFORT
+    public String mode;
+    public List<BatchItem> changes;
+  }
+
+  public static class BatchItem {
+    // CREATE, REPLACE or ARCHIVE
+    public WarehouseChange.Action action;
+    public String businessUnitCode;
+    public String location;
+    public Integer capacity;
+    public Integer stock;
+
+    WarehouseChange toChange() {
+      var warehouse = new Warehouse();
+      warehouse.businessUnitCode = businessUnitCode;
+      warehouse.location = location;
+      warehouse.capacity = capacity;
+      warehouse.stock = stock;
+      return new WarehouseChange(action, warehouse);
+    }
+  }
+
+  public static class BatchResponse {
+    public String mode;
+    public long applied;
+    public long rejected;
+    public List<WarehouseChangeResult> results;
+  }
+}
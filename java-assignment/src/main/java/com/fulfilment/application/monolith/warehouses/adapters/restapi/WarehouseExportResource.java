@@ -0,0 +1,30 @@
+package com.fulfilment.application.monolith.warehouses.adapters.restapi;
+
+import com.fulfilment.application.monolith.common.NdjsonExporter;
+import com.fulfilment.application.monolith.warehouses.adapters.database.DbWarehouse;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.StreamingOutput;
+
+/**
+ * Streams every active warehouse unit as newline-delimited JSON. Lives outside the generated
+ * OpenAPI interface because the response is not a JSON document.
+ */
+@Path("warehouse/export")
+@ApplicationScoped
+public class WarehouseExportResource {
+
+  @Inject NdjsonExporter ndjsonExporter;
+
+  @GET
+  @Produces(NdjsonExporter.MEDIA_TYPE)
+  public StreamingOutput export() {
+    return ndjsonExporter.export(
+        "FROM DbWarehouse w WHERE w.archivedAt IS NULL ORDER BY w.businessUnitCode",
+        DbWarehouse.class,
+        w -> WarehouseResourceImpl.toWarehouseResponse(w.toWarehouse()));
+  }
+}
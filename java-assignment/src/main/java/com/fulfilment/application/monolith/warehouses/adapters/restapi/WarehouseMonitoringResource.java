@@ -0,0 +1,41 @@
+package com.fulfilment.application.monolith.warehouses.adapters.restapi;
+
+import com.fulfilment.application.monolith.warehouses.adapters.database.ActiveWarehouseCache;
+import com.fulfilment.application.monolith.warehouses.adapters.database.LocationOccupancyLedger;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import java.util.Map;
+
+/** Read-only view of the in-memory warehouse bookkeeping, for monitoring. */
+@Path("monitoring/warehouses")
+@ApplicationScoped
+@Produces(MediaType.APPLICATION_JSON)
+public class WarehouseMonitoringResource {
+
+  @Inject LocationOccupancyLedger occupancyLedger;
+  @Inject ActiveWarehouseCache activeWarehouseCache;
+
+  @GET
+  @Path("occupancy")
+  public Map<String, LocationOccupancy> occupancy() {
+    return occupancyLedger.snapshot();
+  }
+
+  @GET
+  @Path("occupancy/{location}")
+  public LocationOccupancy occupancyOf(@PathParam("location") String location) {
+    return occupancyLedger.occupancyOf(location);
+  }
+
+  @GET
+  @Path("cache")
+  public ActiveWarehouseCache.Stats cache() {
+    return activeWarehouseCache.stats();
+  }
+}
@@ -6,7 +6,7 @@ import jakarta.validation.constraints.NotNull;
 import java.util.List;
 
 public interface WarehouseResource {
-    public List<Warehouse> listAllWarehousesUnits();
+    public List<Warehouse> listAllWarehousesUnits(String location, Integer limit, String after);
     public Warehouse createANewWarehouseUnit(@NotNull Warehouse data);
     public Warehouse getAWarehouseUnitByID(String id);
     public void archiveAWarehouseUnitByID(String id);
@@ -5,30 +5,51 @@ import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
 import com.fulfilment.application.monolith.warehouses.domain.usecases.ArchiveWarehouseUseCase;
 import com.fulfilment.application.monolith.warehouses.domain.usecases.CreateWarehouseUseCase;
 import com.fulfilment.application.monolith.warehouses.domain.usecases.ReplaceWarehouseUseCase;
+import io.vertx.core.http.HttpServerResponse;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.validation.constraints.NotNull;
 import jakarta.ws.rs.WebApplicationException;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
 
 @RequestScoped
 public class WarehouseResourceImpl implements com.warehouse.api.WarehouseResource {
 
+  static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+  static final int DEFAULT_PAGE_SIZE = 100;
+  static final int MAX_PAGE_SIZE = 1000;
 
   @Inject private WarehouseRepository warehouseRepository;
   @Inject private CreateWarehouseUseCase createWarehouseUseCase;
   @Inject private ReplaceWarehouseUseCase replaceWarehouseUseCase;
   @Inject private ArchiveWarehouseUseCase archiveWarehouseUseCase;
+  @Inject private HttpServerResponse httpServerResponse;
 
 
   @Override
-  public List<com.warehouse.api.beans.Warehouse> listAllWarehousesUnits() {
-    return warehouseRepository.getAll()
-            .stream()
-            .map(this::toWarehouseResponse)
+  public List<com.warehouse.api.beans.Warehouse> listAllWarehousesUnits(
+      String location, Integer limit, String after) {
+    int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+    if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+      throw new WebApplicationException(
+              "Limit must be between 1 and " + MAX_PAGE_SIZE, 400);
+    }
+
+    // one extra row tells whether there is a next page without a count query
+    var page = warehouseRepository.findActivePage(location, decodeCursor(after), pageSize + 1);
+    if (page.size() > pageSize) {
+      page = page.subList(0, pageSize);
+      httpServerResponse.putHeader(
+              NEXT_CURSOR_HEADER, encodeCursor(page.get(pageSize - 1).businessUnitCode));
+    }
+
+    return page.stream()
+            .map(WarehouseResourceImpl::toWarehouseResponse)
             .toList();
   }
 
@@ -76,7 +97,7 @@ public class WarehouseResourceImpl implements com.warehouse.api.WarehouseResourc
     return warehouse;
   }
 
-  private com.warehouse.api.beans.Warehouse toWarehouseResponse(
+  static com.warehouse.api.beans.Warehouse toWarehouseResponse(
       com.fulfilment.application.monolith.warehouses.domain.models.Warehouse warehouse) {
     var response = new com.warehouse.api.beans.Warehouse();
     response.setBusinessUnitCode(warehouse.businessUnitCode);
@@ -86,4 +107,20 @@ public class WarehouseResourceImpl implements com.warehouse.api.WarehouseResourc
 
     return response;
   }
+
+  static String encodeCursor(String businessUnitCode) {
+    return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(businessUnitCode.getBytes(StandardCharsets.UTF_8));
+  }
+
+  static String decodeCursor(String cursor) {
+    if (cursor == null || cursor.isBlank()) {
+      return null;
+    }
+    try {
+      return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      throw new WebApplicationException("Invalid cursor", 400);
+    }
+  }
 }
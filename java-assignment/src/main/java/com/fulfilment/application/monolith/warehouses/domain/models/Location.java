@@ -1,17 +1,29 @@
 package com.fulfilment.application.monolith.warehouses.domain.models;
 
-public class Location {
-  public String identification;
+/** Immutable: resolvers cache and share instances between requests. */
+public final class Location {
+  public final String identification;
 
   // maximum number of warehouses that can be created in this location
-  public int maxNumberOfWarehouses;
+  public final int maxNumberOfWarehouses;
 
   // maximum capacity of the location summing all the warehouse capacities
-  public int maxCapacity;
+  public final int maxCapacity;
+
+  // WGS84 coordinates in degrees, null when the location has not been placed
+  public final Double latitude;
+  public final Double longitude;
 
   public Location(String identification, int maxNumberOfWarehouses, int maxCapacity) {
+    this(identification, maxNumberOfWarehouses, maxCapacity, null, null);
+  }
+
+  public Location(
+          String identification, int maxNumberOfWarehouses, int maxCapacity, Double latitude, Double longitude) {
     this.identification = identification;
     this.maxNumberOfWarehouses = maxNumberOfWarehouses;
     this.maxCapacity = maxCapacity;
+    this.latitude = latitude;
+    this.longitude = longitude;
   }
 }
@@ -0,0 +1,15 @@
+package com.fulfilment.application.monolith.warehouses.domain.models;
+
+public class LocationOccupancy {
+
+  // number of active (not archived) warehouses in the location
+  public final long activeWarehouses;
+
+  // sum of the capacities of the active warehouses in the location
+  public final long totalCapacity;
+
+  public LocationOccupancy(long activeWarehouses, long totalCapacity) {
+    this.activeWarehouses = activeWarehouses;
+    this.totalCapacity = totalCapacity;
+  }
+}
@@ -0,0 +1,31 @@
+package com.fulfilment.application.monolith.warehouses.domain.models;
+
+public class LocationSummary {
+
+  // location identifier prefix the figures are rolled up for
+  public final String prefix;
+
+  // number of locations under the prefix that have active warehouses
+  public final long locations;
+
+  // number of active (not archived) warehouses under the prefix
+  public final long activeWarehouses;
+
+  // sum of the capacities of those warehouses
+  public final long totalCapacity;
+
+  // sum of the stock of those warehouses
+  public final long totalStock;
+
+  // totalStock / totalCapacity, 0 when there is no capacity
+  public final double utilization;
+
+  public LocationSummary(String prefix, long locations, long activeWarehouses, long totalCapacity, long totalStock) {
+    this.prefix = prefix;
+    this.locations = locations;
+    this.activeWarehouses = activeWarehouses;
+    this.totalCapacity = totalCapacity;
+    this.totalStock = totalStock;
+    this.utilization = totalCapacity > 0 ? (double) totalStock / totalCapacity : 0;
+  }
+}
@@ -0,0 +1,21 @@
+package com.fulfilment.application.monolith.warehouses.domain.models;
+
+public class NearestWarehouse {
+
+  public final String businessUnitCode;
+
+  public final String location;
+
+  // great-circle distance from the queried point
+  public final double distanceKm;
+
+  // capacity minus stock
+  public final int freeCapacity;
+
+  public NearestWarehouse(String businessUnitCode, String location, double distanceKm, int freeCapacity) {
+    this.businessUnitCode = businessUnitCode;
+    this.location = location;
+    this.distanceKm = distanceKm;
+    this.freeCapacity = freeCapacity;
+  }
+}
@@ -0,0 +1,22 @@
+package com.fulfilment.application.monolith.warehouses.domain.models;
+
+public class WarehouseChange {
+
+  public enum Action {
+    CREATE,
+    REPLACE,
+    ARCHIVE
+  }
+
+  public Action action;
+
+  // for ARCHIVE only the business unit code is used
+  public Warehouse warehouse;
+
+  public WarehouseChange() {}
+
+  public WarehouseChange(Action action, Warehouse warehouse) {
+    this.action = action;
+    this.warehouse = warehouse;
+  }
+}
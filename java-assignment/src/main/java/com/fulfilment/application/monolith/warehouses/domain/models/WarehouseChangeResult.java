@@ -0,0 +1,31 @@
+package com.fulfilment.application.monolith.warehouses.domain.models;
+
+public class WarehouseChangeResult {
+
+  // position of the change in the submitted batch
+  public int index;
+
+  public WarehouseChange.Action action;
+
+  public String businessUnitCode;
+
+  // HTTP-style status of this change: 200 applied, 4xx rejected or not applied
+  public int status;
+
+  public String error;
+
+  public WarehouseChangeResult() {}
+
+  public WarehouseChangeResult(
+      int index, WarehouseChange.Action action, String businessUnitCode, int status, String error) {
+    this.index = index;
+    this.action = action;
+    this.businessUnitCode = businessUnitCode;
+    this.status = status;
+    this.error = error;
+  }
+
+  public boolean applied() {
+    return status == 200;
+  }
+}
@@ -0,0 +1,17 @@
+package com.fulfilment.application.monolith.warehouses.domain.ports;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseChange;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseChangeResult;
+import java.util.List;
+
+public interface BatchWarehouseOperation {
+
+  enum Mode {
+    // nothing is written unless every change is valid
+    ALL_OR_NOTHING,
+    // valid changes are written, invalid ones are reported and skipped
+    BEST_EFFORT
+  }
+
+  List<WarehouseChangeResult> apply(List<WarehouseChange> changes, Mode mode);
+}
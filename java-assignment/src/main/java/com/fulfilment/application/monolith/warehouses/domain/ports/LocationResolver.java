@@ -3,5 +3,16 @@ package com.fulfilment.application.monolith.warehouses.domain.ports;
 import com.fulfilment.application.monolith.warehouses.domain.models.Location;
 
 public interface LocationResolver {
+
+  /** The location with the given identification, or null when there is none. */
   Location resolveByIdentifier(String identifier);
+
+  /** True when locations do not come from the {@code location} table, so writes to it would not show. */
+  default boolean readOnly() {
+    return false;
+  }
+
+  /** Forgets what is cached for {@code identifier}, once a write to it has committed. */
+  default void invalidate(String identifier) {
+  }
 }
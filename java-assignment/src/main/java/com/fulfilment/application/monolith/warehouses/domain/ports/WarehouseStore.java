@@ -1,7 +1,12 @@
 package com.fulfilment.application.monolith.warehouses.domain.ports;
 
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationSummary;
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface WarehouseStore {
 
@@ -14,4 +19,74 @@ public interface WarehouseStore {
   void remove(Warehouse warehouse);
 
   Warehouse findByBusinessUnitCode(String buCode);
+
+  /**
+   * Archives the active warehouse of {@code buCode} with a single conditional UPDATE.
+   *
+   * @return number of rows archived, 0 when there is no active warehouse with that code
+   */
+  int archiveActive(String buCode, LocalDateTime archivedAt);
+
+  /**
+   * Replaces the active warehouse with the business unit code of {@code replacement}: locks the
+   * active row, hands it to {@code check} together with the occupancy of the replacement's location
+   * (without the locked row), then archives the row and inserts the replacement in one statement.
+   * The caller must already hold the replacement's location (see {@link #lockLocation}).
+   *
+   * @return {@code false} when there is no active warehouse with that code
+   */
+  boolean replaceActive(Warehouse replacement, ReplacementCheck check);
+
+  @FunctionalInterface
+  interface ReplacementCheck {
+    /** Throws to veto the replacement; nothing has been written yet. */
+    void check(Warehouse current, LocationOccupancy occupancy);
+  }
+
+  /**
+   * Returns up to {@code limit} active warehouses ordered by business unit code, starting right
+   * after {@code afterBuCode} (keyset pagination).
+   *
+   * @param location only return warehouses of this location, or {@code null} for every location
+   * @param afterBuCode last business unit code of the previous page, or {@code null} for the first
+   */
+  List<Warehouse> findActivePage(String location, String afterBuCode, int limit);
+
+  /**
+   * Counts the active warehouses of a location and sums their capacity in a single query.
+   *
+   * @param excludingBuCode business unit code to leave out of the aggregate (the warehouse being
+   *     replaced), or {@code null} to aggregate every active warehouse of the location
+   */
+  LocationOccupancy occupancyOf(String location, String excludingBuCode);
+
+  /** Active warehouse count and summed capacity of every location that has active warehouses. */
+  Map<String, LocationOccupancy> occupancyByLocation();
+
+  /** Active warehouse count, summed capacity and summed stock of every location that has active warehouses. */
+  Map<String, LocationSummary> summaryByLocation();
+
+  /** Same as {@link #occupancyByLocation()}, restricted to the given locations. */
+  Map<String, LocationOccupancy> occupancyByLocation(Collection<String> locations);
+
+  /** Active warehouses of the given business unit codes, keyed by code, in one query. */
+  Map<String, Warehouse> findActiveByBusinessUnitCodes(Collection<String> buCodes);
+
+  /**
+   * Same as {@link #findActiveByBusinessUnitCodes}, with the rows locked until the transaction ends
+   * ({@code SELECT ... FOR UPDATE}), so a concurrent replace or archive of the same code waits.
+   */
+  Map<String, Warehouse> lockActiveByBusinessUnitCodes(Collection<String> buCodes);
+
+  /** Inserts all warehouses in one flush, so the inserts go out as JDBC batches. */
+  void createAll(List<Warehouse> warehouses);
+
+  /** Archives the active warehouses of the given codes in one flush (batched updates). */
+  void archiveAll(Collection<String> buCodes, LocalDateTime archivedAt);
+
+  /**
+   * Blocks until the current transaction holds the database-wide lock of {@code location}. The
+   * lock is released when the transaction ends.
+   */
+  void lockLocation(String location);
 }
@@ -1,7 +1,6 @@
 package com.fulfilment.application.monolith.warehouses.domain.usecases;
 
 import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
-import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
 import com.fulfilment.application.monolith.warehouses.domain.ports.ArchiveWarehouseOperation;
 import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -23,13 +22,8 @@ public class ArchiveWarehouseUseCase implements ArchiveWarehouseOperation {
 
   @Override
   public void archive(String id) {
-    var warehouse = warehouseRepository.findByBusinessUnitCode(id);
-
-    if (warehouse == null) {
+    if (warehouseRepository.archiveActive(id, LocalDateTime.now()) == 0) {
       throw new WebApplicationException("Warehouse not found", 404);
     }
-
-    warehouse.archivedAt = LocalDateTime.now();
-    warehouseRepository.update(warehouse);
   }
 }
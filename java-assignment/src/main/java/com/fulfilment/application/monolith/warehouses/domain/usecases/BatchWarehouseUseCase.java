@@ -0,0 +1,247 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import com.fulfilment.application.monolith.warehouses.adapters.database.LocationLocks;
+import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseChange;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseChangeResult;
+import com.fulfilment.application.monolith.warehouses.domain.ports.BatchWarehouseOperation;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Applies many creates, replaces and archives in one transaction. Current rows, locked until the
+ * commit, and location occupancy are loaded once for the whole batch; every change is then validated in order against
+ * running totals, and the accepted changes are written in one flush.
+ */
+@ApplicationScoped
+public class BatchWarehouseUseCase implements BatchWarehouseOperation {
+
+  static final int MAX_BATCH_SIZE = 1000;
+
+  @Inject
+  WarehouseRepository warehouseRepository;
+  @Inject
+  LocationResolver locationResolver;
+  @Inject
+  LocationLocks locationLocks;
+
+  @Override
+  public List<WarehouseChangeResult> apply(List<WarehouseChange> changes, Mode mode) {
+    if (changes == null || changes.isEmpty()) {
+      throw new WebApplicationException("Batch contains no changes", 400);
+    }
+    if (changes.size() > MAX_BATCH_SIZE) {
+      throw new WebApplicationException(
+              "Batch cannot contain more than " + MAX_BATCH_SIZE + " changes", 400);
+    }
+
+    Set<String> codes = new LinkedHashSet<>();
+    Set<String> targetLocations = new TreeSet<>();
+    for (WarehouseChange change : changes) {
+      if (change != null && change.warehouse != null) {
+        if (change.warehouse.businessUnitCode != null) {
+          codes.add(change.warehouse.businessUnitCode);
+        }
+        if (change.action != WarehouseChange.Action.ARCHIVE
+                && change.warehouse.location != null && !change.warehouse.location.isBlank()) {
+          targetLocations.add(change.warehouse.location);
+        }
+      }
+    }
+
+    locationLocks.lockAll(targetLocations);
+
+    var state = new BatchState(warehouseRepository.lockActiveByBusinessUnitCodes(codes));
+    Set<String> touchedLocations = new TreeSet<>(targetLocations);
+    state.active.values().forEach(warehouse -> touchedLocations.add(warehouse.location));
+    warehouseRepository.occupancyByLocation(touchedLocations)
+            .forEach((location, occupancy) -> state.occupancy.put(
+                    location, new long[] {occupancy.activeWarehouses, occupancy.totalCapacity}));
+
+    List<WarehouseChangeResult> results = new ArrayList<>(changes.size());
+    boolean anyRejected = false;
+    for (int i = 0; i < changes.size(); i++) {
+      WarehouseChange change = changes.get(i);
+      var action = change == null ? null : change.action;
+      var code = change == null || change.warehouse == null ? null : change.warehouse.businessUnitCode;
+      try {
+        apply(change, state);
+        results.add(new WarehouseChangeResult(i, action, code, 200, null));
+      } catch (WebApplicationException e) {
+        anyRejected = true;
+        results.add(new WarehouseChangeResult(i, action, code, e.getResponse().getStatus(), e.getMessage()));
+      }
+    }
+
+    if (anyRejected && mode == Mode.ALL_OR_NOTHING) {
+      for (WarehouseChangeResult result : results) {
+        if (result.applied()) {
+          result.status = 409;
+          result.error = "Not applied, another change in the batch was rejected";
+        }
+      }
+      return results;
+    }
+
+    warehouseRepository.archiveAll(state.archived, LocalDateTime.now());
+    warehouseRepository.createAll(new ArrayList<>(state.created.values()));
+    return results;
+  }
+
+  private void apply(WarehouseChange change, BatchState state) {
+    if (change == null || change.action == null || change.warehouse == null) {
+      throw new WebApplicationException("Change must have an action and a warehouse", 400);
+    }
+    var warehouse = change.warehouse;
+    if (warehouse.businessUnitCode == null || warehouse.businessUnitCode.isBlank()) {
+      throw new WebApplicationException("Business Unit Code is required", 422);
+    }
+
+    switch (change.action) {
+      case CREATE -> create(warehouse, state);
+      case REPLACE -> replace(warehouse, state);
+      case ARCHIVE -> archive(warehouse.businessUnitCode, state);
+    }
+  }
+
+  private void create(Warehouse warehouse, BatchState state) {
+    if (state.active.containsKey(warehouse.businessUnitCode)) {
+      throw new WebApplicationException("Business Unit Code already exists", 422);
+    }
+
+    var location = resolve(warehouse.location, state);
+    var occupancy = state.occupancyOf(warehouse.location);
+    if (occupancy.activeWarehouses >= location.maxNumberOfWarehouses) {
+      throw new WebApplicationException("Maximum warehouses reached for location", 422);
+    }
+    if (warehouse.capacity == null || warehouse.capacity <= 0) {
+      throw new WebApplicationException("Capacity must be greater than zero", 422);
+    }
+    if (warehouse.capacity > location.maxCapacity) {
+      throw new WebApplicationException("Capacity exceeds location maximum", 422);
+    }
+    if ((occupancy.totalCapacity + warehouse.capacity) > location.maxCapacity) {
+      throw new WebApplicationException("Total capacity exceeds location maximum", 422);
+    }
+    if (warehouse.stock == null || warehouse.stock < 0 || warehouse.stock > warehouse.capacity) {
+      throw new WebApplicationException("Stock exceeds warehouse capacity", 422);
+    }
+
+    state.add(warehouse);
+  }
+
+  private void replace(Warehouse newWarehouse, BatchState state) {
+    var current = state.active.get(newWarehouse.businessUnitCode);
+    if (current == null) {
+      throw new WebApplicationException("Active warehouse not found", 404);
+    }
+
+    var location = resolve(newWarehouse.location, state);
+    var occupancy = state.occupancyOf(newWarehouse.location);
+    if (newWarehouse.location.equals(current.location)) {
+      occupancy = new LocationOccupancy(
+              occupancy.activeWarehouses - 1, occupancy.totalCapacity - capacityOf(current));
+    }
+    if (occupancy.activeWarehouses >= location.maxNumberOfWarehouses) {
+      throw new WebApplicationException("Maximum warehouses reached for location", 422);
+    }
+    if (newWarehouse.capacity == null || newWarehouse.capacity <= 0) {
+      throw new WebApplicationException("Capacity must be greater than zero", 422);
+    }
+    if (newWarehouse.capacity > location.maxCapacity) {
+      throw new WebApplicationException("Capacity exceeds location maximum", 422);
+    }
+    if (newWarehouse.capacity < current.stock) {
+      throw new WebApplicationException(
+              "New warehouse capacity cannot accommodate previous stock", 422);
+    }
+    if (newWarehouse.stock == null || newWarehouse.stock < 0) {
+      throw new WebApplicationException("Stock must be non-negative", 422);
+    }
+    if (!newWarehouse.stock.equals(current.stock)) {
+      throw new WebApplicationException("Stock must match previous warehouse", 422);
+    }
+    if ((occupancy.totalCapacity + newWarehouse.capacity) > location.maxCapacity) {
+      throw new WebApplicationException("Total capacity exceeds location maximum", 422);
+    }
+
+    state.remove(current);
+    state.add(newWarehouse);
+  }
+
+  private void archive(String businessUnitCode, BatchState state) {
+    var current = state.active.get(businessUnitCode);
+    if (current == null) {
+      throw new WebApplicationException("Warehouse not found", 404);
+    }
+    state.remove(current);
+  }
+
+  private Location resolve(String identifier, BatchState state) {
+    if (identifier == null || identifier.isBlank()) {
+      throw new WebApplicationException("Invalid location", 422);
+    }
+    var location = state.locations.computeIfAbsent(identifier, locationResolver::resolveByIdentifier);
+    if (location == null) {
+      throw new WebApplicationException("Location does not exist", 422);
+    }
+    return location;
+  }
+
+  private static int capacityOf(Warehouse warehouse) {
+    return warehouse.capacity == null ? 0 : warehouse.capacity;
+  }
+
+  /** Running view of the batch: what is active and how full each location is so far. */
+  private static final class BatchState {
+    final Map<String, Warehouse> active;
+    final Map<String, long[]> occupancy = new HashMap<>();
+    final Map<String, Location> locations = new HashMap<>();
+    // rows already in the database that the batch archives
+    final Set<String> archived = new LinkedHashSet<>();
+    // rows the batch inserts, by code; a later change in the batch may drop or replace them
+    final Map<String, Warehouse> created = new LinkedHashMap<>();
+
+    BatchState(Map<String, Warehouse> active) {
+      this.active = active;
+    }
+
+    LocationOccupancy occupancyOf(String location) {
+      long[] totals = occupancy.get(location);
+      return totals == null ? new LocationOccupancy(0, 0) : new LocationOccupancy(totals[0], totals[1]);
+    }
+
+    void add(Warehouse warehouse) {
+      long[] totals = occupancy.computeIfAbsent(warehouse.location, key -> new long[2]);
+      totals[0]++;
+      totals[1] += capacityOf(warehouse);
+      active.put(warehouse.businessUnitCode, warehouse);
+      created.put(warehouse.businessUnitCode, warehouse);
+    }
+
+    void remove(Warehouse warehouse) {
+      long[] totals = occupancy.computeIfAbsent(warehouse.location, key -> new long[2]);
+      totals[0]--;
+      totals[1] -= capacityOf(warehouse);
+      active.remove(warehouse.businessUnitCode);
+      if (created.remove(warehouse.businessUnitCode) == null) {
+        archived.add(warehouse.businessUnitCode);
+      }
+    }
+  }
+}
@@ -1,10 +1,11 @@
 package com.fulfilment.application.monolith.warehouses.domain.usecases;
 
+import com.fulfilment.application.monolith.warehouses.adapters.database.LocationLocks;
+import com.fulfilment.application.monolith.warehouses.adapters.database.LocationOccupancyLedger;
 import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
 import com.fulfilment.application.monolith.warehouses.domain.ports.CreateWarehouseOperation;
 import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
-import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.WebApplicationException;
@@ -13,15 +14,14 @@ import java.time.LocalDateTime;
 
 @ApplicationScoped
 public class CreateWarehouseUseCase implements CreateWarehouseOperation {
-  private final WarehouseStore warehouseStore;
   @Inject
   WarehouseRepository warehouseRepository;
   @Inject
   LocationResolver locationResolver;
-
-  public CreateWarehouseUseCase(WarehouseStore warehouseStore) {
-    this.warehouseStore = warehouseStore;
-  }
+  @Inject
+  LocationOccupancyLedger occupancyLedger;
+  @Inject
+  LocationLocks locationLocks;
 
   @Override
   public void create(Warehouse warehouse) {
@@ -36,17 +36,13 @@ public class CreateWarehouseUseCase implements CreateWarehouseOperation {
     }
 
     var location = locationResolver.resolveByIdentifier(warehouse.location);
-    if (location.identification == null || location.identification.isEmpty()) {
+    if (location == null) {
       throw new WebApplicationException("Location does not exist", 422);
     }
 
-    long warehousesInLocation =
-            warehouseRepository.getAll().stream()
-                    .filter(w -> w.archivedAt == null)
-                    .filter(w -> w.location.equals(warehouse.location))
-                    .count();
+    var occupancy = occupancyLedger.occupancyOf(warehouse.location);
 
-    if (warehousesInLocation >= location.maxNumberOfWarehouses) {
+    if (occupancy.activeWarehouses >= location.maxNumberOfWarehouses) {
       throw new WebApplicationException(
               "Maximum warehouses reached for location", 422);
     }
@@ -61,13 +57,7 @@ public class CreateWarehouseUseCase implements CreateWarehouseOperation {
               "Capacity exceeds location maximum", 422);
     }
 
-    int totalCapacityInLocation = warehouseRepository.getAll().stream()
-            .filter(w -> w.archivedAt == null)
-            .filter(w -> w.location.equals(warehouse.location))
-            .mapToInt(w -> w.capacity)
-            .sum();
-
-    if ((totalCapacityInLocation + warehouse.capacity) > location.maxCapacity) {
+    if ((occupancy.totalCapacity + warehouse.capacity) > location.maxCapacity) {
       throw new WebApplicationException(
               "Total capacity exceeds location maximum", 422);
     }
@@ -78,6 +68,12 @@ public class CreateWarehouseUseCase implements CreateWarehouseOperation {
               "Stock exceeds warehouse capacity", 422);
     }
 
+    // the ledger only pre-rejects; the limits are enforced against the database while this
+    // transaction holds the location, so concurrent creates cannot both take the last slot
+    locationLocks.lock(warehouse.location);
+    LocationLimits.check(
+            location, warehouseRepository.occupancyOf(warehouse.location, null), warehouse.capacity);
+
     warehouse.createdAt = LocalDateTime.now();
     warehouse.archivedAt = null;
 
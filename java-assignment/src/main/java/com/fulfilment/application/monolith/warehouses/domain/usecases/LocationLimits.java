@@ -0,0 +1,23 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import jakarta.ws.rs.WebApplicationException;
+
+final class LocationLimits {
+
+  private LocationLimits() {
+  }
+
+  // re-run against occupancy read while the location is locked, after the cheaper pre-checks passed
+  static void check(Location location, LocationOccupancy occupancy, int capacity) {
+    if (occupancy.activeWarehouses >= location.maxNumberOfWarehouses) {
+      throw new WebApplicationException(
+              "Maximum warehouses reached for location", 422);
+    }
+    if ((occupancy.totalCapacity + capacity) > location.maxCapacity) {
+      throw new WebApplicationException(
+              "Total capacity exceeds location maximum", 422);
+    }
+  }
+}
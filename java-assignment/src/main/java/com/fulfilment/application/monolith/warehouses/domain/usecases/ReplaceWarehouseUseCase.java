@@ -1,10 +1,11 @@
 package com.fulfilment.application.monolith.warehouses.domain.usecases;
 
+import com.fulfilment.application.monolith.warehouses.adapters.database.LocationLocks;
+import com.fulfilment.application.monolith.warehouses.adapters.database.LocationOccupancyLedger;
 import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
 import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
 import com.fulfilment.application.monolith.warehouses.domain.ports.ReplaceWarehouseOperation;
-import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.WebApplicationException;
@@ -18,11 +19,10 @@ public class ReplaceWarehouseUseCase implements ReplaceWarehouseOperation {
   private WarehouseRepository warehouseRepository;
   @Inject
   LocationResolver locationResolver;
-  private final WarehouseStore warehouseStore;
-
-  public ReplaceWarehouseUseCase(WarehouseStore warehouseStore) {
-    this.warehouseStore = warehouseStore;
-  }
+  @Inject
+  LocationOccupancyLedger occupancyLedger;
+  @Inject
+  LocationLocks locationLocks;
 
   @Override
   public void replace(Warehouse newWarehouse) {
@@ -37,18 +37,13 @@ public class ReplaceWarehouseUseCase implements ReplaceWarehouseOperation {
     }
 
     var location = locationResolver.resolveByIdentifier(newWarehouse.location);
-    if (location.identification == null || location.identification.isEmpty()) {
+    if (location == null) {
       throw new WebApplicationException("Location does not exist", 422);
     }
 
-    long warehousesInLocation =
-            warehouseRepository.getAll().stream()
-                    .filter(w -> w.archivedAt == null)
-                    .filter(w -> !w.businessUnitCode.equals(newWarehouse.businessUnitCode))
-                    .filter(w -> w.location.equals(newWarehouse.location))
-                    .count();
+    var occupancy = occupancyLedger.occupancyExcluding(newWarehouse.location, current);
 
-    if (warehousesInLocation >= location.maxNumberOfWarehouses) {
+    if (occupancy.activeWarehouses >= location.maxNumberOfWarehouses) {
       throw new WebApplicationException(
               "Maximum warehouses reached for location", 422);
     }
@@ -63,40 +58,44 @@ public class ReplaceWarehouseUseCase implements ReplaceWarehouseOperation {
               "Capacity exceeds location maximum", 422);
     }
 
-    if (newWarehouse.capacity < current.stock) {
-      throw new WebApplicationException(
-              "New warehouse capacity cannot accommodate previous stock", 422);
-    }
-
     if (newWarehouse.stock == null || newWarehouse.stock < 0) {
       throw new WebApplicationException(
               "Stock must be non-negative", 422);
     }
 
-    if (!newWarehouse.stock.equals(current.stock)) {
-      throw new WebApplicationException(
-              "Stock must match previous warehouse", 422);
-    }
-
-    int totalCapacityInLocation = warehouseRepository.getAll().stream()
-            .filter(w -> w.archivedAt == null)
-            .filter(w -> !w.businessUnitCode.equals(newWarehouse.businessUnitCode))
-            .filter(w -> w.location.equals(newWarehouse.location))
-            .mapToInt(w -> w.capacity)
-            .sum();
+    checkAgainstCurrent(newWarehouse, current);
 
-    if ((totalCapacityInLocation + newWarehouse.capacity) > location.maxCapacity) {
+    if ((occupancy.totalCapacity + newWarehouse.capacity) > location.maxCapacity) {
       throw new WebApplicationException(
               "Total capacity exceeds location maximum", 422);
     }
 
-    // Archive old warehouse
-    current.archivedAt = LocalDateTime.now();
-    warehouseRepository.update(current);
+    // everything above ran on cached and in-memory state; with the target location held, the
+    // store locks the active row and the checks that depend on it are repeated on fresh data
+    locationLocks.lock(newWarehouse.location);
 
     newWarehouse.createdAt = LocalDateTime.now();
     newWarehouse.archivedAt = null;
 
-    warehouseRepository.create(newWarehouse);
+    boolean replaced = warehouseRepository.replaceActive(newWarehouse, (locked, lockedOccupancy) -> {
+      checkAgainstCurrent(newWarehouse, locked);
+      LocationLimits.check(location, lockedOccupancy, newWarehouse.capacity);
+    });
+    if (!replaced) {
+      throw new WebApplicationException(
+              "Active warehouse not found", 404);
+    }
+  }
+
+  private void checkAgainstCurrent(Warehouse newWarehouse, Warehouse current) {
+    if (newWarehouse.capacity < current.stock) {
+      throw new WebApplicationException(
+              "New warehouse capacity cannot accommodate previous stock", 422);
+    }
+
+    if (!newWarehouse.stock.equals(current.stock)) {
+      throw new WebApplicationException(
+              "Stock must match previous warehouse", 422);
+    }
   }
 }
@@ -0,0 +1,8 @@
+-- Active-row lookup by business unit code. Archived history rows stay out of the index, so a
+-- busy business unit with many replacements still resolves its active row with one index probe.
+-- Not unique: a replace archives the old row and inserts the new one in the same flush, and
+-- Hibernate runs the insert before the update.
+CREATE INDEX IF NOT EXISTS ix_warehouse_active_bu_code ON warehouse (businessUnitCode) WHERE archivedAt IS NULL;
+
+-- Occupancy aggregates and location-filtered listings.
+CREATE INDEX IF NOT EXISTS ix_warehouse_location_archived_at ON warehouse (location, archivedAt);
@@ -0,0 +1,9 @@
+-- Serve the limit counts of FulfillmentRepository.verdictFor, the database-side check used whenever
+-- the in-memory FulfillmentConstraintIndex is disabled (several nodes) or not loaded.
+
+-- Distinct warehouses fulfilling a store (the max 3 warehouses per store rule). The unique
+-- (productId, storeId, warehouseBusinessUnitCode) constraint cannot serve a storeId-only filter.
+CREATE INDEX IF NOT EXISTS ix_fulfillment_store_warehouse ON fulfillment (storeId, warehouseBusinessUnitCode);
+
+-- Distinct products stored in a warehouse (the max 5 product types per warehouse rule).
+CREATE INDEX IF NOT EXISTS ix_fulfillment_warehouse_product ON fulfillment (warehouseBusinessUnitCode, productId);
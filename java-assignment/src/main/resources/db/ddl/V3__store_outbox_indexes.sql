@@ -0,0 +1,6 @@
+-- Earliest undelivered event per store: the relay only picks an event once every earlier event of
+-- the same store is gone.
+CREATE INDEX IF NOT EXISTS ix_store_outbox_store_id ON store_outbox (storeId, id);
+
+-- Events due for (re)delivery.
+CREATE INDEX IF NOT EXISTS ix_store_outbox_next_attempt_at ON store_outbox (nextAttemptAt);
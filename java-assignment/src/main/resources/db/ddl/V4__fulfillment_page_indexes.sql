@@ -0,0 +1,7 @@
+-- Keyset pages of fulfillments (WHERE <column> = ? AND id > ? ORDER BY id LIMIT n): the filter
+-- column followed by id serves both the filter and the order, so a page reads only its own rows.
+CREATE INDEX IF NOT EXISTS ix_fulfillment_store_id ON fulfillment (storeId, id);
+
+CREATE INDEX IF NOT EXISTS ix_fulfillment_warehouse_id ON fulfillment (warehouseBusinessUnitCode, id);
+
+CREATE INDEX IF NOT EXISTS ix_fulfillment_product_id ON fulfillment (productId, id);
@@ -1,5 +1,5 @@
-INSERT INTO store(id, name, quantityProductsInStock) VALUES (1, 'TONSTAD', 10);
-INSERT INTO store(id, name, quantityProductsInStock) VALUES (2, 'KALLAX', 5);
+INSERT INTO store(id, name, quantityProductsInStock, latitude, longitude) VALUES (1, 'TONSTAD', 10, 52.3702, 4.8952);
+INSERT INTO store(id, name, quantityProductsInStock, latitude, longitude) VALUES (2, 'KALLAX', 5, 51.4381, 5.4752);
 INSERT INTO store(id, name, quantityProductsInStock) VALUES (3, 'BESTÅ', 3);
 ALTER SEQUENCE store_seq RESTART WITH 4;
 
@@ -11,6 +11,16 @@ INSERT INTO product(id, name, stock) VALUES (5, 'MALM', 12);
 INSERT INTO product(id, name, stock) VALUES (6, 'BILLY', 15);
 ALTER SEQUENCE product_seq RESTART WITH 7;
 
+INSERT INTO location(id, identification, maxNumberOfWarehouses, maxCapacity, latitude, longitude) VALUES (1, 'ZWOLLE-001', 1, 40, 52.5168, 6.083);
+INSERT INTO location(id, identification, maxNumberOfWarehouses, maxCapacity, latitude, longitude) VALUES (2, 'ZWOLLE-002', 2, 50, 52.5012, 6.1205);
+INSERT INTO location(id, identification, maxNumberOfWarehouses, maxCapacity, latitude, longitude) VALUES (3, 'AMSTERDAM-001', 5, 100, 52.3676, 4.9041);
+INSERT INTO location(id, identification, maxNumberOfWarehouses, maxCapacity, latitude, longitude) VALUES (4, 'AMSTERDAM-002', 3, 75, 52.3105, 4.7683);
+INSERT INTO location(id, identification, maxNumberOfWarehouses, maxCapacity, latitude, longitude) VALUES (5, 'TILBURG-001', 1, 40, 51.5555, 5.0913);
+INSERT INTO location(id, identification, maxNumberOfWarehouses, maxCapacity, latitude, longitude) VALUES (6, 'HELMOND-001', 1, 45, 51.4793, 5.657);
+INSERT INTO location(id, identification, maxNumberOfWarehouses, maxCapacity, latitude, longitude) VALUES (7, 'EINDHOVEN-001', 2, 70, 51.4416, 5.4697);
+INSERT INTO location(id, identification, maxNumberOfWarehouses, maxCapacity) VALUES (8, 'VETSBY-001', 1, 90);
+ALTER SEQUENCE location_seq RESTART WITH 9;
+
 INSERT INTO warehouse(id, businessUnitCode, location, capacity, stock, createdAt, archivedAt) 
 VALUES (1, 'MWH.001', 'ZWOLLE-001', 100, 10, '2024-07-01', null);
 INSERT INTO warehouse(id, businessUnitCode, location, capacity, stock, createdAt, archivedAt)
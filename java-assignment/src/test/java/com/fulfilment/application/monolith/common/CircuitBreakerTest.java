@@ -0,0 +1,62 @@
+package com.fulfilment.application.monolith.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class CircuitBreakerTest {
+
+  private final AtomicLong clock = new AtomicLong();
+  private final CircuitBreaker breaker = new CircuitBreaker(3, Duration.ofSeconds(10), clock::get);
+
+  @Test
+  void opensAfterConsecutiveFailures_andSuccessResetsTheCount() {
+    breaker.onFailure();
+    breaker.onFailure();
+    breaker.onSuccess();
+    breaker.onFailure();
+    breaker.onFailure();
+    assertTrue(breaker.allowRequest());
+
+    breaker.onFailure();
+    assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    assertFalse(breaker.allowRequest());
+  }
+
+  @Test
+  void halfOpen_letsOneTrialThrough() {
+    openBreaker();
+    clock.addAndGet(Duration.ofSeconds(10).toNanos());
+
+    assertTrue(breaker.allowRequest());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+    assertFalse(breaker.allowRequest());
+
+    breaker.onSuccess();
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    assertTrue(breaker.allowRequest());
+  }
+
+  @Test
+  void halfOpen_failedTrialOpensAgain() {
+    openBreaker();
+    clock.addAndGet(Duration.ofSeconds(10).toNanos());
+    assertTrue(breaker.allowRequest());
+
+    breaker.onFailure();
+    assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    clock.addAndGet(Duration.ofSeconds(9).toNanos());
+    assertFalse(breaker.allowRequest());
+  }
+
+  private void openBreaker() {
+    for (int i = 0; i < 3; i++) {
+      breaker.onFailure();
+    }
+    assertFalse(breaker.allowRequest());
+  }
+}
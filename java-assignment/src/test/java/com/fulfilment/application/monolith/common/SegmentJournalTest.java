@@ -0,0 +1,154 @@
+package com.fulfilment.application.monolith.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SegmentJournalTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void append_replaysInOrderAfterReopen() throws IOException {
+    try (SegmentJournal journal = new SegmentJournal(dir, 1 << 20, Duration.ofMillis(10), 4)) {
+      journal.append(1, "Store created. [ name =ONE ]");
+      journal.append(2, "Store created. [ name =TWO ]");
+      journal.append(1, "Store updated. [ name =ÉÉN ]");
+    }
+
+    try (SegmentJournal journal = new SegmentJournal(dir, 1 << 20, Duration.ZERO, 4)) {
+      journal.append(3, "Store created. [ name =THREE ]");
+      assertEquals(List.of("1:Store created. [ name =ONE ]", "2:Store created. [ name =TWO ]",
+              "1:Store updated. [ name =ÉÉN ]", "3:Store created. [ name =THREE ]"), replay(journal));
+    }
+  }
+
+  @Test
+  void open_cutsOffATornRecord() throws IOException {
+    try (SegmentJournal journal = new SegmentJournal(dir, 1 << 20, Duration.ZERO, 4)) {
+      journal.append(1, "first");
+      journal.append(2, "second");
+    }
+    Path segment = segments().get(0);
+    long complete = Files.size(segment);
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      // a crash half-way through the third record
+      channel.truncate(complete - 3);
+    }
+
+    try (SegmentJournal journal = new SegmentJournal(dir, 1 << 20, Duration.ZERO, 4)) {
+      journal.append(3, "third");
+      assertEquals(List.of("1:first", "3:third"), replay(journal));
+    }
+  }
+
+  @Test
+  void roll_compactsSealedSegmentsToTheLatestRecordPerKey() throws IOException {
+    int recordBytes = SegmentJournal.HEADER_BYTES + "store-00:v000".length();
+    Map<Long, String> latest = new LinkedHashMap<>();
+    try (SegmentJournal journal = new SegmentJournal(dir, recordBytes * 4, Duration.ofMillis(10), 2)) {
+      for (int i = 0; i < 200; i++) {
+        long key = i % 10;
+        String payload = String.format("store-%02d:v%03d", key, i);
+        journal.append(key, payload);
+        latest.remove(key);
+        latest.put(key, payload);
+      }
+      // the roll only schedules compaction; run it here so the count does not depend on timing
+      journal.compact();
+      assertTrue(journal.segmentCount() <= 2, "segments: " + journal.segmentCount());
+
+      Map<Long, String> replayed = new LinkedHashMap<>();
+      journal.replay(replayed::put);
+      assertEquals(latest, replayed);
+    }
+    try (Stream<Path> files = Files.list(dir)) {
+      assertTrue(files.noneMatch(file -> file.toString().endsWith(".compacting")));
+    }
+  }
+
+  @Test
+  void seal_replaysAndDeletesBySegment() throws IOException {
+    try (SegmentJournal journal = new SegmentJournal(dir, 1 << 20, Duration.ZERO, 0)) {
+      assertEquals(0, journal.seal());
+      journal.append(1, "+1");
+      long first = journal.seal();
+      // an empty active segment is not sealed again
+      assertEquals(first, journal.seal());
+      journal.append(1, "+2");
+      journal.append(2, "-1");
+
+      List<String> after = new ArrayList<>();
+      journal.replay(first, (key, payload) -> after.add(key + ":" + payload));
+      assertEquals(List.of("1:+2", "2:-1"), after);
+
+      journal.deleteThrough(first);
+      assertEquals(List.of("1:+2", "2:-1"), replay(journal));
+      assertEquals(1, journal.segmentCount());
+    }
+  }
+
+  @Test
+  void open_withAFirstSequence_neverReusesACheckpointedSequence() throws IOException {
+    long checkpoint;
+    try (SegmentJournal journal = new SegmentJournal(dir, 1 << 20, Duration.ZERO, 0)) {
+      journal.append(1, "+5");
+      checkpoint = journal.seal();
+      journal.append(1, "-2");
+    }
+
+    // the directory is lost after the checkpoint was stored
+    for (Path segment : segments()) {
+      Files.delete(segment);
+    }
+    try (SegmentJournal journal = new SegmentJournal(dir, 1 << 20, Duration.ZERO, 0, checkpoint + 1)) {
+      journal.append(1, "+1");
+      assertEquals(List.of("1:+1"), replay(journal, checkpoint));
+      assertTrue(journal.seal() > checkpoint);
+    }
+
+    // segments older than the first sequence are left for the caller to delete
+    try (SegmentJournal journal = new SegmentJournal(dir, 1 << 20, Duration.ZERO, 0, checkpoint + 10)) {
+      journal.append(1, "+3");
+      assertEquals(List.of("1:+3"), replay(journal, checkpoint + 9));
+    }
+  }
+
+  @Test
+  void append_recordLargerThanASegment_isRejected() throws IOException {
+    try (SegmentJournal journal = new SegmentJournal(dir, 64, Duration.ZERO, 2)) {
+      assertThrows(IllegalArgumentException.class, () -> journal.append(1, "x".repeat(64)));
+    }
+  }
+
+  private static List<String> replay(SegmentJournal journal, long sequence) throws IOException {
+    List<String> records = new ArrayList<>();
+    journal.replay(sequence, (key, payload) -> records.add(key + ":" + payload));
+    return records;
+  }
+
+  private static List<String> replay(SegmentJournal journal) throws IOException {
+    return replay(journal, 0);
+  }
+
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> files = Files.list(dir)) {
+      return files.sorted().toList();
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fulfilment.application.monolith.stores.Store;
+import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+public class ArchiveWarehouseFulfillmentsTest {
+
+  @Inject WarehouseRepository warehouseRepository;
+  @Inject FulfillmentConstraintIndex constraintIndex;
+
+  @Test
+  void archive_repointsAndMergesFulfillments() {
+    String run = run();
+    List<Long> stores = stores(run, 2);
+    String from = warehouse(run, "A");
+    String to = warehouse(run, "B");
+    fulfill(1, stores.get(0), from);
+    fulfill(2, stores.get(0), from);
+    fulfill(1, stores.get(1), from);
+    fulfill(1, stores.get(0), to);
+
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"repointTo\":\"%s\"}".formatted(to))
+        .when().post("fulfillments/warehouses/" + from + "/archive")
+        .then()
+        .statusCode(200)
+        .body("moved", equalTo(2))
+        .body("removed", equalTo(1));
+
+    given().when().get("/warehouse/" + from).then().statusCode(404);
+    given().when().get("fulfillments/warehouses/" + from).then().statusCode(200).body("size()", equalTo(0));
+    given().when().get("fulfillments/warehouses/" + to).then().statusCode(200).body("size()", equalTo(3));
+
+    assertEquals(0, constraintIndex.productsForWarehouse(from));
+    assertEquals(2, constraintIndex.productsForWarehouse(to));
+    assertEquals(1, constraintIndex.warehousesForStore(stores.get(0)));
+    assertEquals(1, constraintIndex.warehousesForProductAndStore(1, stores.get(0)));
+  }
+
+  @Test
+  void archive_targetOverProductLimit_changesNothing() {
+    String run = run();
+    long store = stores(run, 1).get(0);
+    String from = warehouse(run, "A");
+    String to = warehouse(run, "B");
+    for (long product = 1; product <= 3; product++) {
+      fulfill(product, store, from);
+      fulfill(product + 3, store, to);
+    }
+
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"repointTo\":\"%s\"}".formatted(to))
+        .when().post("fulfillments/warehouses/" + from + "/archive")
+        .then()
+        .statusCode(400)
+        .body("error", equalTo("Warehouse can store max 5 product types"));
+
+    given().when().get("/warehouse/" + from).then().statusCode(200);
+    given().when().get("fulfillments/warehouses/" + from).then().statusCode(200).body("size()", equalTo(3));
+    assertEquals(3, constraintIndex.productsForWarehouse(from));
+    assertEquals(3, constraintIndex.productsForWarehouse(to));
+  }
+
+  @Test
+  void archive_withoutTarget_removesFulfillments() {
+    String run = run();
+    long store = stores(run, 1).get(0);
+    String code = warehouse(run, "A");
+    fulfill(1, store, code);
+    fulfill(2, store, code);
+
+    given()
+        .when().post("fulfillments/warehouses/" + code + "/archive")
+        .then()
+        .statusCode(200)
+        .body("moved", equalTo(0))
+        .body("removed", equalTo(2));
+
+    given().when().get("fulfillments/stores/" + store).then().statusCode(200).body("size()", equalTo(0));
+    assertEquals(0, constraintIndex.warehousesForStore(store));
+  }
+
+  @Test
+  void archive_unknownTarget_isNotFound() {
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"repointTo\":\"MWH.999\"}")
+        .when().post("fulfillments/warehouses/MWH.001/archive")
+        .then()
+        .statusCode(404)
+        .body("error", equalTo("Target warehouse not found"));
+
+    given().when().get("/warehouse/MWH.001").then().statusCode(200);
+  }
+
+  private static String run() {
+    return Long.toString(System.nanoTime(), 36).toUpperCase();
+  }
+
+  private static List<Long> stores(String run, int count) {
+    return QuarkusTransaction.requiringNew().call(() -> {
+      List<Long> ids = new ArrayList<>();
+      for (int i = 0; i < count; i++) {
+        Store store = new Store("ARCHIVE-" + run + "-" + i);
+        store.persist();
+        ids.add(store.id);
+      }
+      return ids;
+    });
+  }
+
+  private String warehouse(String run, String suffix) {
+    Warehouse warehouse = new Warehouse();
+    warehouse.businessUnitCode = "ARCHIVE-" + run + "-" + suffix;
+    warehouse.location = "ARCHIVE-" + run;
+    warehouse.capacity = 10;
+    warehouse.stock = 0;
+    QuarkusTransaction.requiringNew().run(() -> warehouseRepository.create(warehouse));
+    return warehouse.businessUnitCode;
+  }
+
+  private static void fulfill(long productId, long storeId, String warehouseBusinessUnitCode) {
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"productId\":%d,\"storeId\":%d,\"warehouseBusinessUnitCode\":\"%s\"}"
+            .formatted(productId, storeId, warehouseBusinessUnitCode))
+        .when().post("fulfillments")
+        .then()
+        .statusCode(201);
+  }
+}
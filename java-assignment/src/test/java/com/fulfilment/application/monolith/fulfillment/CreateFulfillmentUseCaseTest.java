@@ -0,0 +1,130 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fulfilment.application.monolith.stores.Store;
+import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.TestTransaction;
+import io.quarkus.test.junit.QuarkusMock;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+public class CreateFulfillmentUseCaseTest {
+
+  @Inject CreateFulfillmentUseCase useCase;
+  @Inject FulfillmentRepository fulfillmentRepository;
+  @Inject FulfillmentConstraintIndex constraintIndex;
+  @Inject WarehouseRepository warehouseRepository;
+  @Inject SessionFactory sessionFactory;
+
+  @Test
+  @TestTransaction
+  void verdictFor_readsExistenceAndLimitsInOneStatement() {
+    fulfillmentRepository.persist(new Fulfillment(4L, 2L, "MWH.023"));
+    fulfillmentRepository.flush();
+
+    Statistics statistics = sessionFactory.getStatistics();
+    long statementsBefore = statistics.getPrepareStatementCount();
+    FulfillmentVerdict verdict = fulfillmentRepository.verdictFor(4L, 2L, "MWH.023");
+
+    assertEquals(statementsBefore + 1, statistics.getPrepareStatementCount());
+    assertTrue(verdict.productExists);
+    assertTrue(verdict.storeExists);
+    assertTrue(verdict.warehouseExists);
+    assertEquals(1, verdict.warehousesForProductAndStore);
+    assertTrue(verdict.warehousesForStore >= 1);
+    assertTrue(verdict.productsForWarehouse >= 1);
+
+    FulfillmentVerdict missing = fulfillmentRepository.verdictFor(999L, 999L, "MWH.024");
+    assertFalse(missing.productExists);
+    assertFalse(missing.storeExists);
+    // MWH.024 is archived
+    assertFalse(missing.warehouseExists);
+  }
+
+  @Test
+  @TestTransaction
+  void create_rejectsFromTheIndexWithoutQueries() {
+    Store store = new Store("FULFIL-" + Long.toString(System.nanoTime(), 36));
+    store.persist();
+    useCase.create(3L, store.id, "MWH.001");
+    useCase.create(3L, store.id, "MWH.023");
+    assertEquals(2, constraintIndex.warehousesForProductAndStore(3L, store.id));
+    assertEquals(2, constraintIndex.warehousesForStore(store.id));
+    // warm the active warehouse cache
+    warehouseRepository.findByBusinessUnitCode("MWH.012");
+
+    Statistics statistics = sessionFactory.getStatistics();
+    long statementsBefore = statistics.getPrepareStatementCount();
+    WebApplicationException exception = assertThrows(WebApplicationException.class,
+            () -> useCase.create(3L, store.id, "MWH.012"));
+
+    assertEquals(400, exception.getResponse().getStatus());
+    assertEquals("Product can have max 2 warehouses per store", exception.getMessage());
+    assertEquals(statementsBefore, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  @TestTransaction
+  void create_withoutIndex_locksAndChecksInOneStatement() {
+    QuarkusMock.installMockForType(new FulfillmentConstraintIndex() {
+      @Override
+      public boolean isReady() {
+        return false;
+      }
+    }, FulfillmentConstraintIndex.class);
+    Store store = new Store("FULFIL-" + Long.toString(System.nanoTime(), 36));
+    store.persist();
+    useCase.create(3L, store.id, "MWH.001");
+    useCase.create(3L, store.id, "MWH.023");
+    fulfillmentRepository.flush();
+
+    Statistics statistics = sessionFactory.getStatistics();
+    long statementsBefore = statistics.getPrepareStatementCount();
+    WebApplicationException exception = assertThrows(WebApplicationException.class,
+            () -> useCase.create(3L, store.id, "MWH.012"));
+
+    assertEquals(400, exception.getResponse().getStatus());
+    assertEquals("Product can have max 2 warehouses per store", exception.getMessage());
+    // the store and warehouse locks, then the verdict
+    assertEquals(statementsBefore + 2, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void create_rolledBack_releasesTheReservation() {
+    Long storeId = QuarkusTransaction.requiringNew().call(() -> {
+      Store store = new Store("FULFIL-" + Long.toString(System.nanoTime(), 36));
+      store.persist();
+      return store.id;
+    });
+
+    QuarkusTransaction.requiringNew().run(() -> {
+      useCase.create(3L, storeId, "MWH.001");
+      assertEquals(1, constraintIndex.warehousesForStore(storeId));
+      QuarkusTransaction.setRollbackOnly();
+    });
+
+    assertEquals(0, constraintIndex.warehousesForProductAndStore(3L, storeId));
+    assertEquals(0, constraintIndex.warehousesForStore(storeId));
+  }
+
+  @Test
+  void create_missingProductStoreOrWarehouse_isNotFound() {
+    assertEquals("Product not found", assertThrows(WebApplicationException.class,
+            () -> useCase.create(999L, 1L, "MWH.001")).getMessage());
+    assertEquals("Store not found", assertThrows(WebApplicationException.class,
+            () -> useCase.create(1L, 999L, "MWH.001")).getMessage());
+    // MWH.024 is archived
+    assertEquals("Warehouse not found", assertThrows(WebApplicationException.class,
+            () -> useCase.create(1L, 1L, "MWH.024")).getMessage());
+  }
+}
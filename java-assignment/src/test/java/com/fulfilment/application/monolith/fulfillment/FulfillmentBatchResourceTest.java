@@ -0,0 +1,101 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+public class FulfillmentBatchResourceTest {
+
+  @Test
+  void batch_reportsEveryItemAndCountsEarlierItems() {
+    long storeId = newStore();
+
+    given()
+        .contentType(ContentType.JSON)
+        .body("""
+            {
+              "fulfillments": [
+                {"productId": 1, "storeId": %1$d, "warehouseBusinessUnitCode": "MWH.001"},
+                {"productId": 1, "storeId": %1$d, "warehouseBusinessUnitCode": "MWH.023"},
+                {"productId": 1, "storeId": %1$d, "warehouseBusinessUnitCode": "MWH.012"},
+                {"productId": 1, "storeId": %1$d, "warehouseBusinessUnitCode": "MWH.001"},
+                {"productId": 999, "storeId": %1$d, "warehouseBusinessUnitCode": "MWH.001"},
+                {"productId": 2, "storeId": %1$d, "warehouseBusinessUnitCode": "MWH.024"},
+                {"productId": 2, "storeId": %1$d, "warehouseBusinessUnitCode": "MWH.001"},
+                {"storeId": %1$d, "warehouseBusinessUnitCode": "MWH.001"}
+              ]
+            }
+            """.formatted(storeId))
+        .when()
+        .post("fulfillments/batch")
+        .then()
+        .statusCode(200)
+        .body("applied", equalTo(3))
+        .body("rejected", equalTo(5))
+        .body("results.status", contains(200, 200, 400, 409, 404, 404, 200, 400))
+        .body("results[2].error", equalTo("Product can have max 2 warehouses per store"))
+        .body("results[3].error", equalTo("Fulfillment appears earlier in the batch"))
+        .body("results[4].error", equalTo("Product not found"))
+        .body("results[5].error", equalTo("Warehouse not found"))
+        .body("results[0].id", notNullValue())
+        .body("results[2].id", nullValue());
+  }
+
+  @Test
+  void batch_existingFulfillmentAndStoreLimit_areRejected() {
+    long storeId = newStore();
+
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"productId\":2,\"storeId\":%d,\"warehouseBusinessUnitCode\":\"MWH.001\"}".formatted(storeId))
+        .when().post("fulfillments")
+        .then()
+        .statusCode(201);
+
+    given()
+        .contentType(ContentType.JSON)
+        .body("""
+            {
+              "fulfillments": [
+                {"productId": 2, "storeId": %1$d, "warehouseBusinessUnitCode": "MWH.001"},
+                {"productId": 3, "storeId": %1$d, "warehouseBusinessUnitCode": "MWH.023"}
+              ]
+            }
+            """.formatted(storeId))
+        .when()
+        .post("fulfillments/batch")
+        .then()
+        .statusCode(200)
+        .body("results.status", contains(409, 200))
+        .body("results[0].error", equalTo("Fulfillment already exists"));
+
+    given().when().get("fulfillments/2/fulfillment").then()
+        .statusCode(200)
+        .body("findAll { it.storeId == %d }.size()".formatted(storeId), equalTo(1));
+  }
+
+  @Test
+  void batch_empty_isRejected() {
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"fulfillments\": []}")
+        .when()
+        .post("fulfillments/batch")
+        .then()
+        .statusCode(400)
+        .body("error", equalTo("Batch contains no fulfillments"));
+  }
+
+  private static long newStore() {
+    return given()
+        .contentType(ContentType.JSON)
+        .body("{\"name\":\"BATCH-%s\",\"quantityProductsInStock\":1}".formatted(Long.toString(System.nanoTime(), 36)))
+        .when().post("/store")
+        .then().statusCode(201)
+        .extract().jsonPath().getLong("id");
+  }
+}
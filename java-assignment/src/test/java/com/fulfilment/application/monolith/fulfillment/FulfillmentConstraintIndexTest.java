@@ -0,0 +1,126 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fulfilment.application.monolith.fulfillment.FulfillmentResource.FulfillmentRequest;
+import com.fulfilment.application.monolith.stores.Store;
+import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Many threads create and delete fulfillments over a few stores and warehouses. Whatever the
+ * interleaving, the table must respect the limits and the index must match the table afterwards.
+ */
+@QuarkusTest
+public class FulfillmentConstraintIndexTest {
+
+  private static final int STORES = 3;
+  private static final int WAREHOUSES = 4;
+  private static final int PRODUCTS = 6;
+  private static final int THREADS = 8;
+  private static final int OPERATIONS_PER_THREAD = 60;
+
+  @Inject FulfillmentResource fulfillmentResource;
+  @Inject FulfillmentRepository fulfillmentRepository;
+  @Inject FulfillmentConstraintIndex constraintIndex;
+  @Inject WarehouseRepository warehouseRepository;
+
+  @Test
+  void concurrentCreatesAndDeletes_indexMatchesTable() throws Exception {
+    String run = Long.toString(System.nanoTime(), 36).toUpperCase();
+    List<Long> stores = new ArrayList<>();
+    List<String> warehouses = new ArrayList<>();
+    QuarkusTransaction.requiringNew().run(() -> {
+      for (int s = 0; s < STORES; s++) {
+        Store store = new Store("FULFIL-" + run + "-" + s);
+        store.persist();
+        stores.add(store.id);
+      }
+      for (int w = 0; w < WAREHOUSES; w++) {
+        Warehouse warehouse = new Warehouse();
+        warehouse.businessUnitCode = "FULFIL-" + run + "-" + w;
+        warehouse.location = "FULFIL-" + run;
+        warehouse.capacity = 10;
+        warehouse.stock = 0;
+        warehouseRepository.create(warehouse);
+        warehouses.add(warehouse.businessUnitCode);
+      }
+    });
+
+    ConcurrentLinkedQueue<Long> created = new ConcurrentLinkedQueue<>();
+    AtomicInteger rejected = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    List<Future<?>> futures = new ArrayList<>();
+
+    for (int t = 0; t < THREADS; t++) {
+      Random random = new Random(t);
+      futures.add(executor.submit(() -> {
+        start.await();
+        for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+          Long deletable = random.nextInt(3) == 0 ? created.poll() : null;
+          if (deletable != null) {
+            fulfillmentResource.delete(deletable);
+            continue;
+          }
+          FulfillmentRequest request = new FulfillmentRequest();
+          request.productId = 1L + random.nextInt(PRODUCTS);
+          request.storeId = stores.get(random.nextInt(STORES));
+          request.warehouseBusinessUnitCode = warehouses.get(random.nextInt(WAREHOUSES));
+          try {
+            Fulfillment fulfillment = (Fulfillment) fulfillmentResource.create(request).getEntity();
+            created.add(fulfillment.id);
+          } catch (WebApplicationException e) {
+            assertEquals(400, e.getResponse().getStatus());
+            rejected.incrementAndGet();
+          } catch (RuntimeException e) {
+            // the same fulfillment twice passes the limits and is rolled back by the unique constraint
+            rejected.incrementAndGet();
+          }
+        }
+        return null;
+      }));
+    }
+
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get(2, TimeUnit.MINUTES);
+    }
+    executor.shutdown();
+    assertTrue(rejected.get() > 0);
+
+    QuarkusTransaction.requiringNew().run(() -> {
+      for (Long store : stores) {
+        long warehousesForStore = fulfillmentRepository.countWarehouseByStore(store);
+        assertTrue(warehousesForStore <= FulfillmentVerdict.MAX_WAREHOUSES_PER_STORE);
+        assertEquals(warehousesForStore, constraintIndex.warehousesForStore(store));
+        for (long product = 1; product <= PRODUCTS; product++) {
+          long forProductAndStore = fulfillmentRepository.countWarehouseByProductAndStore(product, store);
+          assertTrue(forProductAndStore <= FulfillmentVerdict.MAX_WAREHOUSES_PER_PRODUCT_AND_STORE);
+          assertEquals(forProductAndStore, constraintIndex.warehousesForProductAndStore(product, store));
+        }
+      }
+      for (String warehouse : warehouses) {
+        long productsForWarehouse = fulfillmentRepository.countProductByWarehouse(warehouse);
+        assertTrue(productsForWarehouse <= FulfillmentVerdict.MAX_PRODUCTS_PER_WAREHOUSE);
+        assertEquals(productsForWarehouse, constraintIndex.productsForWarehouse(warehouse));
+      }
+    });
+  }
+}
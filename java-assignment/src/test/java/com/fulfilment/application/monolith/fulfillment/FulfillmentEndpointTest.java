@@ -6,6 +6,9 @@ import org.junit.jupiter.api.*;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @QuarkusTest
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
@@ -199,4 +202,21 @@ public class FulfillmentEndpointTest {
         .statusCode(400)
         .body("error", equalTo("Warehouse can store max 5 product types"));
   }
+
+  @Test
+  @Order(11)
+  public void testExportFulfillments() {
+    int fulfillments = given().when().get("fulfillments").then().statusCode(200)
+        .extract().jsonPath().getList("$").size();
+
+    String body = given()
+        .when().get("fulfillments/export")
+        .then()
+        .statusCode(200)
+        .header("Content-Type", startsWith("application/x-ndjson"))
+        .extract().asString();
+
+    assertEquals(fulfillments, body.lines().count());
+    assertTrue(body.lines().allMatch(line -> line.contains("\"warehouseBusinessUnitCode\":")));
+  }
 }
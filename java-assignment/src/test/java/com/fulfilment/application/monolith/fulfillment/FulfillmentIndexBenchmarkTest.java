@@ -0,0 +1,105 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Latency of the database-side rule check ({@link FulfillmentRepository#verdictFor}, what creates
+ * use when the constraint index is disabled or cold) over one million synthetic fulfillments, with
+ * the V2 fulfillment indexes and after dropping them. Everything happens in one
+ * transaction that is rolled back, so neither the rows nor the dropped indexes outlive the test.
+ * Tagged {@code benchmark}: it only runs with {@code -Pbenchmark}.
+ */
+@QuarkusTest
+@Tag("benchmark")
+public class FulfillmentIndexBenchmarkTest {
+
+  private static final Logger LOGGER = Logger.getLogger(FulfillmentIndexBenchmarkTest.class.getName());
+  private static final int ROWS = 1_000_000;
+  private static final int WAREHOUSES = 20_000;
+  private static final int PRODUCTS = 7_919;
+  private static final int ITERATIONS = 200;
+  private static final int ITERATIONS_WITHOUT_INDEXES = 20;
+
+  @Inject FulfillmentRepository fulfillmentRepository;
+
+  @Test
+  void verdictFor_oneMillionRows_usesTheIndexes() {
+    QuarkusTransaction.requiringNew().timeout(600).run(() -> {
+      EntityManager em = fulfillmentRepository.getEntityManager();
+      // three warehouses per store and unique (product, store, warehouse) by construction;
+      // negative ids keep the sequence untouched
+      long started = System.nanoTime();
+      em.createNativeQuery(
+              "INSERT INTO fulfillment (id, productId, storeId, warehouseBusinessUnitCode)"
+                  + " SELECT -g, 1000000 + g % " + PRODUCTS + ", 1000000 + g / 3, 'SYN-' || (g % " + WAREHOUSES + ")"
+                  + " FROM generate_series(0, " + (ROWS - 1) + ") g")
+          .executeUpdate();
+      em.createNativeQuery("ANALYZE fulfillment").executeUpdate();
+      LOGGER.infof("fulfillment index benchmark: loaded %s rows in %sms",
+              ROWS, (System.nanoTime() - started) / 1_000_000);
+
+      assertTrue(plan(em).contains("ix_fulfillment_store_warehouse"));
+      assertTrue(plan(em).contains("ix_fulfillment_warehouse_product"));
+      long[] indexed = measure(ITERATIONS);
+
+      em.createNativeQuery("DROP INDEX ix_fulfillment_store_warehouse, ix_fulfillment_warehouse_product")
+          .executeUpdate();
+      long[] scanned = measure(ITERATIONS_WITHOUT_INDEXES);
+
+      LOGGER.infof(
+              "verdictFor over %s rows: indexed p50=%sus p99=%sus | without indexes p50=%sus p99=%sus",
+              ROWS, indexed[0] / 1000, indexed[1] / 1000, scanned[0] / 1000, scanned[1] / 1000);
+      assertTrue(indexed[0] < scanned[0]);
+
+      QuarkusTransaction.setRollbackOnly();
+    });
+
+    assertEquals(0, QuarkusTransaction.requiringNew().call(
+            () -> fulfillmentRepository.count("id < 0")));
+  }
+
+  /** p50 and p99 latency of {@code iterations} rule checks on random existing rows. */
+  private long[] measure(int iterations) {
+    Random random = new Random(7);
+    // warm-up
+    check(random);
+    long[] nanos = new long[iterations];
+    for (int i = 0; i < iterations; i++) {
+      long start = System.nanoTime();
+      check(random);
+      nanos[i] = System.nanoTime() - start;
+    }
+    Arrays.sort(nanos);
+    return new long[] {nanos[iterations / 2], nanos[iterations * 99 / 100]};
+  }
+
+  private void check(Random random) {
+    int g = random.nextInt(ROWS);
+    FulfillmentVerdict verdict = fulfillmentRepository.verdictFor(
+            1_000_000L + g % PRODUCTS, 1_000_000L + g / 3, "SYN-" + (g % WAREHOUSES));
+    assertEquals(1, verdict.warehousesForProductAndStore);
+    assertEquals(Math.min(3, ROWS - (g / 3) * 3), verdict.warehousesForStore);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static String plan(EntityManager em) {
+    List<String> lines = em.createNativeQuery(
+            "EXPLAIN SELECT"
+                + " (SELECT COUNT(DISTINCT warehouseBusinessUnitCode) FROM fulfillment WHERE storeId = 1000001),"
+                + " (SELECT COUNT(DISTINCT productId) FROM fulfillment WHERE warehouseBusinessUnitCode = 'SYN-1')")
+        .getResultList();
+    return String.join("\n", lines);
+  }
+}
@@ -0,0 +1,109 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+public class FulfillmentQueryResourceTest {
+
+  @Test
+  void listByStore_keysetPagination() {
+    long storeId = storeWithThreeFulfillments();
+
+    var firstPage = given()
+        .queryParam("limit", 2)
+        .when().get("fulfillments/stores/" + storeId)
+        .then()
+        .statusCode(200)
+        .body("size()", equalTo(2))
+        .body("storeId", everyItem(equalTo((int) storeId)))
+        .header("X-Next-Cursor", notNullValue())
+        .extract();
+
+    long lastId = firstPage.jsonPath().getLong("[1].id");
+    given()
+        .queryParam("limit", 2)
+        .queryParam("after", firstPage.header("X-Next-Cursor"))
+        .when().get("fulfillments/stores/" + storeId)
+        .then()
+        .statusCode(200)
+        .body("size()", equalTo(1))
+        .body("[0].id", greaterThan((int) lastId))
+        .header("X-Next-Cursor", nullValue());
+  }
+
+  @Test
+  void listByWarehouseAndProduct_filterTheRows() {
+    long storeId = storeWithThreeFulfillments();
+
+    given()
+        .when().get("fulfillments/warehouses/MWH.023")
+        .then()
+        .statusCode(200)
+        .body("warehouseBusinessUnitCode", everyItem(equalTo("MWH.023")))
+        .body("findAll { it.storeId == %d }.productId".formatted(storeId), contains(1));
+
+    given()
+        .queryParam("limit", 1000)
+        .when().get("fulfillments/products/1")
+        .then()
+        .statusCode(200)
+        .body("productId", everyItem(equalTo(1)))
+        .body("findAll { it.storeId == %d }.size()".formatted(storeId), equalTo(2));
+  }
+
+  @Test
+  void list_invalidLimit_isRejected() {
+    given()
+        .queryParam("limit", 0)
+        .when().get("fulfillments/stores/1")
+        .then()
+        .statusCode(400);
+  }
+
+  @Test
+  void list_invalidCursor_isRejected() {
+    given()
+        .queryParam("after", "not a cursor")
+        .when().get("fulfillments/stores/1")
+        .then()
+        .statusCode(400);
+
+    // a raw id is not a cursor either
+    given()
+        .queryParam("after", "12")
+        .when().get("fulfillments/stores/1")
+        .then()
+        .statusCode(400);
+  }
+
+  private static long storeWithThreeFulfillments() {
+    long storeId = given()
+        .contentType(ContentType.JSON)
+        .body("{\"name\":\"QUERY-%s\",\"quantityProductsInStock\":1}".formatted(Long.toString(System.nanoTime(), 36)))
+        .when().post("/store")
+        .then().statusCode(201)
+        .extract().jsonPath().getLong("id");
+
+    given()
+        .contentType(ContentType.JSON)
+        .body("""
+            {
+              "fulfillments": [
+                {"productId": 1, "storeId": %1$d, "warehouseBusinessUnitCode": "MWH.001"},
+                {"productId": 2, "storeId": %1$d, "warehouseBusinessUnitCode": "MWH.001"},
+                {"productId": 1, "storeId": %1$d, "warehouseBusinessUnitCode": "MWH.023"}
+              ]
+            }
+            """.formatted(storeId))
+        .when().post("fulfillments/batch")
+        .then()
+        .statusCode(200)
+        .body("applied", equalTo(3));
+    return storeId;
+  }
+}
@@ -0,0 +1,60 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class LongCountsTest {
+
+  @Test
+  void randomAddsAndRemoves_matchHashMap() {
+    Random random = new Random(42);
+    LongCounts counts = new LongCounts();
+    LongObjectMap<Long> map = new LongObjectMap<>(4);
+    Map<Long, Integer> expectedCounts = new HashMap<>();
+    Map<Long, Long> expectedMap = new HashMap<>();
+
+    for (int i = 0; i < 200_000; i++) {
+      // negative and colliding keys on purpose
+      long key = (random.nextInt(512) - 256) * 1024L;
+      if (random.nextBoolean()) {
+        counts.add(key);
+        expectedCounts.merge(key, 1, Integer::sum);
+        map.put(key, (long) i);
+        expectedMap.put(key, (long) i);
+      } else {
+        assertEquals(expectedCounts.containsKey(key), counts.remove(key));
+        expectedCounts.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+        map.remove(key);
+        expectedMap.remove(key);
+      }
+      assertEquals(expectedCounts.getOrDefault(key, 0), counts.count(key));
+      assertEquals(expectedMap.get(key), map.get(key));
+    }
+
+    assertEquals(expectedCounts.size(), counts.distinct());
+    assertEquals(expectedMap.size(), map.size());
+    for (long key = -256 * 1024L; key < 256 * 1024L; key += 1024) {
+      assertEquals(expectedCounts.getOrDefault(key, 0), counts.count(key));
+      assertEquals(expectedMap.get(key), map.get(key));
+    }
+  }
+
+  @Test
+  void remove_missingKey_isIgnored() {
+    LongCounts counts = new LongCounts();
+    assertFalse(counts.remove(7));
+
+    LongObjectMap<String> map = new LongObjectMap<>(4);
+    map.remove(7);
+    map.put(7, "seven");
+    map.clear();
+    assertNull(map.get(7));
+    assertEquals(0, map.size());
+  }
+}
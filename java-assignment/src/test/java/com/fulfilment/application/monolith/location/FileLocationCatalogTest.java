@@ -0,0 +1,81 @@
+package com.fulfilment.application.monolith.location;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FileLocationCatalogTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void resolve_knownAndUnknownIdentifiers() throws IOException {
+    FileLocationCatalog catalog = catalog(write("""
+            identification,maxNumberOfWarehouses,maxCapacity
+            # comment
+            ZWOLLE-001,1,40
+            AMSTERDAM-001, 5, 100
+            """, 1));
+
+    Location amsterdam = catalog.resolveByIdentifier("AMSTERDAM-001");
+    assertEquals("AMSTERDAM-001", amsterdam.identification);
+    assertEquals(5, amsterdam.maxNumberOfWarehouses);
+    assertEquals(100, amsterdam.maxCapacity);
+    assertEquals(2, catalog.size());
+
+    assertNull(catalog.resolveByIdentifier("ZWOLLE-003"));
+    assertNull(catalog.resolveByIdentifier(null));
+    assertNull(catalog.resolveByIdentifier(""));
+  }
+
+  @Test
+  void reload_swapsCatalogOnlyWhenFileChanges() throws IOException {
+    Path file = write("ZWOLLE-001,1,40\n", 1);
+    FileLocationCatalog catalog = catalog(file);
+
+    assertFalse(catalog.reloadIfChanged());
+
+    write("ZWOLLE-001,2,60\nTILBURG-001,1,40\n", 2);
+    assertTrue(catalog.reloadIfChanged());
+    assertEquals(60, catalog.resolveByIdentifier("ZWOLLE-001").maxCapacity);
+    assertEquals("TILBURG-001", catalog.resolveByIdentifier("TILBURG-001").identification);
+  }
+
+  @Test
+  void reload_invalidFile_keepsPreviousCatalog() throws IOException {
+    Path file = write("ZWOLLE-001,1,40\n", 1);
+    FileLocationCatalog catalog = catalog(file);
+
+    write("ZWOLLE-001,1,40\nZWOLLE-001,2,50\n", 2);
+    assertThrows(IllegalArgumentException.class, catalog::reloadIfChanged);
+    write("ZWOLLE-002,one,50\n", 3);
+    assertThrows(IllegalArgumentException.class, catalog::reloadIfChanged);
+
+    assertEquals(40, catalog.resolveByIdentifier("ZWOLLE-001").maxCapacity);
+  }
+
+  private FileLocationCatalog catalog(Path file) throws IOException {
+    FileLocationCatalog catalog = new FileLocationCatalog();
+    catalog.path = file.toString();
+    catalog.refresh = Duration.ofSeconds(30);
+    assertTrue(catalog.reloadIfChanged());
+    return catalog;
+  }
+
+  // explicit timestamps so consecutive writes never share a modification time
+  private Path write(String csv, int version) throws IOException {
+    Path file = dir.resolve("locations.csv");
+    Files.writeString(file, csv);
+    Files.setLastModifiedTime(file, FileTime.from(Instant.ofEpochSecond(1_700_000_000L + version)));
+    return file;
+  }
+}
@@ -0,0 +1,116 @@
+package com.fulfilment.application.monolith.location;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Lookup cost of the file-backed catalog against a list scan (how {@link LocationGateway} resolved
+ * locations before they moved to the database), at catalog sizes we run in production. Half of
+ * the lookups miss. Tagged {@code benchmark}: it only runs with {@code -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class LocationCatalogBenchmarkTest {
+
+  private static final Logger LOGGER = Logger.getLogger(LocationCatalogBenchmarkTest.class.getName());
+  private static final int KEYS = 1024;
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void catalog_10kLocations() throws IOException {
+    compare(10_000);
+  }
+
+  @Test
+  void catalog_100kLocations() throws IOException {
+    compare(100_000);
+  }
+
+  private void compare(int size) throws IOException {
+    List<Location> locations = new ArrayList<>(size);
+    StringBuilder csv = new StringBuilder();
+    for (int i = 0; i < size; i++) {
+      locations.add(new Location("LOC-" + i, 1 + i % 5, 100 + i % 500));
+      csv.append("LOC-").append(i).append(',').append(1 + i % 5).append(',').append(100 + i % 500).append('\n');
+    }
+    Path file = dir.resolve("locations-" + size + ".csv");
+    Files.writeString(file, csv);
+
+    FileLocationCatalog catalog = new FileLocationCatalog();
+    catalog.path = file.toString();
+    catalog.refresh = Duration.ofSeconds(30);
+    catalog.reloadIfChanged();
+
+    String[] keys = new String[KEYS];
+    for (int i = 0; i < KEYS; i++) {
+      keys[i] = i % 2 == 0 ? "LOC-" + (i * 7919 % size) : "MISSING-" + i;
+    }
+
+    // the scan is linear in the catalog size, so it gets fewer rounds
+    double scanNanos = nanosPerLookup(identifier -> scan(locations, identifier), keys, Math.max(1, 1_000_000 / size));
+    double catalogNanos = nanosPerLookup(catalog::resolveByIdentifier, keys, 2_000);
+    long catalogBytes = bytesAllocated(() -> lookupAll(catalog::resolveByIdentifier, keys, 1_000));
+    LOGGER.infof("locations=%s scan=%.0fns/lookup catalog=%.1fns/lookup catalog allocation=%s bytes/%s lookups",
+            size, scanNanos, catalogNanos, catalogBytes, KEYS * 1_000);
+
+    assertEquals(size, catalog.size());
+    assertTrue(catalogNanos < scanNanos);
+    if (catalogBytes >= 0) {
+      // allows for the odd TLAB refill; a per-lookup allocation would be megabytes
+      assertTrue(catalogBytes < 64 * 1024, "catalog lookups allocated " + catalogBytes + " bytes");
+    }
+  }
+
+  private static Location scan(List<Location> locations, String identifier) {
+    return locations.stream()
+            .filter(location -> identifier != null && identifier.equals(location.identification))
+            .findFirst()
+            .orElse(null);
+  }
+
+  private static double nanosPerLookup(Function<String, Location> resolver, String[] keys, int rounds) {
+    lookupAll(resolver, keys, Math.max(1, rounds / 10));
+    long start = System.nanoTime();
+    lookupAll(resolver, keys, rounds);
+    return (double) (System.nanoTime() - start) / ((long) rounds * keys.length);
+  }
+
+  private static long lookupAll(Function<String, Location> resolver, String[] keys, int rounds) {
+    long sink = 0;
+    for (int round = 0; round < rounds; round++) {
+      for (String key : keys) {
+        Location location = resolver.apply(key);
+        sink += location == null ? 0 : location.maxCapacity;
+      }
+    }
+    return sink;
+  }
+
+  // -1 when the JVM cannot report per-thread allocation
+  private static long bytesAllocated(Runnable work) {
+    if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads)
+            || !threads.isThreadAllocatedMemorySupported()) {
+      return -1;
+    }
+    work.run();
+    long threadId = Thread.currentThread().getId();
+    long before = threads.getThreadAllocatedBytes(threadId);
+    work.run();
+    return threads.getThreadAllocatedBytes(threadId) - before;
+  }
+}
@@ -1,19 +1,22 @@
 package com.fulfilment.application.monolith.location;
 
 import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
 import org.junit.jupiter.api.Test;
 
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+@QuarkusTest
 public class LocationGatewayTest {
 
+  @Inject
+  LocationGateway locationGateway;
+
   @Test
   public void testWhenResolveExistingLocationShouldReturn() {
-    // given
-    LocationGateway locationGateway = new LocationGateway();
-
     // when
     Location location = locationGateway.resolveByIdentifier("ZWOLLE-001");
 
@@ -24,54 +27,37 @@ public class LocationGatewayTest {
   }
 
   @Test
-  public void testWhenResolveLocationShouldReturnBlank() {
-    // given
-    LocationGateway locationGateway = new LocationGateway();
-
+  public void testWhenResolveLocationShouldReturnNull() {
     // when
     Location location = locationGateway.resolveByIdentifier("ZWOLLE-003");
 
     // then
-    assertEquals("", location.identification);
-    assertEquals(0, location.maxNumberOfWarehouses);
-    assertEquals(0, location.maxCapacity);
+    assertNull(location);
   }
 
   @Test
-  public void testWhenResolveBlankLocationShouldReturn() {
-    // given
-    LocationGateway locationGateway = new LocationGateway();
-
+  public void testWhenResolveBlankLocationShouldReturnNull() {
     // when
     Location location = locationGateway.resolveByIdentifier("  ");
 
     // then
-    assertEquals("", location.identification);
-    assertEquals(0, location.maxNumberOfWarehouses);
-    assertEquals(0, location.maxCapacity);
+    assertNull(location);
   }
 
   @Test
-  public void testWhenResolveEmptyStringLocationShouldReturnBlank() {
-    LocationGateway locationGateway = new LocationGateway();
+  public void testWhenResolveEmptyStringLocationShouldReturnNull() {
     Location location = locationGateway.resolveByIdentifier("");
-    assertEquals("", location.identification);
-    assertEquals(0, location.maxNumberOfWarehouses);
-    assertEquals(0, location.maxCapacity);
+    assertNull(location);
   }
 
   @Test
-  public void testWhenResolveNullLocationShouldReturnBlank() {
-    LocationGateway locationGateway = new LocationGateway();
+  public void testWhenResolveNullLocationShouldReturnNull() {
     Location location = locationGateway.resolveByIdentifier(null);
-    assertEquals("", location.identification);
-    assertEquals(0, location.maxNumberOfWarehouses);
-    assertEquals(0, location.maxCapacity);
+    assertNull(location);
   }
 
   @Test
   public void testResolveAmsterdamLocation() {
-    LocationGateway locationGateway = new LocationGateway();
     Location location = locationGateway.resolveByIdentifier("AMSTERDAM-001");
     assertEquals("AMSTERDAM-001", location.identification);
     assertEquals(5, location.maxNumberOfWarehouses);
@@ -80,7 +66,6 @@ public class LocationGatewayTest {
 
   @Test
   public void testResolveTilburgLocation() {
-    LocationGateway locationGateway = new LocationGateway();
     Location location = locationGateway.resolveByIdentifier("TILBURG-001");
     assertEquals("TILBURG-001", location.identification);
     assertEquals(1, location.maxNumberOfWarehouses);
@@ -89,7 +74,6 @@ public class LocationGatewayTest {
 
   @Test
   public void testResolveEindhovenLocation() {
-    LocationGateway locationGateway = new LocationGateway();
     Location location = locationGateway.resolveByIdentifier("EINDHOVEN-001");
     assertEquals("EINDHOVEN-001", location.identification);
     assertEquals(2, location.maxNumberOfWarehouses);
@@ -98,8 +82,6 @@ public class LocationGatewayTest {
 
   @Test
   public void testResolveAllLocations() {
-    LocationGateway locationGateway = new LocationGateway();
-    
     Location zwolle2 = locationGateway.resolveByIdentifier("ZWOLLE-002");
     assertEquals("ZWOLLE-002", zwolle2.identification);
     assertEquals(2, zwolle2.maxNumberOfWarehouses);
@@ -122,8 +104,7 @@ public class LocationGatewayTest {
   }
   @Test
   void testIdentifierIsNull() {
-    LocationGateway locationGateway = new LocationGateway();
     Location result = locationGateway.resolveByIdentifier(null);
-    assertEquals("", result.identification);
+    assertNull(result);
   }
 }
@@ -0,0 +1,143 @@
+package com.fulfilment.application.monolith.location;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+public class LocationResourceTest {
+
+  @Inject LocationGateway locationGateway;
+  @Inject SessionFactory sessionFactory;
+
+  @Test
+  public void testListSeededLocations() {
+    given()
+        .when()
+        .get("location")
+        .then()
+        .statusCode(200)
+        .body(containsString("ZWOLLE-001"), containsString("AMSTERDAM-001"), containsString("VETSBY-001"));
+  }
+
+  @Test
+  public void testCrudLocation_invalidatesResolverCache() {
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"identification\":\"UTRECHT-001\",\"maxNumberOfWarehouses\":2,\"maxCapacity\":60}")
+        .when()
+        .post("location")
+        .then()
+        .statusCode(201)
+        .body("identification", equalTo("UTRECHT-001"));
+
+    assertEquals(60, locationGateway.resolveByIdentifier("UTRECHT-001").maxCapacity);
+
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"maxNumberOfWarehouses\":3,\"maxCapacity\":90}")
+        .when()
+        .put("location/UTRECHT-001")
+        .then()
+        .statusCode(200)
+        .body("maxCapacity", equalTo(90));
+
+    Location updated = locationGateway.resolveByIdentifier("UTRECHT-001");
+    assertEquals(3, updated.maxNumberOfWarehouses);
+    assertEquals(90, updated.maxCapacity);
+
+    given().when().delete("location/UTRECHT-001").then().statusCode(204);
+    given().when().get("location/UTRECHT-001").then().statusCode(404);
+    assertNull(locationGateway.resolveByIdentifier("UTRECHT-001"));
+  }
+
+  @Test
+  public void testRepeatedResolve_doesNotQueryTheDatabase() {
+    locationGateway.resolveByIdentifier("HELMOND-001");
+
+    Statistics statistics = sessionFactory.getStatistics();
+    long statementsBefore = statistics.getPrepareStatementCount();
+    for (int i = 0; i < 100; i++) {
+      assertEquals(45, locationGateway.resolveByIdentifier("HELMOND-001").maxCapacity);
+    }
+    assertEquals(statementsBefore, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  public void testSummary_followsCommittedWarehouseChanges() {
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"identification\":\"ROLLUPCITY-001\",\"maxNumberOfWarehouses\":2,\"maxCapacity\":100}")
+        .when()
+        .post("location")
+        .then()
+        .statusCode(201);
+    given().when().get("location/ROLLUPCITY/summary").then().statusCode(200).body("activeWarehouses", equalTo(0));
+
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"businessUnitCode\":\"ROLLUP-WH-001\",\"location\":\"ROLLUPCITY-001\",\"capacity\":40,\"stock\":10}")
+        .when()
+        .post("warehouse")
+        .then()
+        .statusCode(200);
+
+    given()
+        .when()
+        .get("location/ROLLUPCITY/summary")
+        .then()
+        .statusCode(200)
+        .body("prefix", equalTo("ROLLUPCITY"))
+        .body("locations", equalTo(1))
+        .body("activeWarehouses", equalTo(1))
+        .body("totalCapacity", equalTo(40))
+        .body("totalStock", equalTo(10))
+        .body("utilization", equalTo(0.25f));
+
+    given().when().delete("warehouse/ROLLUP-WH-001").then().statusCode(204);
+    given()
+        .when()
+        .get("location/ROLLUPCITY/summary")
+        .then()
+        .statusCode(200)
+        .body("locations", equalTo(0))
+        .body("totalCapacity", equalTo(0));
+  }
+
+  @Test
+  public void testCreateDuplicateLocation() {
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"identification\":\"ZWOLLE-001\",\"maxNumberOfWarehouses\":1,\"maxCapacity\":40}")
+        .when()
+        .post("location")
+        .then()
+        .statusCode(409);
+  }
+
+  @Test
+  public void testCreateInvalidLimits() {
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"identification\":\"UTRECHT-002\",\"maxNumberOfWarehouses\":0,\"maxCapacity\":40}")
+        .when()
+        .post("location")
+        .then()
+        .statusCode(422);
+  }
+
+  @Test
+  public void testDeleteLocationWithActiveWarehouses() {
+    given().when().delete("location/AMSTERDAM-001").then().statusCode(409);
+  }
+}
@@ -3,7 +3,10 @@ package com.fulfilment.application.monolith.products;
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.startsWith;
 import static org.hamcrest.core.IsNot.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.http.ContentType;
@@ -143,4 +146,23 @@ public class ProductEndpointTest {
         .statusCode(400)
         .body("code", equalTo(400));
   }
+
+  @Test
+  public void testExportProducts() {
+    int products = given().when().get("product").then().statusCode(200)
+        .extract().jsonPath().getList("$").size();
+
+    String body =
+        given()
+            .when()
+            .get("product/export")
+            .then()
+            .statusCode(200)
+            .header("Content-Type", startsWith("application/x-ndjson"))
+            .extract()
+            .asString();
+
+    assertEquals(products, body.lines().count());
+    assertTrue(body.lines().allMatch(line -> line.startsWith("{\"id\":")));
+  }
 }
@@ -0,0 +1,206 @@
+package com.fulfilment.application.monolith.products;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+public class ProductStockBufferTest {
+
+  private static final int THREADS = 8;
+  private static final int ADJUSTMENTS_PER_THREAD = 500;
+
+  @Inject ProductStockBuffer stockBuffer;
+  @Inject EntityManager entityManager;
+
+  @Test
+  void adjust_isBufferedUntilOneFlushWritesTheNetDelta() throws Exception {
+    long id = create(50);
+
+    // every thread adds 2 and takes 1 per round
+    run(() -> {
+      for (int i = 0; i < ADJUSTMENTS_PER_THREAD; i++) {
+        stockBuffer.adjust(id, 2);
+        stockBuffer.adjust(id, -1);
+      }
+    });
+    int expected = 50 + THREADS * ADJUSTMENTS_PER_THREAD;
+
+    assertEquals(50, persistedStock(id));
+    assertEquals(expected, stockBuffer.stock(id));
+
+    assertEquals(1, stockBuffer.flush());
+    assertEquals(expected, persistedStock(id));
+    assertEquals(expected, stockBuffer.stock(id));
+    assertEquals(0, stockBuffer.flush());
+  }
+
+  @Test
+  void adjust_decrementsNeverTakeTheMergedStockBelowZero() throws Exception {
+    long id = create(5);
+    stockBuffer.adjust(id, 3);
+
+    AtomicInteger applied = new AtomicInteger();
+    run(() -> {
+      for (int i = 0; i < 10; i++) {
+        if (stockBuffer.adjust(id, -1) != null) {
+          applied.incrementAndGet();
+        }
+      }
+    });
+
+    assertEquals(8, applied.get());
+    assertEquals(0, stockBuffer.stock(id));
+    stockBuffer.flush();
+    assertEquals(0, persistedStock(id));
+  }
+
+  @Test
+  void adjust_unknownProduct_isRefused() {
+    assertNull(stockBuffer.adjust(999_999, 1));
+    assertNull(stockBuffer.stock(999_999));
+  }
+
+  @Test
+  void recover_replaysUnflushedDeltasExactlyOnce() {
+    long id = create(10);
+    stockBuffer.adjust(id, 7);
+    stockBuffer.adjust(id, -2);
+
+    // a restart loses the counters, the journal still has the deltas
+    stockBuffer.recover();
+    assertEquals(15, stockBuffer.stock(id));
+    assertEquals(10, persistedStock(id));
+
+    stockBuffer.flush();
+    assertEquals(15, persistedStock(id));
+
+    // the checkpoint covers the flushed segment, so a second restart has nothing to replay
+    stockBuffer.recover();
+    assertNull(stockBuffer.stock(id));
+    assertEquals(0, stockBuffer.flush());
+    assertEquals(15, persistedStock(id));
+  }
+
+  @Test
+  void stockWrittenAroundTheBuffer_isReadAgainBeforeTheNextAdjustment() {
+    long id = create(10);
+    stockBuffer.adjust(id, 5);
+    stockBuffer.flush();
+    assertEquals(15, persistedStock(id));
+
+    put(id, 100);
+    assertEquals(103, stockBuffer.adjust(id, 3));
+    assertEquals(103, stockBuffer.stock(id));
+
+    stockBuffer.flush();
+    assertEquals(103, persistedStock(id));
+    assertEquals(103, stockBuffer.stock(id));
+  }
+
+  @Test
+  void stockWrittenAroundTheBuffer_discardsDeltasNotYetFlushed() {
+    long id = create(10);
+    stockBuffer.adjust(id, 5);
+
+    put(id, 100);
+    assertEquals(100, stockBuffer.stock(id));
+    assertEquals(1, stockBuffer.adjust(id, -99));
+
+    // the journal still has the +5, the reset record keeps replay from applying it
+    stockBuffer.recover();
+    assertEquals(1, stockBuffer.stock(id));
+    stockBuffer.flush();
+    assertEquals(1, persistedStock(id));
+  }
+
+  @Test
+  void flush_recordsADeltaThatWouldTakeStockBelowZero() {
+    long id = create(10);
+    stockBuffer.adjust(id, -8);
+
+    // a write the buffer does not hear about, like an update that commits while a flush is in flight
+    QuarkusTransaction.requiringNew().run(() -> entityManager
+        .createNativeQuery("UPDATE product SET stock = 5 WHERE id = :id")
+        .setParameter("id", id)
+        .executeUpdate());
+    assertEquals(1, stockBuffer.flush());
+    assertEquals(5, persistedStock(id));
+    assertEquals(5, stockBuffer.stock(id));
+
+    ProductStockRefusal refusal = QuarkusTransaction.requiringNew().call(() -> entityManager
+        .createQuery("FROM ProductStockRefusal r WHERE r.productId = :id", ProductStockRefusal.class)
+        .setParameter("id", id)
+        .getSingleResult());
+    assertEquals(-8, refusal.delta);
+    assertEquals(5, refusal.stock);
+  }
+
+  @Test
+  void deletedProduct_dropsItsCounter() {
+    long id = create(10);
+    stockBuffer.adjust(id, 1);
+
+    given().when().delete("product/" + id).then().statusCode(204);
+    assertNull(stockBuffer.stock(id));
+    assertEquals(0, stockBuffer.flush());
+  }
+
+  private void run(Runnable work) throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      futures.add(executor.submit(() -> {
+        start.await();
+        work.run();
+        return null;
+      }));
+    }
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get(2, TimeUnit.MINUTES);
+    }
+    executor.shutdown();
+  }
+
+  private long create(int stock) {
+    return QuarkusTransaction.requiringNew().call(() -> {
+      Product product = new Product("BUFFER-" + System.nanoTime());
+      product.stock = stock;
+      entityManager.persist(product);
+      return product.id;
+    });
+  }
+
+  private static void put(long id, int stock) {
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"name\":\"BUFFER-" + id + "\",\"stock\":" + stock + "}")
+        .when().put("product/" + id)
+        .then().statusCode(200);
+  }
+
+  private int persistedStock(long id) {
+    return QuarkusTransaction.requiringNew().call(() -> entityManager
+        .createQuery("SELECT p.stock FROM Product p WHERE p.id = :id", Integer.class)
+        .setParameter("id", id)
+        .getSingleResult());
+  }
+}
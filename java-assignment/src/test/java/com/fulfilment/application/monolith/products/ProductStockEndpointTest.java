@@ -0,0 +1,148 @@
+package com.fulfilment.application.monolith.products;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fulfilment.application.monolith.common.StockAdjustment;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+public class ProductStockEndpointTest {
+
+  private static final int THREADS = 16;
+  private static final int INITIAL_STOCK = 100;
+  private static final int INCREMENTS = 1_000;
+  private static final int DECREMENTS = 2_000;
+
+  @Inject ProductResource productResource;
+
+  @Test
+  void adjustStock_appliesTheDeltaAndReturnsTheNewStock() {
+    long id = create("STOCK-" + System.nanoTime(), 10);
+
+    given().contentType(ContentType.JSON).body("{\"delta\":5}")
+        .when().post("product/" + id + "/stock")
+        .then().statusCode(200).body("id", equalTo((int) id)).body("stock", equalTo(15));
+
+    given().contentType(ContentType.JSON).body("{\"delta\":-15}")
+        .when().post("product/" + id + "/stock")
+        .then().statusCode(200).body("stock", equalTo(0));
+
+    given().when().get("product/" + id).then().statusCode(200).body("stock", equalTo(0));
+  }
+
+  @Test
+  void adjustStock_belowZero_isRejectedAndChangesNothing() {
+    long id = create("STOCK-" + System.nanoTime(), 3);
+
+    given().contentType(ContentType.JSON).body("{\"delta\":-4}")
+        .when().post("product/" + id + "/stock")
+        .then().statusCode(409);
+
+    given().when().get("product/" + id).then().statusCode(200).body("stock", equalTo(3));
+  }
+
+  @Test
+  void adjustStock_pastIntMax_isRejectedAndChangesNothing() {
+    long id = create("STOCK-" + System.nanoTime(), Integer.MAX_VALUE - 1);
+
+    given().contentType(ContentType.JSON).body("{\"delta\":2}")
+        .when().post("product/" + id + "/stock")
+        .then().statusCode(422);
+
+    given().when().get("product/" + id).then().statusCode(200).body("stock", equalTo(Integer.MAX_VALUE - 1));
+  }
+
+  @Test
+  void adjustStock_unknownProductOrMissingDelta() {
+    given().contentType(ContentType.JSON).body("{\"delta\":1}")
+        .when().post("product/999999/stock")
+        .then().statusCode(404);
+
+    given().contentType(ContentType.JSON).body("{}")
+        .when().post("product/2/stock")
+        .then().statusCode(422);
+  }
+
+  @Test
+  void adjustStock_concurrentDeltas_loseNothingAndNeverGoNegative() throws Exception {
+    long id = create("STOCK-" + System.nanoTime(), INITIAL_STOCK);
+
+    List<Integer> deltas = new ArrayList<>();
+    for (int i = 0; i < INCREMENTS; i++) {
+      deltas.add(1);
+    }
+    for (int i = 0; i < DECREMENTS; i++) {
+      deltas.add(-1);
+    }
+    Collections.shuffle(deltas, new Random(42));
+
+    AtomicInteger next = new AtomicInteger();
+    AtomicInteger appliedDecrements = new AtomicInteger();
+    AtomicInteger rejected = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      futures.add(executor.submit(() -> {
+        start.await();
+        for (int i = next.getAndIncrement(); i < deltas.size(); i = next.getAndIncrement()) {
+          int delta = deltas.get(i);
+          try {
+            int stock = productResource.adjustStock(id, new StockAdjustment(delta)).stock;
+            assertTrue(stock >= 0);
+            if (delta < 0) {
+              appliedDecrements.incrementAndGet();
+            }
+          } catch (WebApplicationException e) {
+            assertEquals(409, e.getResponse().getStatus());
+            assertTrue(delta < 0);
+            rejected.incrementAndGet();
+          }
+        }
+        return null;
+      }));
+    }
+
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get(2, TimeUnit.MINUTES);
+    }
+    executor.shutdown();
+
+    // increments are never refused, so every refusal is a decrement that found no stock
+    assertEquals(DECREMENTS, appliedDecrements.get() + rejected.get());
+    int expected = INITIAL_STOCK + INCREMENTS - appliedDecrements.get();
+    assertTrue(expected >= 0);
+    assertTrue(rejected.get() >= DECREMENTS - INCREMENTS - INITIAL_STOCK);
+    given().when().get("product/" + id).then().statusCode(200).body("stock", equalTo(expected));
+  }
+
+  private static long create(String name, int stock) {
+    return given()
+        .contentType(ContentType.JSON)
+        .body("{\"name\":\"" + name + "\",\"stock\":" + stock + "}")
+        .when()
+        .post("product")
+        .then()
+        .statusCode(201)
+        .extract().jsonPath()
+        .getLong("id");
+  }
+}
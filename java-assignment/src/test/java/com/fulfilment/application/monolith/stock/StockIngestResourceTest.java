@@ -0,0 +1,135 @@
+package com.fulfilment.application.monolith.stock;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fulfilment.application.monolith.products.ProductStockBuffer;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+public class StockIngestResourceTest {
+
+  @Inject EntityManager entityManager;
+  @Inject ProductStockBuffer stockBuffer;
+
+  @Test
+  void ingest_appliesSnapshotsAndReportsProblems() {
+    long store = create("store", "{\"name\":\"INGEST-" + System.nanoTime() + "\",\"quantityProductsInStock\":1}");
+    long product = create("product", "{\"name\":\"INGEST-" + System.nanoTime() + "\",\"stock\":1}");
+
+    // with batches of 3 lines: 1, 2 and 4 commit together, the product line of 4 wins over 2
+    String body = String.join("\n",
+        "{\"type\":\"store\",\"id\":" + store + ",\"stock\":40}",
+        "{\"type\":\"product\",\"id\":" + product + ",\"stock\":7}",
+        "not json",
+        "{\"type\":\"product\",\"id\":" + product + ",\"stock\":9}",
+        "{\"type\":\"warehouse\",\"id\":1,\"stock\":1}",
+        "{\"type\":\"store\",\"id\":999999,\"stock\":1}",
+        "",
+        "{\"type\":\"product\",\"id\":" + product + ",\"stock\":-1}",
+        "{\"type\":\"store\",\"id\":" + store + ",\"stock\":41}");
+
+    given()
+        .contentType("application/x-ndjson")
+        .body(body)
+        .when()
+        .post("stock/ingest")
+        .then()
+        .statusCode(200)
+        .body("lines", equalTo(9))
+        .body("applied", equalTo(4))
+        .body("notFound", equalTo(1))
+        .body("rejected", equalTo(3))
+        .body("failed", equalTo(0))
+        .body("batches", equalTo(2))
+        .body("errors.size()", equalTo(4))
+        .body("errors[0]", startsWith("line 3: not a stock snapshot"))
+        .body("errors[3]", equalTo("line 6: Store with id of 999999 does not exist."));
+
+    given().when().get("store/" + store).then().statusCode(200).body("quantityProductsInStock", equalTo(41));
+    given().when().get("product/" + product).then().statusCode(200).body("stock", equalTo(9));
+
+    // the create and one update for both batches that touched the store: the second is coalesced
+    long events = QuarkusTransaction.requiringNew().call(() -> entityManager
+        .createQuery("SELECT COUNT(e) FROM StoreOutboxEvent e WHERE e.storeId = :id", Long.class)
+        .setParameter("id", store)
+        .getSingleResult());
+    assertEquals(2, events);
+  }
+
+  @Test
+  void ingest_longStream_appliesEveryBatch() {
+    long store = create("store", "{\"name\":\"INGEST-" + System.nanoTime() + "\",\"quantityProductsInStock\":0}");
+    long product = create("product", "{\"name\":\"INGEST-" + System.nanoTime() + "\",\"stock\":0}");
+
+    StringBuilder body = new StringBuilder();
+    for (int i = 1; i <= 1_500; i++) {
+      boolean toStore = i % 2 == 0;
+      body.append("{\"type\":\"").append(toStore ? "store" : "product").append("\",\"id\":")
+          .append(toStore ? store : product).append(",\"stock\":").append(i).append("}\n");
+    }
+
+    given()
+        .contentType("application/x-ndjson")
+        .body(body.toString())
+        .when()
+        .post("stock/ingest")
+        .then()
+        .statusCode(200)
+        .body("lines", equalTo(1_500))
+        .body("applied", equalTo(1_500))
+        .body("batches", equalTo(500));
+
+    given().when().get("store/" + store).then().statusCode(200).body("quantityProductsInStock", equalTo(1_500));
+    given().when().get("product/" + product).then().statusCode(200).body("stock", equalTo(1_499));
+  }
+
+  @Test
+  void ingest_snapshotWinsOverBufferedDeltas() {
+    long product = create("product", "{\"name\":\"INGEST-" + System.nanoTime() + "\",\"stock\":10}");
+    stockBuffer.adjust(product, 5);
+
+    given()
+        .contentType("application/x-ndjson")
+        .body("{\"type\":\"product\",\"id\":" + product + ",\"stock\":30}")
+        .when()
+        .post("stock/ingest")
+        .then()
+        .statusCode(200)
+        .body("applied", equalTo(1));
+
+    assertEquals(30, stockBuffer.stock(product));
+    stockBuffer.flush();
+    given().when().get("product/" + product).then().statusCode(200).body("stock", equalTo(30));
+  }
+
+  @Test
+  void ingest_requiresNdjson() {
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"type\":\"store\",\"id\":1,\"stock\":1}")
+        .when()
+        .post("stock/ingest")
+        .then()
+        .statusCode(415);
+  }
+
+  private static long create(String path, String json) {
+    return given()
+        .contentType(ContentType.JSON)
+        .body(json)
+        .when()
+        .post(path)
+        .then()
+        .statusCode(201)
+        .extract().jsonPath()
+        .getLong("id");
+  }
+}
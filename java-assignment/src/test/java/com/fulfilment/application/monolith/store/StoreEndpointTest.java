@@ -11,6 +11,8 @@ import org.junit.jupiter.api.Test;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 @QuarkusTest
@@ -285,4 +287,82 @@ public class StoreEndpointTest {
                 .statusCode(200)
                 .body("name", equalTo("GetSingle"));
     }
+
+    @Test
+    void exportStores_streamsOneJsonObjectPerLine() {
+        int stores = given().when().get("/store").then().statusCode(200)
+                .extract().jsonPath().getList("$").size();
+
+        String body = given()
+                .when()
+                .get("/store/export")
+                .then()
+                .statusCode(200)
+                .header("Content-Type", startsWith("application/x-ndjson"))
+                .extract().asString();
+
+        var lines = body.lines().toList();
+        assertEquals(stores, lines.size());
+        assertTrue(lines.stream().allMatch(line -> line.startsWith("{") && line.endsWith("}")));
+        assertTrue(body.contains("\"name\":\"KALLAX\""));
+    }
+
+    @Test
+    void nearestWarehouses_returnsClosestWarehouseWithFreeCapacity() {
+        given().contentType(ContentType.JSON)
+                .body("{\"identification\":\"NEARCITY-001\",\"maxNumberOfWarehouses\":2,\"maxCapacity\":100,"
+                        + "\"latitude\":53.2194,\"longitude\":6.5665}")
+                .when().post("/location")
+                .then().statusCode(201);
+        given().contentType(ContentType.JSON)
+                .body("{\"businessUnitCode\":\"NEAR-WH-001\",\"location\":\"NEARCITY-001\",\"capacity\":50,\"stock\":5}")
+                .when().post("/warehouse")
+                .then().statusCode(200);
+
+        int storeId = given().contentType(ContentType.JSON)
+                .body("{\"name\":\"NEAR-STORE\",\"quantityProductsInStock\":1,\"latitude\":53.2194,\"longitude\":6.5665}")
+                .when().post("/store")
+                .then().statusCode(201)
+                .extract().path("id");
+
+        // the index is rebuilt in the background after the warehouse commits
+        awaitNearest(storeId, "NEAR-WH-001");
+
+        given().when().get("/store/" + storeId + "/nearest-warehouses?k=2")
+                .then().statusCode(200)
+                .body("size()", equalTo(2))
+                .body("[0].businessUnitCode", equalTo("NEAR-WH-001"))
+                .body("[0].freeCapacity", equalTo(45))
+                .body("[0].distanceKm", lessThan(0.001f))
+                .body("[1].distanceKm", greaterThan(1f));
+
+        given().when().get("/store/" + storeId + "/nearest-warehouses?minFreeCapacity=46")
+                .then().statusCode(200)
+                .body("businessUnitCode", not(hasItem("NEAR-WH-001")));
+    }
+
+    private static void awaitNearest(int storeId, String businessUnitCode) {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            String nearest = given().when().get("/store/" + storeId + "/nearest-warehouses?k=1")
+                    .then().statusCode(200)
+                    .extract().path("[0].businessUnitCode");
+            if (businessUnitCode.equals(nearest)) {
+                return;
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+        throw new AssertionError(businessUnitCode + " never became the nearest warehouse of store " + storeId);
+    }
+
+    @Test
+    void nearestWarehouses_storeWithoutCoordinates() {
+        given().when().get("/store/3/nearest-warehouses").then().statusCode(422);
+        given().when().get("/store/1/nearest-warehouses?k=0").then().statusCode(422);
+        given().when().get("/store/999/nearest-warehouses").then().statusCode(404);
+    }
 }
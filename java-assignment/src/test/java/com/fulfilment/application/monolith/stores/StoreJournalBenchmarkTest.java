@@ -0,0 +1,112 @@
+package com.fulfilment.application.monolith.stores;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fulfilment.application.monolith.common.SegmentJournal;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Store events per second through the legacy gateway: one temporary file per event (the original
+ * emulation) against the journal with a group commit every 10ms and with an fsync per event. The
+ * throughput comparison is tagged {@code benchmark}: it only runs with {@code -Pbenchmark}.
+ */
+public class StoreJournalBenchmarkTest {
+
+  private static final Logger LOGGER = Logger.getLogger(StoreJournalBenchmarkTest.class.getName());
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void journal_keepsTheLatestRecordOfEveryStore() throws IOException {
+    LegacyStoreManagerGateway grouped = journalGateway(dir.resolve("grouped"), Duration.ofMillis(10));
+    try {
+      eventsPerSecond(grouped, 5_000);
+    } finally {
+      grouped.shutdown();
+    }
+    assertRecordsSurvive(dir.resolve("grouped"));
+  }
+
+  @Test
+  @Tag("benchmark")
+  void journal_outpacesAFilePerEvent() throws IOException {
+    LegacyStoreManagerGateway files = new LegacyStoreManagerGateway();
+    double filesPerSecond = eventsPerSecond(files, 500);
+
+    LegacyStoreManagerGateway grouped = journalGateway(dir.resolve("grouped"), Duration.ofMillis(10));
+    double groupedPerSecond;
+    try {
+      groupedPerSecond = eventsPerSecond(grouped, 50_000);
+    } finally {
+      grouped.shutdown();
+    }
+
+    LegacyStoreManagerGateway synced = journalGateway(dir.resolve("synced"), Duration.ZERO);
+    double syncedPerSecond;
+    try {
+      syncedPerSecond = eventsPerSecond(synced, 500);
+    } finally {
+      synced.shutdown();
+    }
+
+    LOGGER.infof("temp files=%.0f events/s journal fsync per event=%.0f events/s journal group commit=%.0f events/s",
+            filesPerSecond, syncedPerSecond, groupedPerSecond);
+    assertTrue(groupedPerSecond > filesPerSecond);
+    assertTrue(groupedPerSecond > syncedPerSecond);
+    assertRecordsSurvive(dir.resolve("grouped"));
+  }
+
+  private static void assertRecordsSurvive(Path directory) throws IOException {
+    AtomicInteger records = new AtomicInteger();
+    try (SegmentJournal journal = new SegmentJournal(directory, 1 << 20, Duration.ZERO, 4)) {
+      journal.replay((key, payload) -> records.incrementAndGet());
+    }
+    // 50 stores, so compaction may have folded older records together but never the last ones
+    assertTrue(records.get() >= 50, "records: " + records.get());
+  }
+
+  private static LegacyStoreManagerGateway journalGateway(Path directory, Duration fsyncInterval) {
+    LegacyStoreManagerGateway gateway = new LegacyStoreManagerGateway();
+    gateway.sink = "journal";
+    gateway.journalDirectory = Optional.of(directory.toString());
+    gateway.journalSegmentBytes = 1 << 20;
+    gateway.journalFsyncInterval = fsyncInterval;
+    gateway.journalMaxSegments = 4;
+    gateway.init();
+    return gateway;
+  }
+
+  private static double eventsPerSecond(LegacyStoreManagerGateway gateway, int events) {
+    Store store = new Store();
+    // warm up
+    for (int i = 0; i < Math.min(events, 100); i++) {
+      send(gateway, store, i);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < events; i++) {
+      send(gateway, store, i);
+    }
+    return events / ((System.nanoTime() - start) / 1e9);
+  }
+
+  private static void send(LegacyStoreManagerGateway gateway, Store store, int i) {
+    store.id = (long) (i % 50);
+    store.name = "BENCH-" + (i % 50);
+    store.quantityProductsInStock = i;
+    if (i < 50) {
+      gateway.createStoreOnLegacySystem(store);
+    } else {
+      gateway.updateStoreOnLegacySystem(store);
+    }
+  }
+}
@@ -0,0 +1,181 @@
+package com.fulfilment.application.monolith.stores;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusMock;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+public class StoreOutboxRelayTest {
+
+  @Inject StoreOutboxRelay relay;
+  @Inject EntityManager entityManager;
+
+  private final List<String> delivered = new CopyOnWriteArrayList<>();
+
+  @Test
+  void storeChange_isDeliveredByTheRelayNotTheRequest() {
+    String name = "OUTBOX-" + Long.toString(System.nanoTime(), 36);
+    recordingGateway(name, 0);
+
+    long id = createStore(name);
+    assertTrue(delivered.isEmpty());
+    assertEquals(1, pending(id));
+
+    drainAll(LocalDateTime.now());
+    assertEquals(List.of("CREATE " + name), deliveredFor(name));
+    assertEquals(0, pending(id));
+  }
+
+  @Test
+  void failedDelivery_isRetriedAfterBackoffAndKeepsStoreOrder() {
+    String name = "OUTBOX-" + Long.toString(System.nanoTime(), 36);
+    recordingGateway(name, 1);
+
+    long id = createStore(name);
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"name\":\"%s-renamed\",\"quantityProductsInStock\":2}".formatted(name))
+        .when().put("/store/" + id)
+        .then().statusCode(200);
+
+    LocalDateTime now = LocalDateTime.now();
+    drainAll(now);
+    // the create failed, and the update must not overtake it
+    assertTrue(deliveredFor(name).isEmpty());
+    assertEquals(2, pending(id));
+    StoreOutboxEvent failed = QuarkusTransaction.requiringNew().call(() -> entityManager
+        .createQuery("FROM StoreOutboxEvent e WHERE e.storeId = :id ORDER BY e.id", StoreOutboxEvent.class)
+        .setParameter("id", id)
+        .setMaxResults(1)
+        .getSingleResult());
+    assertEquals(1, failed.attempts);
+    assertEquals("legacy unavailable", failed.lastError);
+    assertTrue(failed.nextAttemptAt.isAfter(now));
+
+    drainAll(now.plusHours(1));
+    assertEquals(List.of("CREATE " + name, "UPDATE " + name + "-renamed"), deliveredFor(name));
+    assertEquals(0, pending(id));
+  }
+
+  @Test
+  void repeatedUpdates_coalesceIntoOnePendingSnapshot() {
+    String name = "OUTBOX-" + Long.toString(System.nanoTime(), 36);
+    recordingGateway(name, 0);
+
+    long id = createStore(name);
+    for (int quantity = 2; quantity <= 5; quantity++) {
+      given()
+          .contentType(ContentType.JSON)
+          .body("{\"name\":\"%s-%d\",\"quantityProductsInStock\":%d}".formatted(name, quantity, quantity))
+          .when().put("/store/" + id)
+          .then().statusCode(200);
+    }
+    // the create and a single update carrying the last change
+    assertEquals(2, pending(id));
+
+    drainAll(LocalDateTime.now());
+    assertEquals(List.of("CREATE " + name, "UPDATE " + name + "-5"), deliveredFor(name));
+    assertEquals(0, pending(id));
+  }
+
+  @Test
+  void deliveredBatch_isSyncedBeforeItLeavesTheOutbox() {
+    String name = "OUTBOX-" + Long.toString(System.nanoTime(), 36);
+    AtomicInteger failedFlushes = new AtomicInteger();
+    QuarkusMock.installMockForType(new LegacyStoreManagerGateway() {
+      @Override
+      public void createStoreOnLegacySystem(Store store) {
+        delivered.add("CREATE " + store.name);
+      }
+
+      @Override
+      public void updateStoreOnLegacySystem(Store store) {
+        delivered.add("UPDATE " + store.name);
+      }
+
+      @Override
+      public void flush() {
+        failedFlushes.incrementAndGet();
+        throw new IllegalStateException("legacy journal not synced");
+      }
+    }, LegacyStoreManagerGateway.class);
+
+    long id = createStore(name);
+    assertThrows(IllegalStateException.class, () -> relay.drain(LocalDateTime.now()));
+    assertEquals(1, failedFlushes.get());
+    // delivered but not synced: the event stays and goes out again
+    assertEquals(1, pending(id));
+
+    recordingGateway(name, 0);
+    drainAll(LocalDateTime.now());
+    assertEquals(List.of("CREATE " + name, "CREATE " + name), deliveredFor(name));
+    assertEquals(0, pending(id));
+  }
+
+  @Test
+  void backoff_doublesUpToTheMaximum() {
+    assertEquals(relay.initialBackoff, relay.backoff(1));
+    assertEquals(relay.initialBackoff.multipliedBy(4), relay.backoff(3));
+    assertEquals(relay.maxBackoff, relay.backoff(1000));
+    assertTrue(relay.backoff(30).compareTo(Duration.ZERO) > 0);
+  }
+
+  // records every delivery; the first `failures` creates of stores named `prefix...` fail
+  private void recordingGateway(String prefix, int failures) {
+    AtomicInteger remainingFailures = new AtomicInteger(failures);
+    QuarkusMock.installMockForType(new LegacyStoreManagerGateway() {
+      @Override
+      public void createStoreOnLegacySystem(Store store) {
+        if (store.name.startsWith(prefix) && remainingFailures.getAndDecrement() > 0) {
+          throw new IllegalStateException("legacy unavailable");
+        }
+        delivered.add("CREATE " + store.name);
+      }
+
+      @Override
+      public void updateStoreOnLegacySystem(Store store) {
+        delivered.add("UPDATE " + store.name);
+      }
+    }, LegacyStoreManagerGateway.class);
+  }
+
+  private void drainAll(LocalDateTime now) {
+    while (relay.drain(now) > 0) {
+      // other test classes leave events behind as well
+    }
+  }
+
+  private List<String> deliveredFor(String name) {
+    return delivered.stream().filter(entry -> entry.contains(name)).toList();
+  }
+
+  private long pending(long storeId) {
+    return QuarkusTransaction.requiringNew().call(() -> entityManager
+        .createQuery("SELECT COUNT(e) FROM StoreOutboxEvent e WHERE e.storeId = :id", Long.class)
+        .setParameter("id", storeId)
+        .getSingleResult());
+  }
+
+  private static long createStore(String name) {
+    return given()
+        .contentType(ContentType.JSON)
+        .body("{\"name\":\"%s\",\"quantityProductsInStock\":1}".formatted(name))
+        .when().post("/store")
+        .then().statusCode(201)
+        .extract().jsonPath().getLong("id");
+  }
+}
@@ -0,0 +1,56 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationSummary;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class LocationHierarchyTest {
+
+  @Test
+  void summary_rollsUpEveryLocationUnderThePrefix() {
+    var hierarchy = new LocationHierarchy();
+    hierarchy.record("AMSTERDAM-001", 2, 100, 40);
+    hierarchy.record("AMSTERDAM-002", 1, 50, 10);
+    hierarchy.record("ZWOLLE-001", 1, 40, 40);
+
+    LocationSummary amsterdam = hierarchy.summary("AMSTERDAM");
+    assertEquals(2, amsterdam.locations);
+    assertEquals(3, amsterdam.activeWarehouses);
+    assertEquals(150, amsterdam.totalCapacity);
+    assertEquals(50, amsterdam.totalStock);
+    assertEquals(50.0 / 150, amsterdam.utilization, 1e-9);
+
+    assertEquals(1, hierarchy.summary("AMSTERDAM-002").activeWarehouses);
+    assertEquals(4, hierarchy.summary("").activeWarehouses);
+    assertEquals(0, hierarchy.summary("TILBURG").activeWarehouses);
+    assertEquals(0, hierarchy.summary("TILBURG").utilization, 1e-9);
+  }
+
+  @Test
+  void record_locationWithoutWarehousesStopsCounting() {
+    var hierarchy = new LocationHierarchy();
+    hierarchy.record("AMSTERDAM-001", 1, 100, 40);
+    hierarchy.record("AMSTERDAM-002", 1, 50, 10);
+
+    hierarchy.record("AMSTERDAM-002", -1, -50, -10);
+
+    LocationSummary amsterdam = hierarchy.summary("AMSTERDAM");
+    assertEquals(1, amsterdam.locations);
+    assertEquals(1, amsterdam.activeWarehouses);
+    assertEquals(100, amsterdam.totalCapacity);
+  }
+
+  @Test
+  void load_replacesPreviousRollups() {
+    var hierarchy = new LocationHierarchy();
+    hierarchy.record("STALE-001", 1, 10, 5);
+
+    hierarchy.load(Map.of("ZWOLLE-001", new LocationSummary("ZWOLLE-001", 1, 1, 40, 10)));
+
+    assertEquals(0, hierarchy.summary("STALE").activeWarehouses);
+    assertEquals(1, hierarchy.summary("ZWOLLE").locations);
+    assertEquals(10, hierarchy.summary("ZWOLLE").totalStock);
+  }
+}
@@ -0,0 +1,118 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fulfilment.application.monolith.location.LocationGateway;
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseChange;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseChangeResult;
+import com.fulfilment.application.monolith.warehouses.domain.ports.BatchWarehouseOperation.Mode;
+import com.fulfilment.application.monolith.warehouses.domain.usecases.BatchWarehouseUseCase;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusMock;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+public class LocationLocksTest {
+
+  private static final int ROUNDS = 50;
+
+  @Inject LocationLocks locationLocks;
+  @Inject BatchWarehouseUseCase batchWarehouseUseCase;
+
+  /**
+   * Batch A locks {L1, L2} and batch B {L3, L4}, where L1 shares a stripe with L4 and L2 with L3.
+   * In name order A would take its stripes one way round and B the other, so the two could hold
+   * one stripe each and wait for the other's until the lock timeout.
+   */
+  @Test
+  void batchesWithCrossingStripes_neverWaitOnEachOther() throws Exception {
+    QuarkusMock.installMockForType(new LocationGateway() {
+      @Override
+      public Location resolveByIdentifier(String identifier) {
+        return new Location(identifier, 1_000, 1_000_000);
+      }
+    }, LocationGateway.class);
+
+    String run = Long.toString(System.nanoTime(), 36).toUpperCase();
+    String[] crossing = crossingLocations("LOCKS-" + run + "-");
+    String l1 = crossing[0], l2 = crossing[1], l3 = crossing[2], l4 = crossing[3];
+    assertTrue(l1.compareTo(l2) < 0 && l3.compareTo(l4) < 0);
+    assertEquals(locationLocks.stripeOf(l1), locationLocks.stripeOf(l4));
+    assertEquals(locationLocks.stripeOf(l2), locationLocks.stripeOf(l3));
+    assertNotEquals(locationLocks.stripeOf(l1), locationLocks.stripeOf(l2));
+
+    CyclicBarrier barrier = new CyclicBarrier(2);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    List<Future<?>> futures = new ArrayList<>();
+    futures.add(executor.submit(() -> run(barrier, run + "-A", l1, l2)));
+    futures.add(executor.submit(() -> run(barrier, run + "-B", l3, l4)));
+    for (Future<?> future : futures) {
+      // a stripe deadlock would only end with the 10s lock timeout and a 503
+      future.get(2, TimeUnit.MINUTES);
+    }
+    executor.shutdown();
+  }
+
+  private Void run(CyclicBarrier barrier, String batch, String first, String second) throws Exception {
+    for (int round = 0; round < ROUNDS; round++) {
+      barrier.await(1, TimeUnit.MINUTES);
+      List<WarehouseChange> changes = List.of(
+              create(batch + "-" + round + "-1", first), create(batch + "-" + round + "-2", second));
+      List<WarehouseChangeResult> results = QuarkusTransaction.requiringNew()
+              .call(() -> batchWarehouseUseCase.apply(changes, Mode.ALL_OR_NOTHING));
+      for (WarehouseChangeResult result : results) {
+        assertEquals(200, result.status, result.error);
+      }
+    }
+    return null;
+  }
+
+  private String[] crossingLocations(String prefix) {
+    String l1 = null, l2 = null;
+    for (int i = 0; l2 == null; i++) {
+      String candidate = prefix + "A" + i;
+      if (l1 == null) {
+        l1 = candidate;
+      } else if (locationLocks.stripeOf(candidate) != locationLocks.stripeOf(l1) && candidate.compareTo(l1) > 0) {
+        l2 = candidate;
+      }
+    }
+    // L3 sorts before L4 but sits on L2's stripe, L4 on L1's
+    String l3 = null, l4 = null;
+    for (int i = 0; l3 == null; i++) {
+      String candidate = prefix + "B" + i;
+      if (locationLocks.stripeOf(candidate) == locationLocks.stripeOf(l2)) {
+        l3 = candidate;
+      }
+    }
+    for (int i = 0; l4 == null; i++) {
+      String candidate = prefix + "C" + i;
+      if (locationLocks.stripeOf(candidate) == locationLocks.stripeOf(l1)) {
+        l4 = candidate;
+      }
+    }
+    return new String[] {l1, l2, l3, l4};
+  }
+
+  private static WarehouseChange create(String code, String location) {
+    Warehouse warehouse = new Warehouse();
+    warehouse.businessUnitCode = code;
+    warehouse.location = location;
+    warehouse.capacity = 10;
+    warehouse.stock = 0;
+    return new WarehouseChange(WarehouseChange.Action.CREATE, warehouse);
+  }
+}
@@ -0,0 +1,60 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public class LocationOccupancyLedgerTest {
+
+  @Test
+  void load_replacesPreviousCounters() {
+    var ledger = new LocationOccupancyLedger();
+    ledger.record("STALE-001", 1, 10);
+
+    ledger.load(Map.of("ZWOLLE-001", new LocationOccupancy(1, 40)));
+
+    assertEquals(0, ledger.occupancyOf("STALE-001").activeWarehouses);
+    assertEquals(1, ledger.occupancyOf("ZWOLLE-001").activeWarehouses);
+    assertEquals(40, ledger.occupancyOf("ZWOLLE-001").totalCapacity);
+  }
+
+  @Test
+  void record_concurrentUpdates_areNotLost() {
+    var ledger = new LocationOccupancyLedger();
+
+    IntStream.range(0, 10_000).parallel().forEach(i -> ledger.record("AMSTERDAM-001", 1, 5));
+    IntStream.range(0, 4_000).parallel().forEach(i -> ledger.record("AMSTERDAM-001", -1, -5));
+
+    assertEquals(6_000, ledger.occupancyOf("AMSTERDAM-001").activeWarehouses);
+    assertEquals(30_000, ledger.occupancyOf("AMSTERDAM-001").totalCapacity);
+  }
+
+  @Test
+  void occupancyExcluding_subtractsReplacedWarehouseOfSameLocation() {
+    var ledger = new LocationOccupancyLedger();
+    ledger.record("TILBURG-001", 2, 70);
+
+    Warehouse current = new Warehouse();
+    current.location = "TILBURG-001";
+    current.capacity = 30;
+
+    var sameLocation = ledger.occupancyExcluding("TILBURG-001", current);
+    var otherLocation = ledger.occupancyExcluding("ZWOLLE-001", current);
+
+    assertEquals(1, sameLocation.activeWarehouses);
+    assertEquals(40, sameLocation.totalCapacity);
+    assertEquals(0, otherLocation.activeWarehouses);
+  }
+
+  @Test
+  void occupancyOf_unknownLocation_isEmpty() {
+    var ledger = new LocationOccupancyLedger();
+
+    assertEquals(0, ledger.occupancyOf("UNKNOWN").activeWarehouses);
+    assertEquals(0, ledger.occupancyOf(null).totalCapacity);
+  }
+}
@@ -0,0 +1,76 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Query latency of the nearest-warehouse tree for a European-sized network. Logs p50/p99 per
+ * query; a timed loop rather than JMH, which this build does not carry. Tagged {@code benchmark}:
+ * it only runs with {@code -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class NearestWarehouseBenchmarkTest {
+
+  private static final Logger LOGGER = Logger.getLogger(NearestWarehouseBenchmarkTest.class.getName());
+  private static final int WARMUP = 20_000;
+  private static final int QUERIES = 20_000;
+
+  @Test
+  void nearest_5kSites() {
+    run(5_000);
+  }
+
+  @Test
+  void nearest_50kSites() {
+    run(50_000);
+  }
+
+  private void run(int sites) {
+    Random random = new Random(7);
+    Map<String, Location> locations = new HashMap<>();
+    List<Warehouse> warehouses = new ArrayList<>();
+    for (int i = 0; i < sites; i++) {
+      String id = "SITE-" + i;
+      locations.put(id, new Location(id, 3, 300, 36 + random.nextDouble() * 34, -10 + random.nextDouble() * 40));
+      warehouses.add(NearestWarehouseTreeTest.warehouse(id + "-A", id, 100, random.nextInt(120)));
+      warehouses.add(NearestWarehouseTreeTest.warehouse(id + "-B", id, 100, random.nextInt(120)));
+    }
+
+    long buildStart = System.nanoTime();
+    var tree = new NearestWarehouseTree(warehouses, locations);
+    long buildMicros = (System.nanoTime() - buildStart) / 1_000;
+
+    double[][] points = new double[QUERIES][];
+    for (int i = 0; i < QUERIES; i++) {
+      points[i] = new double[] {36 + random.nextDouble() * 34, -10 + random.nextDouble() * 40};
+    }
+    for (int i = 0; i < WARMUP; i++) {
+      tree.nearest(points[i % QUERIES][0], points[i % QUERIES][1], 5, 1);
+    }
+
+    long[] nanos = new long[QUERIES];
+    int found = 0;
+    for (int i = 0; i < QUERIES; i++) {
+      long start = System.nanoTime();
+      found += tree.nearest(points[i][0], points[i][1], 5, 1).size();
+      nanos[i] = System.nanoTime() - start;
+    }
+    Arrays.sort(nanos);
+    LOGGER.infof("nearest k=5 over %s sites: build=%sus p50=%.1fus p99=%.1fus",
+            sites, buildMicros, nanos[QUERIES / 2] / 1_000.0, nanos[QUERIES * 99 / 100] / 1_000.0);
+
+    assertEquals(sites, tree.size());
+    assertEquals(QUERIES * 5, found);
+  }
+}
@@ -0,0 +1,91 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.NearestWarehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class NearestWarehouseTreeTest {
+
+  @Test
+  void nearest_ordersByDistanceAndSkipsFullWarehouses() {
+    Map<String, Location> locations = Map.of(
+            "AMSTERDAM-001", new Location("AMSTERDAM-001", 5, 100, 52.3676, 4.9041),
+            "ZWOLLE-001", new Location("ZWOLLE-001", 1, 40, 52.5168, 6.0830),
+            "EINDHOVEN-001", new Location("EINDHOVEN-001", 2, 70, 51.4416, 5.4697),
+            "NOWHERE-001", new Location("NOWHERE-001", 1, 10));
+    List<Warehouse> warehouses = List.of(
+            warehouse("WH-AMS", "AMSTERDAM-001", 50, 50),
+            warehouse("WH-ZWO", "ZWOLLE-001", 40, 10),
+            warehouse("WH-EIN", "EINDHOVEN-001", 70, 20),
+            warehouse("WH-NOW", "NOWHERE-001", 10, 0));
+    var tree = new NearestWarehouseTree(warehouses, locations);
+
+    // from Amsterdam Centraal; the Amsterdam warehouse is full and the unplaced one is not indexed
+    List<NearestWarehouse> nearest = tree.nearest(52.3791, 4.9003, 5, 1);
+
+    assertEquals(3, tree.size());
+    assertEquals(List.of("WH-ZWO", "WH-EIN"), nearest.stream().map(n -> n.businessUnitCode).toList());
+    assertEquals(30, nearest.get(0).freeCapacity);
+    assertEquals(81, nearest.get(0).distanceKm, 2);
+  }
+
+  @Test
+  void nearest_matchesBruteForceOnRandomSites() {
+    Random random = new Random(42);
+    Map<String, Location> locations = new HashMap<>();
+    List<Warehouse> warehouses = new ArrayList<>();
+    for (int i = 0; i < 3_000; i++) {
+      String id = "SITE-" + i;
+      locations.put(id, new Location(id, 3, 300, random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180));
+      for (int w = 0; w < 1 + random.nextInt(3); w++) {
+        warehouses.add(warehouse(id + "-" + w, id, 100, random.nextInt(120)));
+      }
+    }
+    var tree = new NearestWarehouseTree(warehouses, locations);
+
+    for (int q = 0; q < 200; q++) {
+      double latitude = random.nextDouble() * 180 - 90;
+      double longitude = random.nextDouble() * 360 - 180;
+      List<Double> expected = warehouses.stream()
+              .filter(w -> w.capacity - w.stock >= 10)
+              .map(w -> haversineKm(latitude, longitude, locations.get(w.location)))
+              .sorted(Comparator.naturalOrder())
+              .limit(8)
+              .toList();
+
+      List<NearestWarehouse> actual = tree.nearest(latitude, longitude, 8, 10);
+      assertEquals(expected.size(), actual.size());
+      for (int i = 0; i < expected.size(); i++) {
+        assertEquals(expected.get(i), actual.get(i).distanceKm, 1e-6);
+        assertTrue(actual.get(i).freeCapacity >= 10);
+      }
+    }
+  }
+
+  private static double haversineKm(double latitude, double longitude, Location to) {
+    double dLat = Math.toRadians(to.latitude - latitude);
+    double dLon = Math.toRadians(to.longitude - longitude);
+    double a = Math.pow(Math.sin(dLat / 2), 2)
+            + Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(to.latitude)) * Math.pow(Math.sin(dLon / 2), 2);
+    return 2 * 6371.0088 * Math.asin(Math.sqrt(a));
+  }
+
+  static Warehouse warehouse(String buCode, String location, int capacity, int stock) {
+    Warehouse warehouse = new Warehouse();
+    warehouse.businessUnitCode = buCode;
+    warehouse.location = location;
+    warehouse.capacity = capacity;
+    warehouse.stock = stock;
+    return warehouse;
+  }
+}
@@ -1,13 +1,17 @@
 package com.fulfilment.application.monolith.warehouses.adapters.database;
 
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -17,6 +21,12 @@ public class WarehouseRepositoryTest {
   @Inject
   WarehouseRepository repository;
 
+  @Inject
+  SessionFactory sessionFactory;
+
+  @Inject
+  ActiveWarehouseCache activeWarehouseCache;
+
   @Test
   @Transactional
   void create_success() {
@@ -141,4 +151,217 @@ public class WarehouseRepositoryTest {
     assertTrue(all.stream().anyMatch(w -> "GET-ALL-001".equals(w.businessUnitCode)));
     assertTrue(all.stream().anyMatch(w -> "GET-ALL-002".equals(w.businessUnitCode)));
   }
+
+  @Test
+  @Transactional
+  void occupancyOf_aggregatesActiveWarehousesInOneQuery() {
+    for (int i = 1; i <= 3; i++) {
+      Warehouse warehouse = new Warehouse();
+      warehouse.businessUnitCode = "OCCUPANCY-00" + i;
+      warehouse.location = "OCCUPANCY-TEST-001";
+      warehouse.capacity = 10 * i;
+      warehouse.stock = 5;
+      repository.create(warehouse);
+    }
+    Warehouse archived = repository.findByBusinessUnitCode("OCCUPANCY-003");
+    archived.archivedAt = LocalDateTime.now();
+    repository.update(archived);
+    repository.flush();
+
+    Statistics statistics = sessionFactory.getStatistics();
+    statistics.clear();
+
+    LocationOccupancy occupancy = repository.occupancyOf("OCCUPANCY-TEST-001", null);
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+    assertEquals(2, occupancy.activeWarehouses);
+    assertEquals(30, occupancy.totalCapacity);
+
+    statistics.clear();
+
+    LocationOccupancy excluding = repository.occupancyOf("OCCUPANCY-TEST-001", "OCCUPANCY-002");
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(1, excluding.activeWarehouses);
+    assertEquals(10, excluding.totalCapacity);
+  }
+
+  @Test
+  @Transactional
+  void occupancyOf_emptyLocation_shouldReturnZero() {
+    LocationOccupancy occupancy = repository.occupancyOf("NO-WAREHOUSES-001", null);
+
+    assertEquals(0, occupancy.activeWarehouses);
+    assertEquals(0, occupancy.totalCapacity);
+  }
+
+  @Test
+  @Transactional
+  void findActivePage_walksActiveWarehousesInKeyOrder() {
+    for (String code : List.of("PAGE-003", "PAGE-001", "PAGE-002")) {
+      Warehouse warehouse = new Warehouse();
+      warehouse.businessUnitCode = code;
+      warehouse.location = "PAGE-TEST-001";
+      warehouse.capacity = 10;
+      warehouse.stock = 5;
+      repository.create(warehouse);
+    }
+    Warehouse archived = repository.findByBusinessUnitCode("PAGE-002");
+    archived.archivedAt = LocalDateTime.now();
+    repository.update(archived);
+
+    List<Warehouse> first = repository.findActivePage("PAGE-TEST-001", null, 1);
+    List<Warehouse> rest = repository.findActivePage("PAGE-TEST-001", "PAGE-001", 10);
+
+    assertEquals(List.of("PAGE-001"), first.stream().map(w -> w.businessUnitCode).toList());
+    assertEquals(List.of("PAGE-003"), rest.stream().map(w -> w.businessUnitCode).toList());
+  }
+
+  @Test
+  @Transactional
+  void activeLookups_useVersionedIndexes() {
+    // the seeded table is tiny, so keep the planner off sequential scans to see which index it picks
+    repository.getEntityManager().createNativeQuery("SET LOCAL enable_seqscan = off").executeUpdate();
+
+    assertTrue(explain("SELECT * FROM warehouse WHERE businessUnitCode = 'MWH.001' AND archivedAt IS NULL")
+            .contains("ix_warehouse_active_bu_code"));
+    assertTrue(explain("SELECT COUNT(*) FROM warehouse WHERE location = 'ZWOLLE-001' AND archivedAt IS NULL")
+            .contains("ix_warehouse_location_archived_at"));
+  }
+
+  @Test
+  @Transactional
+  void findByBusinessUnitCode_skipsArchivedHistoryRows() {
+    Warehouse first = new Warehouse();
+    first.businessUnitCode = "REPO-HISTORY-001";
+    first.location = "AMSTERDAM-001";
+    first.capacity = 10;
+    first.stock = 5;
+    repository.create(first);
+
+    Warehouse archived = repository.findByBusinessUnitCode("REPO-HISTORY-001");
+    archived.archivedAt = LocalDateTime.now();
+    repository.update(archived);
+
+    Warehouse replacement = new Warehouse();
+    replacement.businessUnitCode = "REPO-HISTORY-001";
+    replacement.location = "AMSTERDAM-001";
+    replacement.capacity = 20;
+    replacement.stock = 5;
+    repository.create(replacement);
+
+    Warehouse found = repository.findByBusinessUnitCode("REPO-HISTORY-001");
+    assertNotNull(found);
+    assertEquals(20, found.capacity);
+    assertNull(found.archivedAt);
+  }
+
+  @Test
+  @Transactional
+  void findByBusinessUnitCode_repeatedLookups_areServedFromCache() {
+    repository.findByBusinessUnitCode("MWH.012");
+    long hitsBefore = activeWarehouseCache.stats().hits;
+    Statistics statistics = sessionFactory.getStatistics();
+    long statementsBefore = statistics.getPrepareStatementCount();
+
+    for (int i = 0; i < 10; i++) {
+      assertEquals("AMSTERDAM-001", repository.findByBusinessUnitCode("MWH.012").location);
+    }
+
+    assertEquals(statementsBefore, statistics.getPrepareStatementCount());
+    assertEquals(hitsBefore + 10, activeWarehouseCache.stats().hits);
+  }
+
+  @Test
+  @Transactional
+  void findByBusinessUnitCode_cachedCopy_isNotSharedWithCallers() {
+    repository.findByBusinessUnitCode("MWH.012").capacity = 1;
+
+    assertEquals(50, repository.findByBusinessUnitCode("MWH.012").capacity);
+  }
+
+  @Test
+  @Transactional
+  void archiveActive_runsOneStatementAndCountsRows() {
+    Warehouse warehouse = new Warehouse();
+    warehouse.businessUnitCode = "REPO-ARCHIVE-ACTIVE-001";
+    warehouse.location = "AMSTERDAM-001";
+    warehouse.capacity = 10;
+    warehouse.stock = 5;
+    repository.create(warehouse);
+    repository.flush();
+
+    Statistics statistics = sessionFactory.getStatistics();
+    long statementsBefore = statistics.getPrepareStatementCount();
+
+    assertEquals(1, repository.archiveActive("REPO-ARCHIVE-ACTIVE-001", LocalDateTime.now()));
+    assertEquals(statementsBefore + 1, statistics.getPrepareStatementCount());
+    assertEquals(0, repository.archiveActive("REPO-ARCHIVE-ACTIVE-001", LocalDateTime.now()));
+    assertNull(repository.findByBusinessUnitCode("REPO-ARCHIVE-ACTIVE-001"));
+  }
+
+  @Test
+  @Transactional
+  void replaceActive_archivesAndInsertsAfterTheCheck() {
+    Warehouse warehouse = new Warehouse();
+    warehouse.businessUnitCode = "REPO-REPLACE-ACTIVE-001";
+    warehouse.location = "AMSTERDAM-001";
+    warehouse.capacity = 10;
+    warehouse.stock = 5;
+    repository.create(warehouse);
+    repository.flush();
+
+    Warehouse replacement = new Warehouse();
+    replacement.businessUnitCode = "REPO-REPLACE-ACTIVE-001";
+    replacement.location = "ZWOLLE-001";
+    replacement.capacity = 20;
+    replacement.stock = 5;
+
+    Statistics statistics = sessionFactory.getStatistics();
+    long statementsBefore = statistics.getPrepareStatementCount();
+
+    assertTrue(repository.replaceActive(replacement, (current, occupancy) -> {
+      assertEquals("AMSTERDAM-001", current.location);
+      assertEquals(10, current.capacity);
+    }));
+    assertEquals(statementsBefore + 2, statistics.getPrepareStatementCount());
+
+    Warehouse active = repository.findByBusinessUnitCode("REPO-REPLACE-ACTIVE-001");
+    assertEquals("ZWOLLE-001", active.location);
+    assertEquals(20, active.capacity);
+    assertEquals(1, repository.count("businessUnitCode = ?1 and archivedAt is not null",
+            "REPO-REPLACE-ACTIVE-001"));
+
+    replacement.businessUnitCode = "REPO-REPLACE-ACTIVE-404";
+    assertFalse(repository.replaceActive(replacement, (current, occupancy) -> fail("no active row to check")));
+  }
+
+  @Test
+  @Transactional
+  void replaceActive_vetoedCheck_writesNothing() {
+    Warehouse warehouse = new Warehouse();
+    warehouse.businessUnitCode = "REPO-REPLACE-VETO-001";
+    warehouse.location = "AMSTERDAM-001";
+    warehouse.capacity = 10;
+    warehouse.stock = 5;
+    repository.create(warehouse);
+
+    Warehouse replacement = new Warehouse();
+    replacement.businessUnitCode = "REPO-REPLACE-VETO-001";
+    replacement.location = "AMSTERDAM-001";
+    replacement.capacity = 20;
+    replacement.stock = 5;
+
+    assertThrows(IllegalStateException.class, () -> repository.replaceActive(replacement, (current, occupancy) -> {
+      throw new IllegalStateException("vetoed");
+    }));
+    assertEquals(10, repository.findByBusinessUnitCode("REPO-REPLACE-VETO-001").capacity);
+    assertEquals(1, repository.count("businessUnitCode", "REPO-REPLACE-VETO-001"));
+  }
+
+  private String explain(String sql) {
+    List<?> plan = repository.getEntityManager().createNativeQuery("EXPLAIN " + sql).getResultList();
+    return plan.stream().map(Object::toString).collect(Collectors.joining("\n"));
+  }
 }
@@ -0,0 +1,165 @@
+package com.fulfilment.application.monolith.warehouses.adapters.restapi;
+
+import com.fulfilment.application.monolith.location.LocationGateway;
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import io.quarkus.test.junit.QuarkusMock;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+
+@QuarkusTest
+public class WarehouseBatchResourceTest {
+
+  @BeforeEach
+  void batchLocations() {
+    // BATCH-* locations take at most 2 warehouses and 100 capacity
+    QuarkusMock.installMockForType(new LocationGateway() {
+      @Override
+      public Location resolveByIdentifier(String identifier) {
+        if (identifier != null && identifier.startsWith("BATCH-")) {
+          return new Location(identifier, 2, 100);
+        }
+        return super.resolveByIdentifier(identifier);
+      }
+    }, LocationGateway.class);
+  }
+
+  @Test
+  void allOrNothing_validBatch_createsEveryWarehouse() {
+    given()
+        .contentType(ContentType.JSON)
+        .body("""
+            {
+              "changes": [
+                {"action": "CREATE", "businessUnitCode": "BATCH-A-1", "location": "BATCH-LOC-A", "capacity": 40, "stock": 10},
+                {"action": "CREATE", "businessUnitCode": "BATCH-A-2", "location": "BATCH-LOC-A", "capacity": 60, "stock": 10}
+              ]
+            }
+            """)
+        .when()
+        .post("/warehouse/batch")
+        .then()
+        .statusCode(200)
+        .body("mode", equalTo("ALL_OR_NOTHING"))
+        .body("applied", equalTo(2))
+        .body("results.status", everyItem(equalTo(200)));
+
+    given().when().get("/warehouse/BATCH-A-1").then().statusCode(200);
+    given().when().get("/warehouse/BATCH-A-2").then().statusCode(200).body("capacity", equalTo(60));
+  }
+
+  @Test
+  void allOrNothing_rejectedChange_writesNothing() {
+    given()
+        .contentType(ContentType.JSON)
+        .body("""
+            {
+              "mode": "ALL_OR_NOTHING",
+              "changes": [
+                {"action": "CREATE", "businessUnitCode": "BATCH-B-1", "location": "BATCH-LOC-B", "capacity": 10, "stock": 1},
+                {"action": "CREATE", "businessUnitCode": "BATCH-B-2", "location": "BATCH-LOC-B", "capacity": 10, "stock": 1},
+                {"action": "CREATE", "businessUnitCode": "BATCH-B-3", "location": "BATCH-LOC-B", "capacity": 10, "stock": 1}
+              ]
+            }
+            """)
+        .when()
+        .post("/warehouse/batch")
+        .then()
+        .statusCode(422)
+        .body("applied", equalTo(0))
+        .body("results[0].status", equalTo(409))
+        .body("results[2].status", equalTo(422))
+        .body("results[2].error", equalTo("Maximum warehouses reached for location"));
+
+    given().when().get("/warehouse/BATCH-B-1").then().statusCode(404);
+  }
+
+  @Test
+  void bestEffort_appliesValidChangesInOrder() {
+    given()
+        .contentType(ContentType.JSON)
+        .body("""
+            {
+              "mode": "BEST_EFFORT",
+              "changes": [
+                {"action": "CREATE", "businessUnitCode": "BATCH-C-1", "location": "BATCH-LOC-C", "capacity": 30, "stock": 20},
+                {"action": "REPLACE", "businessUnitCode": "BATCH-C-1", "location": "BATCH-LOC-C", "capacity": 90, "stock": 20},
+                {"action": "ARCHIVE", "businessUnitCode": "BATCH-DOES-NOT-EXIST"},
+                {"action": "CREATE", "businessUnitCode": "BATCH-C-2", "location": "BATCH-LOC-C", "capacity": 20, "stock": 0}
+              ]
+            }
+            """)
+        .when()
+        .post("/warehouse/batch")
+        .then()
+        .statusCode(200)
+        .body("applied", equalTo(2))
+        .body("rejected", equalTo(2))
+        .body("results[2].status", equalTo(404))
+        .body("results[3].error", equalTo("Total capacity exceeds location maximum"));
+
+    given().when().get("/warehouse/BATCH-C-1").then().statusCode(200).body("capacity", equalTo(90));
+    given().when().get("/warehouse/BATCH-C-2").then().statusCode(404);
+  }
+
+  @Test
+  void replaceAndArchive_existingWarehouses() {
+    given()
+        .contentType(ContentType.JSON)
+        .body("""
+            {
+              "changes": [
+                {"action": "CREATE", "businessUnitCode": "BATCH-D-1", "location": "BATCH-LOC-D", "capacity": 40, "stock": 5},
+                {"action": "CREATE", "businessUnitCode": "BATCH-D-2", "location": "BATCH-LOC-D", "capacity": 40, "stock": 5}
+              ]
+            }
+            """)
+        .when()
+        .post("/warehouse/batch")
+        .then()
+        .statusCode(200);
+
+    given()
+        .contentType(ContentType.JSON)
+        .body("""
+            {
+              "changes": [
+                {"action": "ARCHIVE", "businessUnitCode": "BATCH-D-2"},
+                {"action": "REPLACE", "businessUnitCode": "BATCH-D-1", "location": "BATCH-LOC-D", "capacity": 100, "stock": 5}
+              ]
+            }
+            """)
+        .when()
+        .post("/warehouse/batch")
+        .then()
+        .statusCode(200)
+        .body("applied", equalTo(2));
+
+    given().when().get("/warehouse/BATCH-D-2").then().statusCode(404);
+    given().when().get("/warehouse/BATCH-D-1").then().statusCode(200).body("capacity", equalTo(100));
+    given()
+        .queryParam("location", "BATCH-LOC-D")
+        .when()
+        .get("/warehouse")
+        .then()
+        .statusCode(200)
+        .body("size()", equalTo(1));
+  }
+
+  @Test
+  void unknownMode_shouldFail() {
+    given()
+        .contentType(ContentType.JSON)
+        .body("""
+            {"mode": "SOMETIMES", "changes": [{"action": "ARCHIVE", "businessUnitCode": "MWH.001"}]}
+            """)
+        .when()
+        .post("/warehouse/batch")
+        .then()
+        .statusCode(400);
+  }
+}
@@ -9,6 +9,8 @@ import org.junit.jupiter.api.MethodOrderer;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @QuarkusTest
 @TestMethodOrder(MethodOrderer.MethodName.class)
@@ -24,6 +26,86 @@ public class WarehouseResourceTest {
         .body("$", notNullValue());
   }
 
+  @Test
+  void listWarehouses_keysetPagination_success() {
+    var firstPage = given()
+        .queryParam("limit", 1)
+        .when()
+        .get("/warehouse")
+        .then()
+        .statusCode(200)
+        .body("size()", equalTo(1))
+        .header("X-Next-Cursor", notNullValue())
+        .extract();
+
+    String firstCode = firstPage.jsonPath().getString("[0].businessUnitCode");
+
+    String secondCode = given()
+        .queryParam("limit", 1)
+        .queryParam("after", firstPage.header("X-Next-Cursor"))
+        .when()
+        .get("/warehouse")
+        .then()
+        .statusCode(200)
+        .body("size()", equalTo(1))
+        .extract()
+        .jsonPath()
+        .getString("[0].businessUnitCode");
+
+    assertTrue(secondCode.compareTo(firstCode) > 0);
+  }
+
+  @Test
+  void listWarehouses_byLocation_excludesArchived() {
+    given()
+        .queryParam("location", "TILBURG-001")
+        .when()
+        .get("/warehouse")
+        .then()
+        .statusCode(200)
+        .body("businessUnitCode", hasItem("MWH.023"))
+        .body("businessUnitCode", not(hasItem("MWH.024")))
+        .body("location", everyItem(equalTo("TILBURG-001")))
+        .header("X-Next-Cursor", nullValue());
+  }
+
+  @Test
+  void listWarehouses_invalidLimit_shouldFail() {
+    given()
+        .queryParam("limit", 0)
+        .when()
+        .get("/warehouse")
+        .then()
+        .statusCode(400);
+  }
+
+  @Test
+  void listWarehouses_invalidCursor_shouldFail() {
+    given()
+        .queryParam("after", "not a cursor!")
+        .when()
+        .get("/warehouse")
+        .then()
+        .statusCode(400);
+  }
+
+  @Test
+  void exportWarehouses_streamsActiveUnitsAsNdjson() {
+    String body =
+        given()
+            .when()
+            .get("/warehouse/export")
+            .then()
+            .statusCode(200)
+            .header("Content-Type", startsWith("application/x-ndjson"))
+            .extract()
+            .asString();
+
+    assertTrue(body.lines().allMatch(line -> line.startsWith("{") && line.endsWith("}")));
+    assertTrue(body.contains("\"businessUnitCode\":\"MWH.001\""));
+    assertFalse(body.contains("MWH.024"));
+  }
+
   @Test
   void createWarehouse_success() {
     given()
@@ -236,6 +318,66 @@ public class WarehouseResourceTest {
         .body("businessUnitCode", not(hasItem(businessUnitCode)));
   }
 
+  @Test
+  void occupancyLedger_followsCommittedCreateAndArchive() {
+    var before = given()
+        .when()
+        .get("/monitoring/warehouses/occupancy/ZWOLLE-002")
+        .then()
+        .statusCode(200)
+        .extract().jsonPath();
+
+    given()
+        .contentType(ContentType.JSON)
+        .body("""
+            {
+              "businessUnitCode": "LEDGER-WH-001",
+              "location": "ZWOLLE-002",
+              "capacity": 20,
+              "stock": 5
+            }
+            """)
+        .when()
+        .post("/warehouse")
+        .then()
+        .statusCode(200);
+
+    given()
+        .when()
+        .get("/monitoring/warehouses/occupancy/ZWOLLE-002")
+        .then()
+        .statusCode(200)
+        .body("activeWarehouses", equalTo(before.getInt("activeWarehouses") + 1))
+        .body("totalCapacity", equalTo(before.getInt("totalCapacity") + 20));
+
+    given().when().delete("/warehouse/LEDGER-WH-001").then().statusCode(204);
+
+    given()
+        .when()
+        .get("/monitoring/warehouses/occupancy")
+        .then()
+        .statusCode(200)
+        .body("'ZWOLLE-002'.activeWarehouses", equalTo(before.getInt("activeWarehouses")));
+  }
+
+  @Test
+  void warehouseCache_reportsHitsAndMisses() {
+    given().when().get("/warehouse/MWH.001").then().statusCode(200);
+    var before = given().when().get("/monitoring/warehouses/cache")
+        .then().statusCode(200).extract().jsonPath();
+
+    given().when().get("/warehouse/MWH.001").then().statusCode(200);
+
+    given()
+        .when()
+        .get("/monitoring/warehouses/cache")
+        .then()
+        .statusCode(200)
+        .body("hits", equalTo(before.getInt("hits") + 1))
+        .body("misses", equalTo(before.getInt("misses")))
+        .body("maxSize", greaterThan(0));
+  }
+
   @Test
   void archiveWarehouse_notFound_shouldFail() {
     given()
@@ -8,6 +8,10 @@ import jakarta.inject.Inject;
 import jakarta.ws.rs.WebApplicationException;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @QuarkusTest
@@ -20,8 +24,8 @@ public class ArchiveWarehouseUseCaseTest {
   void archive_warehouseNotFound_shouldFail() {
     WarehouseRepository mockRepo = new WarehouseRepository() {
       @Override
-      public Warehouse findByBusinessUnitCode(String buCode) {
-        return null;
+      public int archiveActive(String buCode, LocalDateTime archivedAt) {
+        return 0;
       }
     };
     
@@ -34,4 +38,26 @@ public class ArchiveWarehouseUseCaseTest {
     assertEquals(404, exception.getResponse().getStatus());
     assertTrue(exception.getMessage().contains("Warehouse not found"));
   }
+
+  @Test
+  void archive_activeWarehouse_runsSingleUpdate() {
+    List<String> archived = new ArrayList<>();
+    WarehouseRepository mockRepo = new WarehouseRepository() {
+      @Override
+      public Warehouse findByBusinessUnitCode(String buCode) {
+        throw new AssertionError("archive must not read the warehouse first");
+      }
+
+      @Override
+      public int archiveActive(String buCode, LocalDateTime archivedAt) {
+        archived.add(buCode);
+        return 1;
+      }
+    };
+
+    QuarkusMock.installMockForType(mockRepo, WarehouseRepository.class);
+
+    assertDoesNotThrow(() -> useCase.archive("WH-001"));
+    assertEquals(List.of("WH-001"), archived);
+  }
 }
@@ -1,8 +1,11 @@
 package com.fulfilment.application.monolith.warehouses.domain.usecases;
 
 import com.fulfilment.application.monolith.location.LocationGateway;
+import com.fulfilment.application.monolith.warehouses.adapters.database.LocationLocks;
+import com.fulfilment.application.monolith.warehouses.adapters.database.LocationOccupancyLedger;
 import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
 import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
 import io.quarkus.test.junit.QuarkusTest;
 import io.quarkus.test.junit.QuarkusMock;
@@ -10,9 +13,6 @@ import jakarta.inject.Inject;
 import jakarta.ws.rs.WebApplicationException;
 import org.junit.jupiter.api.Test;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import static org.junit.jupiter.api.Assertions.*;
 
 @QuarkusTest
@@ -86,21 +86,17 @@ public class CreateWarehouseUseCaseTest {
       public Warehouse findByBusinessUnitCode(String buCode) {
         return null;
       }
-      
-      @Override
-      public List<Warehouse> getAll() {
-        return new ArrayList<>();
-      }
     };
     
     LocationGateway mockResolver = new LocationGateway() {
       @Override
       public Location resolveByIdentifier(String identifier) {
-        return new Location("", 0, 0);
+        return null;
       }
     };
     
     QuarkusMock.installMockForType(mockRepo, WarehouseRepository.class);
+    QuarkusMock.installMockForType(ledgerWith(0, 0), LocationOccupancyLedger.class);
     QuarkusMock.installMockForType(mockResolver, LocationGateway.class);
 
     WebApplicationException exception = assertThrows(WebApplicationException.class, () -> {
@@ -124,11 +120,6 @@ public class CreateWarehouseUseCaseTest {
       public Warehouse findByBusinessUnitCode(String buCode) {
         return null;
       }
-      
-      @Override
-      public List<Warehouse> getAll() {
-        return new ArrayList<>();
-      }
     };
     
     LocationGateway mockResolver = new LocationGateway() {
@@ -139,6 +130,7 @@ public class CreateWarehouseUseCaseTest {
     };
     
     QuarkusMock.installMockForType(mockRepo, WarehouseRepository.class);
+    QuarkusMock.installMockForType(ledgerWith(0, 0), LocationOccupancyLedger.class);
     QuarkusMock.installMockForType(mockResolver, LocationGateway.class);
 
     WebApplicationException exception = assertThrows(WebApplicationException.class, () -> {
@@ -186,13 +178,10 @@ public class CreateWarehouseUseCaseTest {
       public Warehouse findByBusinessUnitCode(String buCode) {
         return null;
       }
-      @Override
-      public List<Warehouse> getAll() {
-        return new ArrayList<>();
-      }
     };
     
     QuarkusMock.installMockForType(mockRepo, WarehouseRepository.class);
+    QuarkusMock.installMockForType(ledgerWith(0, 0), LocationOccupancyLedger.class);
 
     WebApplicationException exception = assertThrows(WebApplicationException.class, () -> {
       useCase.create(warehouse);
@@ -214,13 +203,10 @@ public class CreateWarehouseUseCaseTest {
       public Warehouse findByBusinessUnitCode(String buCode) {
         return null;
       }
-      @Override
-      public List<Warehouse> getAll() {
-        return new ArrayList<>();
-      }
     };
     
     QuarkusMock.installMockForType(mockRepo, WarehouseRepository.class);
+    QuarkusMock.installMockForType(ledgerWith(0, 0), LocationOccupancyLedger.class);
 
     WebApplicationException exception = assertThrows(WebApplicationException.class, () -> {
       useCase.create(warehouse);
@@ -231,23 +217,11 @@ public class CreateWarehouseUseCaseTest {
 
   @Test
   void create_maxWarehousesReached_shouldFail() {
-    Warehouse existing = new Warehouse();
-    existing.businessUnitCode = "WH-002";
-    existing.location = "ZWOLLE-001";
-    existing.archivedAt = null;
-
     WarehouseRepository mockRepo = new WarehouseRepository() {
       @Override
       public Warehouse findByBusinessUnitCode(String buCode) {
         return null;
       }
-      
-      @Override
-      public List<Warehouse> getAll() {
-        List<Warehouse> warehouses = new ArrayList<>();
-        warehouses.add(existing);
-        return warehouses;
-      }
     };
     
     LocationGateway mockResolver = new LocationGateway() {
@@ -258,6 +232,7 @@ public class CreateWarehouseUseCaseTest {
     };
     
     QuarkusMock.installMockForType(mockRepo, WarehouseRepository.class);
+    QuarkusMock.installMockForType(ledgerWith(1, 0), LocationOccupancyLedger.class);
     QuarkusMock.installMockForType(mockResolver, LocationGateway.class);
 
     Warehouse warehouse = new Warehouse();
@@ -281,11 +256,6 @@ public class CreateWarehouseUseCaseTest {
       public Warehouse findByBusinessUnitCode(String buCode) {
         return null;
       }
-      
-      @Override
-      public List<Warehouse> getAll() {
-        return new ArrayList<>();
-      }
     };
     
     LocationGateway mockResolver = new LocationGateway() {
@@ -296,6 +266,7 @@ public class CreateWarehouseUseCaseTest {
     };
     
     QuarkusMock.installMockForType(mockRepo, WarehouseRepository.class);
+    QuarkusMock.installMockForType(ledgerWith(0, 0), LocationOccupancyLedger.class);
     QuarkusMock.installMockForType(mockResolver, LocationGateway.class);
 
     Warehouse warehouse = new Warehouse();
@@ -314,24 +285,11 @@ public class CreateWarehouseUseCaseTest {
 
   @Test
   void create_totalCapacityExceedsLocationMax_shouldFail() {
-    Warehouse existing = new Warehouse();
-    existing.businessUnitCode = "WH-002";
-    existing.location = "ZWOLLE-001";
-    existing.capacity = 30;
-    existing.archivedAt = null;
-
     WarehouseRepository mockRepo = new WarehouseRepository() {
       @Override
       public Warehouse findByBusinessUnitCode(String buCode) {
         return null;
       }
-      
-      @Override
-      public List<Warehouse> getAll() {
-        List<Warehouse> warehouses = new ArrayList<>();
-        warehouses.add(existing);
-        return warehouses;
-      }
     };
     
     LocationGateway mockResolver = new LocationGateway() {
@@ -342,6 +300,7 @@ public class CreateWarehouseUseCaseTest {
     };
     
     QuarkusMock.installMockForType(mockRepo, WarehouseRepository.class);
+    QuarkusMock.installMockForType(ledgerWith(1, 30), LocationOccupancyLedger.class);
     QuarkusMock.installMockForType(mockResolver, LocationGateway.class);
 
     Warehouse warehouse = new Warehouse();
@@ -357,4 +316,58 @@ public class CreateWarehouseUseCaseTest {
     assertEquals(422, exception.getResponse().getStatus());
     assertTrue(exception.getMessage().contains("Total capacity exceeds location maximum"));
   }
+
+  @Test
+  void create_locationFilledConcurrently_isRejectedUnderLock() {
+    Warehouse warehouse = new Warehouse();
+    warehouse.businessUnitCode = "WH-001";
+    warehouse.location = "ZWOLLE-001";
+    warehouse.capacity = 30;
+    warehouse.stock = 10;
+
+    WarehouseRepository mockRepo = new WarehouseRepository() {
+      @Override
+      public Warehouse findByBusinessUnitCode(String buCode) {
+        return null;
+      }
+
+      // another transaction committed the last slot after the ledger was read
+      @Override
+      public LocationOccupancy occupancyOf(String location, String excludingBuCode) {
+        return new LocationOccupancy(1, 30);
+      }
+    };
+
+    LocationGateway mockResolver = new LocationGateway() {
+      @Override
+      public Location resolveByIdentifier(String identifier) {
+        return new Location("ZWOLLE-001", 1, 100);
+      }
+    };
+
+    QuarkusMock.installMockForType(mockRepo, WarehouseRepository.class);
+    QuarkusMock.installMockForType(ledgerWith(0, 0), LocationOccupancyLedger.class);
+    QuarkusMock.installMockForType(mockResolver, LocationGateway.class);
+    QuarkusMock.installMockForType(new LocationLocks() {
+      @Override
+      public void lock(String location) {
+      }
+    }, LocationLocks.class);
+
+    WebApplicationException exception = assertThrows(WebApplicationException.class, () -> {
+      useCase.create(warehouse);
+    });
+
+    assertEquals(422, exception.getResponse().getStatus());
+    assertTrue(exception.getMessage().contains("Maximum warehouses reached for location"));
+  }
+
+  private static LocationOccupancyLedger ledgerWith(long activeWarehouses, long totalCapacity) {
+    return new LocationOccupancyLedger() {
+      @Override
+      public LocationOccupancy occupancyOf(String location) {
+        return new LocationOccupancy(activeWarehouses, totalCapacity);
+      }
+    };
+  }
 }
@@ -0,0 +1,127 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fulfilment.application.monolith.location.LocationGateway;
+import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusMock;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Many threads race to create warehouses in a handful of locations. Only the location limits may
+ * decide how many get in, whatever the interleaving. The throughput variant is tagged
+ * {@code benchmark} and only runs with {@code -Pbenchmark}.
+ */
+@QuarkusTest
+public class LocationLockContentionTest {
+
+  private static final Logger LOGGER = Logger.getLogger(LocationLockContentionTest.class.getName());
+  private static final int LOCATIONS = 4;
+  private static final int MAX_WAREHOUSES = 3;
+  private static final int MAX_CAPACITY = 100;
+  private static final int WAREHOUSE_CAPACITY = 30;
+  private static final int THREADS = 16;
+  private static final int ATTEMPTS_PER_THREAD = 10;
+  private static final int BENCHMARK_ATTEMPTS_PER_THREAD = 100;
+
+  @Inject
+  CreateWarehouseUseCase useCase;
+
+  @Inject
+  WarehouseRepository repository;
+
+  @Test
+  void concurrentCreates_neverOversubscribeALocation() throws Exception {
+    race(ATTEMPTS_PER_THREAD);
+  }
+
+  @Test
+  @Tag("benchmark")
+  void concurrentCreates_throughput() throws Exception {
+    int attempts = THREADS * BENCHMARK_ATTEMPTS_PER_THREAD;
+    double seconds = race(BENCHMARK_ATTEMPTS_PER_THREAD);
+    LOGGER.infof(
+            "location lock contention: %s attempts on %s locations with %s threads in %.2fs (%.0f ops/s)",
+            attempts, LOCATIONS, THREADS, seconds, attempts / seconds);
+  }
+
+  /** Runs the race and checks the location limits held; returns the elapsed seconds. */
+  private double race(int attemptsPerThread) throws Exception {
+    QuarkusMock.installMockForType(new LocationGateway() {
+      @Override
+      public Location resolveByIdentifier(String identifier) {
+        return new Location(identifier, MAX_WAREHOUSES, MAX_CAPACITY);
+      }
+    }, LocationGateway.class);
+
+    String run = Long.toString(System.nanoTime(), 36).toUpperCase();
+    AtomicInteger created = new AtomicInteger();
+    AtomicInteger rejected = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    List<Future<?>> futures = new ArrayList<>();
+
+    for (int t = 0; t < THREADS; t++) {
+      int thread = t;
+      futures.add(executor.submit(() -> {
+        start.await();
+        for (int i = 0; i < attemptsPerThread; i++) {
+          Warehouse warehouse = new Warehouse();
+          warehouse.businessUnitCode = "BENCH-" + run + "-" + thread + "-" + i;
+          warehouse.location = location(run, (thread + i) % LOCATIONS);
+          warehouse.capacity = WAREHOUSE_CAPACITY;
+          warehouse.stock = 0;
+          try {
+            QuarkusTransaction.requiringNew().run(() -> useCase.create(warehouse));
+            created.incrementAndGet();
+          } catch (WebApplicationException e) {
+            assertEquals(422, e.getResponse().getStatus());
+            rejected.incrementAndGet();
+          }
+        }
+        return null;
+      }));
+    }
+
+    long startedAt = System.nanoTime();
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get(2, TimeUnit.MINUTES);
+    }
+    double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+    executor.shutdown();
+
+    int attempts = THREADS * attemptsPerThread;
+    int perLocation = Math.min(MAX_WAREHOUSES, MAX_CAPACITY / WAREHOUSE_CAPACITY);
+    assertEquals(attempts, created.get() + rejected.get());
+    assertEquals(LOCATIONS * perLocation, created.get());
+    for (int l = 0; l < LOCATIONS; l++) {
+      String location = location(run, l);
+      var occupancy = QuarkusTransaction.requiringNew().call(() -> repository.occupancyOf(location, null));
+      assertEquals(perLocation, occupancy.activeWarehouses);
+      assertTrue(occupancy.totalCapacity <= MAX_CAPACITY);
+    }
+    return seconds;
+  }
+
+  private static String location(String run, int index) {
+    return "BENCH-" + run + "-L" + index;
+  }
+}
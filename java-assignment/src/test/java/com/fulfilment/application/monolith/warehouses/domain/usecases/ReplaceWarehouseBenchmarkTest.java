@@ -0,0 +1,139 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fulfilment.application.monolith.location.LocationGateway;
+import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusMock;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Per-replace latency and statement count of the store-level replace, measured against the
+ * composition it replaced (lookup, occupancy aggregate, archive, insert). The default run only
+ * compares statement counts; the latency run is tagged {@code benchmark}.
+ */
+@QuarkusTest
+public class ReplaceWarehouseBenchmarkTest {
+
+  private static final Logger LOGGER = Logger.getLogger(ReplaceWarehouseBenchmarkTest.class.getName());
+  private static final int WARMUP = 20;
+  private static final int ITERATIONS = 200;
+  private static final int CHECK_ITERATIONS = 10;
+  private static final int STOCK = 10;
+
+  @Inject
+  ReplaceWarehouseUseCase useCase;
+
+  @Inject
+  WarehouseRepository repository;
+
+  @Inject
+  SessionFactory sessionFactory;
+
+  @Test
+  void replace_runsNoMoreStatementsThanTheLegacySequence() {
+    Result[] results = compare(0, CHECK_ITERATIONS);
+    assertTrue(results[1].statementsPerOp() <= results[0].statementsPerOp());
+  }
+
+  @Test
+  @Tag("benchmark")
+  void replace_latency() {
+    Result[] results = compare(WARMUP, ITERATIONS);
+    Result legacy = results[0];
+    Result current = results[1];
+    LOGGER.infof(
+            "replace x%s: legacy p50=%sus p99=%sus %.1f stmts/op | replaceActive p50=%sus p99=%sus %.1f stmts/op",
+            ITERATIONS, legacy.p50Micros(), legacy.p99Micros(), legacy.statementsPerOp(),
+            current.p50Micros(), current.p99Micros(), current.statementsPerOp());
+  }
+
+  /** Replaces a warehouse through the legacy sequence and through the use case; legacy first. */
+  private Result[] compare(int warmup, int iterations) {
+    QuarkusMock.installMockForType(new LocationGateway() {
+      @Override
+      public Location resolveByIdentifier(String identifier) {
+        return new Location(identifier, 10, 1_000_000);
+      }
+    }, LocationGateway.class);
+
+    String run = Long.toString(System.nanoTime(), 36).toUpperCase();
+    String location = "BENCH-REPLACE-" + run;
+    String legacyCode = "BENCH-LEGACY-" + run;
+    String replaceCode = "BENCH-REPLACE-" + run;
+    QuarkusTransaction.requiringNew().run(() -> {
+      repository.create(warehouse(legacyCode, location, 100));
+      repository.create(warehouse(replaceCode, location, 100));
+    });
+
+    Result legacy = measure(legacyCode, location, this::legacyReplace, warmup, iterations);
+    Result current = measure(replaceCode, location, useCase::replace, warmup, iterations);
+
+    assertEquals(iterations + warmup + 1,
+            repository.count("businessUnitCode", replaceCode));
+    assertEquals(1, repository.count("businessUnitCode = ?1 and archivedAt is null", replaceCode));
+    return new Result[] {legacy, current};
+  }
+
+  private Result measure(
+          String buCode, String location, Consumer<Warehouse> replace, int warmup, int iterations) {
+    Statistics statistics = sessionFactory.getStatistics();
+    long[] nanos = new long[iterations];
+    long statements = 0;
+    for (int i = 0; i < warmup + iterations; i++) {
+      Warehouse replacement = warehouse(buCode, location, 100 + i % 50);
+      long statementsBefore = statistics.getPrepareStatementCount();
+      long start = System.nanoTime();
+      QuarkusTransaction.requiringNew().run(() -> replace.accept(replacement));
+      long elapsed = System.nanoTime() - start;
+      if (i >= warmup) {
+        nanos[i - warmup] = elapsed;
+        statements += statistics.getPrepareStatementCount() - statementsBefore;
+      }
+    }
+    Arrays.sort(nanos);
+    return new Result(nanos[iterations / 2], nanos[iterations * 99 / 100], (double) statements / iterations);
+  }
+
+  // the sequence replace ran before it became a single store operation
+  private void legacyReplace(Warehouse replacement) {
+    Warehouse current = repository.findByBusinessUnitCode(replacement.businessUnitCode);
+    repository.lockLocation(replacement.location);
+    repository.occupancyOf(replacement.location, replacement.businessUnitCode);
+    repository.archiveActive(current.businessUnitCode, LocalDateTime.now());
+    replacement.createdAt = LocalDateTime.now();
+    repository.create(replacement);
+  }
+
+  private static Warehouse warehouse(String buCode, String location, int capacity) {
+    Warehouse warehouse = new Warehouse();
+    warehouse.businessUnitCode = buCode;
+    warehouse.location = location;
+    warehouse.capacity = capacity;
+    warehouse.stock = STOCK;
+    return warehouse;
+  }
+
+  private record Result(long p50Nanos, long p99Nanos, double statementsPerOp) {
+    long p50Micros() {
+      return p50Nanos / 1_000;
+    }
+
+    long p99Micros() {
+      return p99Nanos / 1_000;
+    }
+  }
+}
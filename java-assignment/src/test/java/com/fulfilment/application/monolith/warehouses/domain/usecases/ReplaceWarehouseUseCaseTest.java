@@ -1,8 +1,11 @@
 package com.fulfilment.application.monolith.warehouses.domain.usecases;
 
 import com.fulfilment.application.monolith.location.LocationGateway;
+import com.fulfilment.application.monolith.warehouses.adapters.database.LocationLocks;
+import com.fulfilment.application.monolith.warehouses.adapters.database.LocationOccupancyLedger;
 import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
 import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
 import io.quarkus.test.junit.QuarkusTest;
 import io.quarkus.test.junit.QuarkusMock;
@@ -10,9 +13,6 @@ import jakarta.inject.Inject;
 import jakarta.ws.rs.WebApplicationException;
 import org.junit.jupiter.api.Test;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import static org.junit.jupiter.api.Assertions.*;
 
 @QuarkusTest
@@ -34,18 +34,11 @@ public class ReplaceWarehouseUseCaseTest {
         if ("WH-001".equals(buCode)) return current;
         return null;
       }
-      
-      @Override
-      public List<Warehouse> getAll() {
-        return new ArrayList<>();
-      }
-      
-      @Override
-      public void update(Warehouse warehouse) {
-      }
-      
+
       @Override
-      public void create(Warehouse warehouse) {
+      public boolean replaceActive(Warehouse replacement, ReplacementCheck check) {
+        check.check(current, new LocationOccupancy(0, 0));
+        return true;
       }
     };
     
@@ -57,7 +50,13 @@ public class ReplaceWarehouseUseCaseTest {
     };
     
     QuarkusMock.installMockForType(mockRepo, WarehouseRepository.class);
+    QuarkusMock.installMockForType(ledgerWith(0, 0), LocationOccupancyLedger.class);
     QuarkusMock.installMockForType(mockResolver, LocationGateway.class);
+    QuarkusMock.installMockForType(new LocationLocks() {
+      @Override
+      public void lock(String location) {
+      }
+    }, LocationLocks.class);
 
     Warehouse newWarehouse = new Warehouse();
     newWarehouse.businessUnitCode = "WH-001";
@@ -104,11 +103,6 @@ public class ReplaceWarehouseUseCaseTest {
       public Warehouse findByBusinessUnitCode(String buCode) {
         return current;
       }
-      
-      @Override
-      public List<Warehouse> getAll() {
-        return new ArrayList<>();
-      }
     };
     
     LocationGateway mockResolver = new LocationGateway() {
@@ -119,6 +113,7 @@ public class ReplaceWarehouseUseCaseTest {
     };
     
     QuarkusMock.installMockForType(mockRepo, WarehouseRepository.class);
+    QuarkusMock.installMockForType(ledgerWith(0, 0), LocationOccupancyLedger.class);
     QuarkusMock.installMockForType(mockResolver, LocationGateway.class);
 
     Warehouse newWarehouse = new Warehouse();
@@ -145,11 +140,6 @@ public class ReplaceWarehouseUseCaseTest {
       public Warehouse findByBusinessUnitCode(String buCode) {
         return current;
       }
-      
-      @Override
-      public List<Warehouse> getAll() {
-        return new ArrayList<>();
-      }
     };
     
     LocationGateway mockResolver = new LocationGateway() {
@@ -160,6 +150,7 @@ public class ReplaceWarehouseUseCaseTest {
     };
     
     QuarkusMock.installMockForType(mockRepo, WarehouseRepository.class);
+    QuarkusMock.installMockForType(ledgerWith(0, 0), LocationOccupancyLedger.class);
     QuarkusMock.installMockForType(mockResolver, LocationGateway.class);
 
     Warehouse newWarehouse = new Warehouse();
@@ -187,11 +178,6 @@ public class ReplaceWarehouseUseCaseTest {
       public Warehouse findByBusinessUnitCode(String buCode) {
         return current;
       }
-      
-      @Override
-      public List<Warehouse> getAll() {
-        return new ArrayList<>();
-      }
     };
     
     LocationGateway mockResolver = new LocationGateway() {
@@ -202,6 +188,7 @@ public class ReplaceWarehouseUseCaseTest {
     };
     
     QuarkusMock.installMockForType(mockRepo, WarehouseRepository.class);
+    QuarkusMock.installMockForType(ledgerWith(0, 0), LocationOccupancyLedger.class);
     QuarkusMock.installMockForType(mockResolver, LocationGateway.class);
 
     Warehouse newWarehouse = new Warehouse();
@@ -229,21 +216,17 @@ public class ReplaceWarehouseUseCaseTest {
       public Warehouse findByBusinessUnitCode(String buCode) {
         return current;
       }
-      
-      @Override
-      public List<Warehouse> getAll() {
-        return new ArrayList<>();
-      }
     };
     
     LocationGateway mockResolver = new LocationGateway() {
       @Override
       public Location resolveByIdentifier(String identifier) {
-        return new Location("", 0, 0);
+        return null;
       }
     };
     
     QuarkusMock.installMockForType(mockRepo, WarehouseRepository.class);
+    QuarkusMock.installMockForType(ledgerWith(0, 0), LocationOccupancyLedger.class);
     QuarkusMock.installMockForType(mockResolver, LocationGateway.class);
 
     Warehouse newWarehouse = new Warehouse();
@@ -271,11 +254,6 @@ public class ReplaceWarehouseUseCaseTest {
       public Warehouse findByBusinessUnitCode(String buCode) {
         return current;
       }
-      
-      @Override
-      public List<Warehouse> getAll() {
-        return new ArrayList<>();
-      }
     };
     
     LocationGateway mockResolver = new LocationGateway() {
@@ -286,6 +264,7 @@ public class ReplaceWarehouseUseCaseTest {
     };
     
     QuarkusMock.installMockForType(mockRepo, WarehouseRepository.class);
+    QuarkusMock.installMockForType(ledgerWith(0, 0), LocationOccupancyLedger.class);
     QuarkusMock.installMockForType(mockResolver, LocationGateway.class);
 
     Warehouse newWarehouse = new Warehouse();
@@ -313,11 +292,6 @@ public class ReplaceWarehouseUseCaseTest {
       public Warehouse findByBusinessUnitCode(String buCode) {
         return current;
       }
-      
-      @Override
-      public List<Warehouse> getAll() {
-        return new ArrayList<>();
-      }
     };
     
     LocationGateway mockResolver = new LocationGateway() {
@@ -328,6 +302,7 @@ public class ReplaceWarehouseUseCaseTest {
     };
     
     QuarkusMock.installMockForType(mockRepo, WarehouseRepository.class);
+    QuarkusMock.installMockForType(ledgerWith(0, 0), LocationOccupancyLedger.class);
     QuarkusMock.installMockForType(mockResolver, LocationGateway.class);
 
     Warehouse newWarehouse = new Warehouse();
@@ -351,24 +326,11 @@ public class ReplaceWarehouseUseCaseTest {
     current.stock = 50;
     current.location = "ZWOLLE-001";
 
-    Warehouse existing = new Warehouse();
-    existing.businessUnitCode = "WH-002";
-    existing.capacity = 80;
-    existing.location = "ZWOLLE-001";
-    existing.archivedAt = null;
-
     WarehouseRepository mockRepo = new WarehouseRepository() {
       @Override
       public Warehouse findByBusinessUnitCode(String buCode) {
         return current;
       }
-      
-      @Override
-      public List<Warehouse> getAll() {
-        List<Warehouse> warehouses = new ArrayList<>();
-        warehouses.add(existing);
-        return warehouses;
-      }
     };
     
     LocationGateway mockResolver = new LocationGateway() {
@@ -379,6 +341,7 @@ public class ReplaceWarehouseUseCaseTest {
     };
     
     QuarkusMock.installMockForType(mockRepo, WarehouseRepository.class);
+    QuarkusMock.installMockForType(ledgerWith(1, 80), LocationOccupancyLedger.class);
     QuarkusMock.installMockForType(mockResolver, LocationGateway.class);
 
     Warehouse newWarehouse = new Warehouse();
@@ -394,4 +357,68 @@ public class ReplaceWarehouseUseCaseTest {
     assertEquals(422, exception.getResponse().getStatus());
     assertTrue(exception.getMessage().contains("Total capacity exceeds location maximum"));
   }
+
+  @Test
+  void replace_stockChangedWhileWaitingForLock_shouldFail() {
+    Warehouse cached = new Warehouse();
+    cached.businessUnitCode = "WH-001";
+    cached.stock = 50;
+    cached.location = "AMSTERDAM-001";
+
+    Warehouse locked = new Warehouse();
+    locked.businessUnitCode = "WH-001";
+    locked.stock = 60;
+    locked.location = "AMSTERDAM-001";
+
+    WarehouseRepository mockRepo = new WarehouseRepository() {
+      @Override
+      public Warehouse findByBusinessUnitCode(String buCode) {
+        return cached;
+      }
+
+      @Override
+      public boolean replaceActive(Warehouse replacement, ReplacementCheck check) {
+        check.check(locked, new LocationOccupancy(0, 0));
+        return true;
+      }
+    };
+
+    LocationGateway mockResolver = new LocationGateway() {
+      @Override
+      public Location resolveByIdentifier(String identifier) {
+        return new Location("AMSTERDAM-001", 5, 200);
+      }
+    };
+
+    QuarkusMock.installMockForType(mockRepo, WarehouseRepository.class);
+    QuarkusMock.installMockForType(ledgerWith(0, 0), LocationOccupancyLedger.class);
+    QuarkusMock.installMockForType(mockResolver, LocationGateway.class);
+    QuarkusMock.installMockForType(new LocationLocks() {
+      @Override
+      public void lock(String location) {
+      }
+    }, LocationLocks.class);
+
+    Warehouse newWarehouse = new Warehouse();
+    newWarehouse.businessUnitCode = "WH-001";
+    newWarehouse.location = "AMSTERDAM-001";
+    newWarehouse.capacity = 100;
+    newWarehouse.stock = 50;
+
+    WebApplicationException exception = assertThrows(WebApplicationException.class, () -> {
+      useCase.replace(newWarehouse);
+    });
+
+    assertEquals(422, exception.getResponse().getStatus());
+    assertTrue(exception.getMessage().contains("Stock must match previous warehouse"));
+  }
+
+  private static LocationOccupancyLedger ledgerWith(long activeWarehouses, long totalCapacity) {
+    return new LocationOccupancyLedger() {
+      @Override
+      public LocationOccupancy occupancyOf(String location) {
+        return new LocationOccupancy(activeWarehouses, totalCapacity);
+      }
+    };
+  }
 }